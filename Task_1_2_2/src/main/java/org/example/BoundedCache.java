@@ -0,0 +1,392 @@
+package org.example;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ToIntBiFunction;
+
+/**
+ * A thread-safe cache with a bound on the total weight of its entries, built on
+ * {@link ConcurrentHashTable}.
+ *
+ * <p>Entries are kept in a {@link ConcurrentHashTable}, so a hit takes no locks to find its
+ * entry. The eviction order is a linked list guarded by a single lock, taken by writers
+ * only. With {@link Policy#LRU} a hit records its entry in a small ring buffer, and the
+ * next write replays the buffered hits, moving their entries to the head of the list,
+ * before it evicts anything. The buffer is lossy: when hits outpace writes the oldest
+ * records are overwritten, so the order is approximate. With {@link Policy#CLOCK} a hit
+ * only sets a flag, and eviction gives flagged entries a second chance.
+ *
+ * <p>Entries may have a time to live, after which they are no longer returned and are
+ * removed on the next access. Hit, miss and eviction counts are kept for monitoring.
+ *
+ * <p>Null keys and null values are not supported.
+ *
+ * @param <K> the type of keys
+ * @param <V> the type of cached values
+ */
+public class BoundedCache<K, V> {
+    /**
+     * Eviction policies.
+     */
+    public enum Policy {
+        /**
+         * Evicts the least recently used entry.
+         */
+        LRU,
+        /**
+         * Evicts the oldest entry not used since the eviction last passed it.
+         */
+        CLOCK
+    }
+
+    private final ConcurrentHashTable<K, Node<K, V>> table = new ConcurrentHashTable<>();
+    private final long maximumWeight;
+    private final Policy policy;
+    private final ToIntBiFunction<? super K, ? super V> weigher;
+
+    // Порядок вытеснения: head - последняя использованная запись, tail - кандидат
+    private final ReentrantLock lock = new ReentrantLock();
+    private Node<K, V> head;
+    private Node<K, V> tail;
+    private long weight = 0;
+
+    // Попадания LRU, ещё не перенесённые в голову списка
+    private static final int READ_BUFFER_SIZE = 64;
+    private final AtomicReferenceArray<Node<K, V>> readBuffer =
+            new AtomicReferenceArray<>(READ_BUFFER_SIZE);
+    private final AtomicLong reads = new AtomicLong();
+    private long drainedReads = 0; // Меняется только под блокировкой
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Constructs a cache holding at most the given number of entries.
+     *
+     * @param maximumSize the maximum number of entries
+     * @param policy the eviction policy
+     */
+    public BoundedCache(long maximumSize, Policy policy) {
+        this(maximumSize, policy, (key, value) -> 1);
+    }
+
+    /**
+     * Constructs a cache bounded by the total weight of its entries.
+     *
+     * @param maximumWeight the maximum total weight
+     * @param policy the eviction policy
+     * @param weigher computes the non-negative weight of an entry
+     */
+    public BoundedCache(long maximumWeight, Policy policy,
+                        ToIntBiFunction<? super K, ? super V> weigher) {
+        if (maximumWeight < 0) {
+            throw new IllegalArgumentException("Maximum weight is negative: " + maximumWeight);
+        }
+        this.maximumWeight = maximumWeight;
+        this.policy = policy;
+        this.weigher = weigher;
+    }
+
+    /**
+     * A cached entry and its place in the eviction order.
+     */
+    private static final class Node<K, V> {
+        final K key;
+        final V value;
+        final int weight;
+        final long expiresAt; // По System.nanoTime, Long.MAX_VALUE - бессрочно
+        volatile boolean referenced = false; // Для CLOCK
+        Node<K, V> prev; // Поля списка меняются только под блокировкой
+        Node<K, V> next;
+        boolean linked = false;
+
+        Node(K key, V value, int weight, long expiresAt) {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * Returns the cached value for the key.
+     *
+     * @param key the key
+     * @return the value, or {@code null} if it is not cached or has expired
+     */
+    public V get(K key) {
+        Node<K, V> node = table.get(key);
+        if (node == null || !node.key.equals(key)) {
+            misses.increment();
+            return null;
+        }
+        if (node.expiresAt != Long.MAX_VALUE && node.expiresAt - System.nanoTime() <= 0) {
+            misses.increment();
+            removeNode(node);
+            return null;
+        }
+
+        hits.increment();
+        if (policy == Policy.CLOCK) {
+            if (!node.referenced) {
+                node.referenced = true;
+            }
+        } else {
+            int index = (int) reads.getAndIncrement() & (READ_BUFFER_SIZE - 1);
+            readBuffer.lazySet(index, node);
+        }
+        return node.value;
+    }
+
+    /**
+     * Caches the value for the key without expiration, evicting other entries if the
+     * maximum weight is exceeded.
+     *
+     * @param key the key
+     * @param value the value
+     */
+    public void put(K key, V value) {
+        put(key, new Node<>(key, value, weigh(key, value), Long.MAX_VALUE));
+    }
+
+    /**
+     * Caches the value for the key for the given time, evicting other entries if the
+     * maximum weight is exceeded. A time to live of about 292 years or more, which does not
+     * fit in a {@code long} of nanoseconds, never expires.
+     *
+     * @param key the key
+     * @param value the value
+     * @param timeToLive how long the value may be returned
+     */
+    public void put(K key, V value, Duration timeToLive) {
+        put(key, new Node<>(key, value, weigh(key, value), expiresAt(timeToLive)));
+    }
+
+    /**
+     * Removes the value for the key.
+     *
+     * @param key the key
+     * @return the removed value, or {@code null} if it was not cached
+     */
+    public V remove(K key) {
+        lock.lock();
+        try {
+            Node<K, V> node = table.remove(key);
+            if (node == null) {
+                return null;
+            }
+            unlink(node);
+            return node.value;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of cached entries, including expired ones not removed yet.
+     *
+     * @return the number of entries
+     */
+    public int size() {
+        return table.size();
+    }
+
+    /**
+     * Returns the total weight of the cached entries.
+     *
+     * @return the total weight
+     */
+    public long weight() {
+        lock.lock();
+        try {
+            return weight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns how many times {@link #get(Object)} found a value.
+     *
+     * @return the number of hits
+     */
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Returns how many times {@link #get(Object)} found no value or an expired one.
+     *
+     * @return the number of misses
+     */
+    public long missCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns how many entries were evicted to respect the maximum weight.
+     *
+     * @return the number of evictions
+     */
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * Inserts a node, replacing the one for the same key, and evicts entries until the
+     * total weight fits.
+     *
+     * @param key the key
+     * @param node the new node
+     */
+    private void put(K key, Node<K, V> node) {
+        lock.lock();
+        try {
+            drainReads();
+            Node<K, V> old = table.get(key);
+            table.put(key, node);
+            if (old != null) {
+                unlink(old);
+            }
+            linkFirst(node);
+            evict();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Evicts entries from the tail of the list while the total weight is exceeded. Under
+     * {@link Policy#CLOCK} a referenced entry loses its flag and moves to the head instead.
+     * Must be called under the lock.
+     */
+    private void evict() {
+        while (weight > maximumWeight && tail != null) {
+            Node<K, V> victim = tail;
+            unlink(victim);
+            if (policy == Policy.CLOCK && victim.referenced) {
+                victim.referenced = false;
+                linkFirst(victim);
+                continue;
+            }
+            table.remove(victim.key);
+            evictions.increment();
+        }
+    }
+
+    /**
+     * Moves the entries of the buffered hits to the head of the list, oldest hit first.
+     * Must be called under the lock.
+     */
+    private void drainReads() {
+        long end = reads.get();
+        // Записи старше размера буфера уже перезаписаны
+        for (long i = Math.max(drainedReads, end - READ_BUFFER_SIZE); i < end; i++) {
+            Node<K, V> node = readBuffer.getAndSet((int) i & (READ_BUFFER_SIZE - 1), null);
+            if (node != null && node.linked) {
+                unlink(node);
+                linkFirst(node);
+            }
+        }
+        drainedReads = end;
+    }
+
+    /**
+     * Computes the expiration time for a time to live.
+     *
+     * @param timeToLive the time to live
+     * @return the expiration time by {@link System#nanoTime()}, or {@code Long.MAX_VALUE}
+     *         if the entry never expires
+     */
+    private static long expiresAt(Duration timeToLive) {
+        if (timeToLive.compareTo(Duration.ofNanos(Long.MAX_VALUE)) >= 0) {
+            return Long.MAX_VALUE;
+        }
+        // Сумма может перейти через Long.MAX_VALUE, но срок сравнивается по разности
+        // с nanoTime, а она не переполняется
+        long expiresAt = System.nanoTime() + timeToLive.toNanos();
+        return expiresAt == Long.MAX_VALUE ? Long.MAX_VALUE - 1 : expiresAt;
+    }
+
+    /**
+     * Removes an expired node, unless it was already replaced or removed.
+     *
+     * @param node the node
+     */
+    private void removeNode(Node<K, V> node) {
+        lock.lock();
+        try {
+            if (node.linked && table.get(node.key) == node) {
+                table.remove(node.key);
+                unlink(node);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Adds a node at the head of the list. Must be called under the lock.
+     *
+     * @param node the node
+     */
+    private void linkFirst(Node<K, V> node) {
+        node.prev = null;
+        node.next = head;
+        if (head != null) {
+            head.prev = node;
+        } else {
+            tail = node;
+        }
+        head = node;
+        node.linked = true;
+        weight += node.weight;
+    }
+
+    /**
+     * Removes a node from the list, if it is there. Must be called under the lock.
+     *
+     * @param node the node
+     */
+    private void unlink(Node<K, V> node) {
+        if (!node.linked) {
+            return;
+        }
+        if (node.prev != null) {
+            node.prev.next = node.next;
+        } else {
+            head = node.next;
+        }
+        if (node.next != null) {
+            node.next.prev = node.prev;
+        } else {
+            tail = node.prev;
+        }
+        node.prev = null;
+        node.next = null;
+        node.linked = false;
+        weight -= node.weight;
+    }
+
+    /**
+     * Computes the weight of an entry.
+     *
+     * @param key the key
+     * @param value the value
+     * @return the weight
+     */
+    private int weigh(K key, V value) {
+        if (value == null) {
+            throw new NullPointerException("Null values are not supported");
+        }
+        int weight = weigher.applyAsInt(key, value);
+        if (weight < 0) {
+            throw new IllegalArgumentException("Negative weight: " + weight);
+        }
+        return weight;
+    }
+}
@@ -0,0 +1,116 @@
+package org.example;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Converts keys or values of off-heap tables to bytes and back.
+ *
+ * @param <T> the type of converted objects
+ */
+public interface Codec<T> {
+    /**
+     * Encodes strings in UTF-8. A lone surrogate, which UTF-8 can not encode, is written as
+     * {@code '?'} like {@link String#getBytes(java.nio.charset.Charset)} does.
+     */
+    Codec<String> STRING = new Codec<>() {
+        @Override
+        public int size(String value) {
+            int size = value.length();
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                        && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    // Суррогатная пара - 4 байта на два char
+                    size += 2;
+                    i++;
+                } else if (Character.isSurrogate(c)) {
+                    // Одиночный суррогат заменяется на '?' - 1 байт
+                    continue;
+                } else if (c >= 0x800) {
+                    size += 2;
+                } else if (c >= 0x80) {
+                    size++;
+                }
+            }
+            return size;
+        }
+
+        @Override
+        public void write(String value, ByteBuffer buffer) {
+            buffer.put(value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public String read(ByteBuffer buffer) {
+            byte[] bytes = new byte[buffer.remaining()];
+            buffer.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    };
+
+    /**
+     * Encodes integers in 4 bytes.
+     */
+    Codec<Integer> INTEGER = new Codec<>() {
+        @Override
+        public int size(Integer value) {
+            return Integer.BYTES;
+        }
+
+        @Override
+        public void write(Integer value, ByteBuffer buffer) {
+            buffer.putInt(value);
+        }
+
+        @Override
+        public Integer read(ByteBuffer buffer) {
+            return buffer.getInt();
+        }
+    };
+
+    /**
+     * Encodes long integers in 8 bytes.
+     */
+    Codec<Long> LONG = new Codec<>() {
+        @Override
+        public int size(Long value) {
+            return Long.BYTES;
+        }
+
+        @Override
+        public void write(Long value, ByteBuffer buffer) {
+            buffer.putLong(value);
+        }
+
+        @Override
+        public Long read(ByteBuffer buffer) {
+            return buffer.getLong();
+        }
+    };
+
+    /**
+     * Returns the number of bytes the object is encoded in.
+     *
+     * @param value the object
+     * @return the size of the encoded object
+     */
+    int size(T value);
+
+    /**
+     * Encodes the object into the buffer, starting at its position. Exactly
+     * {@link #size(Object)} bytes must be written.
+     *
+     * @param value the object
+     * @param buffer the buffer with enough space remaining
+     */
+    void write(T value, ByteBuffer buffer);
+
+    /**
+     * Decodes an object.
+     *
+     * @param buffer the buffer whose remaining bytes are exactly the encoded object
+     * @return the object
+     */
+    T read(ByteBuffer buffer);
+}
@@ -0,0 +1,440 @@
+package org.example;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A thread-safe open-addressing hash table with linear probing. Unlike {@link HashTable},
+ * entries are not displaced by their probe distance, and removed entries leave tombstones.
+ *
+ * <p>The table is split into segments selected by the high bits of the hash, each with its
+ * own slot arrays and lock. Writers lock only their segment, so writes to different
+ * segments do not contend. Readers take no locks at all: slots are published with release
+ * writes and read with acquire reads, and a segment that grows publishes its new arrays as
+ * a whole, so a reader always probes a consistent set of arrays. Since readers may be
+ * probing while a slot is freed, removal leaves a tombstone instead of shifting entries
+ * back. Tombstones are never reused for other keys: a slot goes from empty to a key to a
+ * tombstone, so a reader that found its key in a slot can only read a value written for that
+ * key. Tombstones are dropped when the segment is rebuilt.
+ *
+ * <p>Null keys and null values are not supported.
+ *
+ * @param <K> the type of keys maintained by this hash table
+ * @param <V> the type of mapped values
+ */
+public class ConcurrentHashTable<K, V> implements Iterable<HashTable.Entry<K, V>> {
+    private static final int DEFAULT_CONCURRENCY = 16;
+    private static final int DEFAULT_SEGMENT_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.75f;
+
+    /**
+     * Marks slots whose entries are removed.
+     */
+    private static final Object TOMBSTONE = new Object();
+
+    private static final VarHandle SLOTS = MethodHandles.arrayElementVarHandle(Object[].class);
+
+    private final Segment[] segments;
+    private final int segmentShift;
+
+    /**
+     * Constructs an empty hash table with 16 segments.
+     */
+    public ConcurrentHashTable() {
+        this(DEFAULT_CONCURRENCY);
+    }
+
+    /**
+     * Constructs an empty hash table.
+     *
+     * @param concurrency the expected number of concurrently writing threads, rounded up to
+     *                    a power of two to get the number of segments
+     */
+    public ConcurrentHashTable(int concurrency) {
+        if (concurrency <= 0) {
+            throw new IllegalArgumentException("Concurrency must be positive: " + concurrency);
+        }
+        int count = Integer.highestOneBit(Math.min(concurrency, 1 << 16) * 2 - 1);
+        segments = new Segment[count];
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment();
+        }
+        // Старшие биты хеша выбирают сегмент, младшие - слот в нём
+        segmentShift = 32 - Integer.numberOfTrailingZeros(count);
+    }
+
+    /**
+     * Slot arrays of a segment. Replaced as a whole when the segment is rebuilt.
+     */
+    private static final class Table {
+        final int[] hashes;
+        final Object[] keys; // null - пустой слот, TOMBSTONE - удалённая запись
+        final Object[] values;
+
+        Table(int capacity) {
+            hashes = new int[capacity];
+            keys = new Object[capacity];
+            values = new Object[capacity];
+        }
+    }
+
+    /**
+     * A part of the hash table with its own slot arrays, guarded by its own lock.
+     */
+    private static final class Segment extends ReentrantLock {
+        private static final long serialVersionUID = 1L;
+
+        volatile Table table = new Table(DEFAULT_SEGMENT_CAPACITY);
+        volatile int count; // Пишется только под блокировкой
+        int tombstones;
+    }
+
+    /**
+     * Inserts the specified key-value pair into the hash table.
+     * If the key already exists, the value is updated.
+     *
+     * @param key the key to insert or update
+     * @param value the value to associate with the key
+     */
+    public void put(K key, V value) {
+        put(key, value, false);
+    }
+
+    /**
+     * Inserts the specified key-value pair into the hash table, unless the key is already
+     * present.
+     *
+     * @param key the key to insert
+     * @param value the value to associate with the key
+     * @return the value already associated with the key, or {@code null} if the pair was
+     *         inserted
+     */
+    public V putIfAbsent(K key, V value) {
+        return put(key, value, true);
+    }
+
+    /**
+     * Retrieves the value associated with the specified key. Never blocks.
+     *
+     * @param key the key whose associated value is to be returned
+     * @return the value associated with the specified key, or {@code null}
+     *         if this table contains no mapping for the key
+     */
+    @SuppressWarnings("unchecked")
+    public V get(K key) {
+        int hash = hash(key);
+        Table table = segmentFor(hash).table;
+        Object[] keys = table.keys;
+        int mask = keys.length - 1;
+
+        for (int i = hash & mask; ; i = (i + 1) & mask) {
+            Object k = SLOTS.getAcquire(keys, i);
+            if (k == null) {
+                return null;
+            }
+            if (table.hashes[i] == hash && k.equals(key)) {
+                // null, если запись удаляется прямо сейчас
+                return (V) SLOTS.getAcquire(table.values, i);
+            }
+        }
+    }
+
+    /**
+     * Removes the key-value pair for the specified key from the hash table,
+     * if it exists.
+     *
+     * @param key the key whose mapping is to be removed
+     * @return the previous value associated with the key, or {@code null}
+     *         if there was no mapping for the key
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(K key) {
+        int hash = hash(key);
+        Segment segment = segmentFor(hash);
+        segment.lock();
+        try {
+            Table table = segment.table;
+            int index = find(table, key, hash);
+            if (index < 0) {
+                return null;
+            }
+            V oldValue = (V) table.values[index];
+            // Сначала значение, чтобы читатель не вернул значение удалённой записи
+            SLOTS.setRelease(table.values, index, null);
+            SLOTS.setRelease(table.keys, index, TOMBSTONE);
+            segment.tombstones++;
+            segment.count--;
+            return oldValue;
+        } finally {
+            segment.unlock();
+        }
+    }
+
+    /**
+     * Checks if the specified key is present in the hash table.
+     *
+     * @param key the key whose presence is to be tested
+     * @return {@code true} if the key exists in the table, {@code false} otherwise
+     */
+    public boolean containsKey(K key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Updates the value for the specified key if it exists in the hash table.
+     * Else throws IllegalArgumentException
+     *
+     * @param key the key to update
+     * @param value the new value to associate with the key
+     */
+    public void update(K key, V value) {
+        requireValue(value);
+        int hash = hash(key);
+        Segment segment = segmentFor(hash);
+        segment.lock();
+        try {
+            Table table = segment.table;
+            int index = find(table, key, hash);
+            if (index < 0) {
+                throw new IllegalArgumentException("Key not found in the table: " + key);
+            }
+            SLOTS.setRelease(table.values, index, value);
+        } finally {
+            segment.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of key-value pairs in the hash table. Under concurrent updates
+     * the result is an estimate.
+     *
+     * @return the number of key-value pairs
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.count;
+        }
+        return size;
+    }
+
+    /**
+     * Inserts or updates a pair under the lock of its segment.
+     *
+     * @param key the key
+     * @param value the value
+     * @param onlyIfAbsent whether to keep the existing value
+     * @return the value already associated with the key if it is kept, otherwise
+     *         {@code null}
+     */
+    @SuppressWarnings("unchecked")
+    private V put(K key, V value, boolean onlyIfAbsent) {
+        requireValue(value);
+        int hash = hash(key);
+        Segment segment = segmentFor(hash);
+        segment.lock();
+        try {
+            Table table = segment.table;
+            Object[] keys = table.keys;
+            int mask = keys.length - 1;
+
+            int i = hash & mask;
+            for (; keys[i] != null; i = (i + 1) & mask) {
+                Object k = keys[i];
+                if (k != TOMBSTONE && table.hashes[i] == hash && k.equals(key)) {
+                    if (onlyIfAbsent) {
+                        return (V) table.values[i];
+                    }
+                    SLOTS.setRelease(table.values, i, value);
+                    return null;
+                }
+            }
+
+            // Вставка нового элемента только в пустой слот: занять надгробие нельзя,
+            // читатель мог найти в нём старый ключ и ещё не прочитать значение
+            table.hashes[i] = hash;
+            SLOTS.setRelease(table.values, i, value);
+            SLOTS.setRelease(keys, i, key);
+            segment.count++;
+
+            if (segment.count + segment.tombstones >= keys.length * LOAD_FACTOR) {
+                rebuild(segment);
+            }
+            return null;
+        } finally {
+            segment.unlock();
+        }
+    }
+
+    /**
+     * Copies the live entries of a segment into new slot arrays and publishes them. The
+     * capacity is doubled unless most of the occupied slots are tombstones. Readers keep
+     * probing the old arrays, which are no longer changed, until they see the new ones.
+     *
+     * @param segment the locked segment
+     */
+    private static void rebuild(Segment segment) {
+        Table old = segment.table;
+        int capacity = old.keys.length;
+        if (segment.count >= capacity * LOAD_FACTOR / 2) {
+            capacity *= 2;
+        }
+        Table table = new Table(capacity);
+        int mask = capacity - 1;
+
+        for (int i = 0; i < old.keys.length; i++) {
+            Object key = old.keys[i];
+            if (key != null && key != TOMBSTONE) {
+                int index = old.hashes[i] & mask;
+                while (table.keys[index] != null) {
+                    index = (index + 1) & mask;
+                }
+                table.hashes[index] = old.hashes[i];
+                table.keys[index] = key;
+                table.values[index] = old.values[i];
+            }
+        }
+
+        segment.tombstones = 0;
+        segment.table = table; // volatile-запись публикует заполненные массивы
+    }
+
+    /**
+     * Returns the slot holding the specified key. Must be called under the lock of the
+     * segment owning the table.
+     *
+     * @param table the slot arrays of the segment
+     * @param key the key to look for
+     * @param hash the hash of the key
+     * @return the index of the slot, or -1 if there is no such key
+     */
+    private static int find(Table table, Object key, int hash) {
+        Object[] keys = table.keys;
+        int mask = keys.length - 1;
+
+        for (int i = hash & mask; keys[i] != null; i = (i + 1) & mask) {
+            if (keys[i] != TOMBSTONE && table.hashes[i] == hash && keys[i].equals(key)) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Returns the segment owning the specified hash.
+     *
+     * @param hash the hash of a key
+     * @return the segment
+     */
+    private Segment segmentFor(int hash) {
+        return segments.length == 1 ? segments[0] : segments[hash >>> segmentShift];
+    }
+
+    /**
+     * Computes the hash value for the given key. The multiplication spreads the bits of
+     * the hash code to the high bits used to select a segment.
+     *
+     * @param key the key to hash
+     * @return the hash value
+     */
+    private static int hash(Object key) {
+        if (key == null) {
+            throw new NullPointerException("Null keys are not supported");
+        }
+        int h = key.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Checks that a value is not null.
+     *
+     * @param value the value
+     */
+    private static void requireValue(Object value) {
+        if (value == null) {
+            throw new NullPointerException("Null values are not supported");
+        }
+    }
+
+    /**
+     * Iterates over the key-value pairs in the hash table. The iterator is weakly
+     * consistent: it never throws {@link java.util.ConcurrentModificationException}, and
+     * may or may not reflect changes made after it was created.
+     *
+     * @return an iterator over the key-value pairs
+     */
+    @Override
+    public Iterator<HashTable.Entry<K, V>> iterator() {
+        return new Iterator<>() {
+            private int segment = -1;
+            private Table table;
+            private int index;
+            private HashTable.Entry<K, V> next;
+
+            @Override
+            public boolean hasNext() {
+                while (next == null) {
+                    if (table == null || index == table.keys.length) {
+                        if (++segment == segments.length) {
+                            return false;
+                        }
+                        table = segments[segment].table;
+                        index = 0;
+                        continue;
+                    }
+                    next = entryAt(table, index++);
+                }
+                return true;
+            }
+
+            @Override
+            public HashTable.Entry<K, V> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                HashTable.Entry<K, V> entry = next;
+                next = null;
+                return entry;
+            }
+        };
+    }
+
+    /**
+     * Reads the entry in a slot.
+     *
+     * @param table the slot arrays
+     * @param index the index of the slot
+     * @return the entry, or {@code null} if the slot is empty or being changed
+     */
+    @SuppressWarnings("unchecked")
+    private HashTable.Entry<K, V> entryAt(Table table, int index) {
+        Object key = SLOTS.getAcquire(table.keys, index);
+        if (key == null || key == TOMBSTONE) {
+            return null;
+        }
+        Object value = SLOTS.getAcquire(table.values, index);
+        return value == null ? null : new HashTable.Entry<>((K) key, (V) value);
+    }
+
+    /**
+     * Returns a string representation of this hash table in the form
+     * "{key=value, ...}".
+     *
+     * @return a string representation of this hash table
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("{");
+        for (HashTable.Entry<K, V> entry : this) {
+            sb.append(entry).append(", ");
+        }
+        if (sb.length() > 1) {
+            sb.setLength(sb.length() - 2);
+        }
+        return sb.append('}').toString();
+    }
+}
@@ -0,0 +1,50 @@
+package org.example;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+
+/**
+ * Releases the memory of direct and mapped buffers without waiting for the garbage
+ * collector.
+ */
+final class DirectBuffers {
+    private static final Object UNSAFE;
+    private static final Method INVOKE_CLEANER;
+
+    static {
+        Object unsafe = null;
+        Method invokeCleaner = null;
+        try {
+            Class<?> type = Class.forName("sun.misc.Unsafe");
+            Field field = type.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            unsafe = field.get(null);
+            invokeCleaner = type.getMethod("invokeCleaner", ByteBuffer.class);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // Недоступно - память освободит сборщик мусора
+        }
+        UNSAFE = unsafe;
+        INVOKE_CLEANER = invokeCleaner;
+    }
+
+    private DirectBuffers() {
+    }
+
+    /**
+     * Releases the memory of a buffer. The buffer, and any view of it, must not be used
+     * afterwards.
+     *
+     * @param buffer the direct buffer, may be {@code null}
+     */
+    static void free(ByteBuffer buffer) {
+        if (buffer == null || !buffer.isDirect() || INVOKE_CLEANER == null) {
+            return;
+        }
+        try {
+            INVOKE_CLEANER.invoke(UNSAFE, buffer);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // Например, буфер является срезом другого буфера
+        }
+    }
+}
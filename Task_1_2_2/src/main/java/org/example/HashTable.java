@@ -1,8 +1,22 @@
 package org.example;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ConcurrentModificationException;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 
 /**
@@ -10,6 +24,14 @@ import java.util.NoSuchElementException;
  * provides constant-time operations for inserting, deleting, and searching.
  * This implementation handles collisions and optimizes memory usage.
  *
+ * <p>Slots are kept in parallel arrays of cached hashes, keys and values, so a probe reads
+ * the hash array without dereferencing the keys. Collisions are resolved by linear probing
+ * with Robin Hood displacement: an entry far from its home slot takes the place of one that
+ * is closer to its own, which keeps probe lengths even and lets a search for a missing key
+ * stop early. Removal shifts the rest of the cluster back instead of using tombstones.
+ * Optionally, the table can grow incrementally instead of rehashing everything at once.
+ * Null keys are not supported.
+ *
  * @param <K> the type of keys maintained by this hash table
  * @param <V> the type of mapped values
  */
@@ -17,17 +39,94 @@ public class HashTable<K, V> implements Iterable<HashTable.Entry<K, V>> {
     private static final int DEFAULT_CAPACITY = 16;
     private static final float LOAD_FACTOR = 0.75f;
 
-    private Entry<K, V>[] table;
-    private int size = 0;
+    /**
+     * Number of slots of the previous arrays moved by each operation during an incremental
+     * resize.
+     */
+    private static final int MIGRATION_STEP = 16;
+
+    /**
+     * Marks slots of the previous arrays whose entries are moved or removed.
+     */
+    private static final Object TOMBSTONE = new Object();
+
+    /**
+     * Minimum number of slots a spliterator or a parallel bulk task is split into.
+     */
+    private static final int MIN_LEAF_SLOTS = 1024;
+
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+
+    // Слоты хранятся в параллельных массивах: пустой слот - keys[i] == null
+    private int[] hashes;
+    private K[] keys;
+    private V[] values;
+    private int size = 0; // Вместе с записями старой таблицы
     private int modCount = 0; // для ConcurrentModificationException
 
+    // Старые массивы при постепенном расширении, иначе null
+    private final boolean incrementalResize;
+    private int[] oldHashes;
+    private Object[] oldKeys;
+    private V[] oldValues;
+    private int migrated; // Сколько слотов старой таблицы уже перенесено
+
+    // Статистика
+    private long resizeCount = 0;
+    private long resizeNanos = 0;
+    private int samplingRate = 0; // 0 - выборка выключена
+    private int untilSample;
+    private final long[] sampledProbeLengths =
+            new long[HashTableStats.MAX_TRACKED_PROBE_LENGTH + 1];
+
     /**
      * Constructs an empty hash table with the default initial capacity (16)
      * and load factor (0.75).
      */
-    @SuppressWarnings("unckecked")
     public HashTable() {
-        table = new Entry[DEFAULT_CAPACITY];
+        this(false);
+    }
+
+    /**
+     * Constructs an empty hash table with the default initial capacity (16)
+     * and load factor (0.75).
+     *
+     * <p>In the incremental resize mode a resize only allocates the new slot arrays; the
+     * entries are then moved a few slots per {@code put} or {@code remove}, and lookups
+     * check both arrays until the move is complete. This keeps the latency of every
+     * operation flat at the cost of some extra probing while the table grows.
+     *
+     * @param incrementalResize whether to resize incrementally
+     */
+    public HashTable(boolean incrementalResize) {
+        this.incrementalResize = incrementalResize;
+        allocate(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs an empty hash table that holds the expected number of entries without
+     * resizing, with the load factor (0.75).
+     *
+     * @param expectedSize the expected number of entries
+     */
+    public HashTable(int expectedSize) {
+        this(expectedSize, false);
+    }
+
+    /**
+     * Constructs an empty hash table that holds the expected number of entries without
+     * resizing, with the load factor (0.75).
+     *
+     * @param expectedSize the expected number of entries
+     * @param incrementalResize whether to resize incrementally beyond that
+     */
+    public HashTable(int expectedSize, boolean incrementalResize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Expected size is negative: " + expectedSize);
+        }
+        this.incrementalResize = incrementalResize;
+        allocate(capacityFor(expectedSize));
     }
 
     /**
@@ -86,20 +185,9 @@ public class HashTable<K, V> implements Iterable<HashTable.Entry<K, V>> {
      */
     public void put(K key, V value) {
         ensureCapacity();
-        int currentIndex = indexFor(hash(key), table.length);
-
-        while (table[currentIndex] != null) {
-            if (table[currentIndex].key.equals(key)) {
-                table[currentIndex].value = value;
-                return;
-            }
-            currentIndex = nextIndex(currentIndex);
-        }
-
-        // Вставка нового элемента
-        table[currentIndex] = new Entry<>(key, value);
-        size++;
-        modCount++;
+        int hash = hash(key);
+        // Вставка нового элемента или замена значения
+        store(locate(key, hash), hash, key, value);
     }
 
     /**
@@ -110,11 +198,19 @@ public class HashTable<K, V> implements Iterable<HashTable.Entry<K, V>> {
      *         if this table contains no mapping for the key
      */
     public V get(K key) {
-        int index = indexFor(hash(key), table.length);
-
-        for (int i = index; table[i] != null; i = nextIndex(i)) {
-            if (table[i].key.equals(key)) {
-                return table[i].value;
+        int hash = hash(key);
+        if (samplingRate != 0 && --untilSample <= 0) {
+            untilSample = samplingRate;
+            sampleLookup(key, hash);
+        }
+        int index = find(hashes, keys, key, hash);
+        if (index >= 0) {
+            return values[index];
+        }
+        if (oldKeys != null) {
+            index = find(oldHashes, oldKeys, key, hash);
+            if (index >= 0) {
+                return oldValues[index];
             }
         }
 
@@ -130,98 +226,778 @@ public class HashTable<K, V> implements Iterable<HashTable.Entry<K, V>> {
      *         if there was no mapping for the key
      */
     public V remove(K key) {
-        int index = indexFor(hash(key), table.length);
-        for (int i = index; table[i] != null; i = nextIndex(i)) {
-            if (table[i].key.equals(key)) {
-                V oldValue = table[i].value;
-                table[i] = null;
-                size--;
-                modCount++;
-                rehash(i);
-                return oldValue;
-            }
+        if (oldKeys != null) {
+            migrate();
+        }
+        int slot = locate(key, hash(key));
+        if (slot < 0) {
+            return null;
         }
 
-        return null;
+        V oldValue = valueAt(slot);
+        removeAt(slot);
+        return oldValue;
     }
 
     /**
-     * Checks if the specified key is present in the hash table.
+     * Checks if the specified key is present in the hash table. A key mapped to
+     * {@code null} counts as absent, as it does for {@link #get}.
      *
      * @param key the key whose presence is to be tested
-     * @return {@code true} if the key exists in the table, {@code false} otherwise
+     * @return {@code true} if the key is mapped to a non-null value, {@code false} otherwise
      */
     public boolean containsKey(K key) {
-        return get(key) != null;
+        int slot = locate(key, hash(key));
+        return slot >= 0 && valueAt(slot) != null;
     }
 
     /**
      * Updates the value for the specified key if it exists in the hash table.
-     * Else trows IllegalArgumentException
+     * Else trows IllegalArgumentException; a key mapped to {@code null} does not exist
+     * for this method, see {@link #containsKey}.
      *
      * @param key the key to update
      * @param value the new value to associate with the key
      */
     public void update(K key, V value) {
-        if (containsKey(key)) {
-            put(key, value); // Обновляем значение для ключа
-        } else {
+        int slot = locate(key, hash(key));
+        if (slot < 0 || valueAt(slot) == null) {
             throw new IllegalArgumentException("Key not found in the table: " + key);
         }
+        setValueAt(slot, value); // Обновляем значение для ключа
+    }
+
+    /**
+     * Returns the value associated with the specified key, or the default value if the key
+     * is not present.
+     *
+     * @param key the key whose associated value is to be returned
+     * @param defaultValue the value to return if there is no mapping for the key
+     * @return the value associated with the key, or {@code defaultValue}
+     */
+    public V getOrDefault(K key, V defaultValue) {
+        int slot = locate(key, hash(key));
+        return slot < 0 ? defaultValue : valueAt(slot);
+    }
+
+    /**
+     * Associates the value with the key, unless the key is already associated with a
+     * non-null value.
+     *
+     * @param key the key to insert
+     * @param value the value to associate with the key
+     * @return the current value associated with the key, or {@code null} if the value
+     *         was inserted
+     */
+    public V putIfAbsent(K key, V value) {
+        ensureCapacity();
+        int hash = hash(key);
+        int slot = locate(key, hash);
+
+        if (slot < 0) {
+            store(slot, hash, key, value);
+            return null;
+        }
+        V current = valueAt(slot);
+        if (current == null) {
+            setValueAt(slot, value);
+        }
+        return current;
+    }
+
+    /**
+     * Returns the value associated with the key, computing and inserting it if the key is
+     * not present or is associated with {@code null}. The table is probed once, whatever
+     * the outcome.
+     *
+     * @param key the key
+     * @param mappingFunction computes the value for the key; if it returns {@code null},
+     *                        nothing is inserted
+     * @return the current or the computed value
+     * @throws ConcurrentModificationException if the function modifies this table
+     */
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+        ensureCapacity();
+        int hash = hash(key);
+        int slot = locate(key, hash);
+        if (slot >= 0) {
+            V current = valueAt(slot);
+            if (current != null) {
+                return current;
+            }
+        }
+
+        int expectedModCount = modCount;
+        V value = mappingFunction.apply(key);
+        if (modCount != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+        if (value != null) {
+            store(slot, hash, key, value);
+        }
+        return value;
+    }
+
+    /**
+     * Computes a new value for the key from its current value, or {@code null} if there is
+     * none. If the new value is {@code null}, the mapping is removed. The table is probed
+     * once, whatever the outcome.
+     *
+     * @param key the key
+     * @param remappingFunction computes the new value from the key and the current value
+     * @return the new value, or {@code null} if there is none
+     * @throws ConcurrentModificationException if the function modifies this table
+     */
+    public V compute(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        ensureCapacity();
+        int hash = hash(key);
+        int slot = locate(key, hash);
+        V current = slot < 0 ? null : valueAt(slot);
+
+        int expectedModCount = modCount;
+        V value = remappingFunction.apply(key, current);
+        if (modCount != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+        return storeOrRemove(slot, hash, key, value);
+    }
+
+    /**
+     * Associates the value with the key if it is not present or is associated with
+     * {@code null}, otherwise replaces the current value with the result of the function,
+     * removing the mapping if the result is {@code null}. Handy for counters:
+     * {@code table.merge(word, 1, Integer::sum)}. The table is probed once, whatever the
+     * outcome.
+     *
+     * @param key the key
+     * @param value the non-null value to merge
+     * @param remappingFunction combines the current value and the given one
+     * @return the new value, or {@code null} if the mapping was removed
+     * @throws ConcurrentModificationException if the function modifies this table
+     */
+    public V merge(K key, V value,
+                   BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        if (value == null) {
+            throw new NullPointerException("Merged value is null");
+        }
+        ensureCapacity();
+        int hash = hash(key);
+        int slot = locate(key, hash);
+        V current = slot < 0 ? null : valueAt(slot);
+        if (current == null) {
+            store(slot, hash, key, value);
+            return value;
+        }
+
+        int expectedModCount = modCount;
+        V merged = remappingFunction.apply(current, value);
+        if (modCount != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+        return storeOrRemove(slot, hash, key, merged);
+    }
+
+    /**
+     * Looks the key up in the current slot arrays and, during an incremental resize, in the
+     * previous ones. For a missing key, returns the slot of the current arrays where Robin
+     * Hood insertion would place it, so that an insertion needs no second probe.
+     *
+     * @param key the key to look for
+     * @param hash the hash of the key
+     * @return the index of the slot in the current arrays; the length of the current arrays
+     *         plus the index for a slot of the previous arrays; or {@code -1 - index} of the
+     *         insertion slot if the key is not present
+     */
+    private int locate(Object key, int hash) {
+        int mask = keys.length - 1;
+        int index = indexFor(hash, keys.length);
+
+        for (int distance = 0; keys[index] != null; distance++) {
+            if (hashes[index] == hash && keys[index].equals(key)) {
+                return index;
+            }
+            if (probeDistance(hashes, index, mask) < distance) {
+                break; // Ключа нет: займём слот более «богатой» записи
+            }
+            index = (index + 1) & mask;
+        }
+
+        if (oldKeys != null) {
+            // Ключ может ещё лежать в старой таблице
+            int oldIndex = find(oldHashes, oldKeys, key, hash);
+            if (oldIndex >= 0) {
+                return keys.length + oldIndex;
+            }
+        }
+        return -1 - index;
+    }
+
+    /**
+     * Returns the value in a slot found by {@link #locate(Object, int)}.
+     *
+     * @param slot the slot
+     * @return the value
+     */
+    private V valueAt(int slot) {
+        return slot < keys.length ? values[slot] : oldValues[slot - keys.length];
+    }
+
+    /**
+     * Replaces the value in a slot found by {@link #locate(Object, int)}.
+     *
+     * @param slot the slot
+     * @param value the new value
+     */
+    private void setValueAt(int slot, V value) {
+        if (slot < keys.length) {
+            values[slot] = value;
+        } else {
+            oldValues[slot - keys.length] = value;
+        }
+    }
+
+    /**
+     * Removes the entry in a slot found by {@link #locate(Object, int)}.
+     *
+     * @param slot the slot
+     */
+    private void removeAt(int slot) {
+        if (slot < keys.length) {
+            shiftBack(slot);
+        } else {
+            // В старой таблице сдвигать нельзя: оставляем надгробие
+            oldKeys[slot - keys.length] = TOMBSTONE;
+            oldValues[slot - keys.length] = null;
+        }
+        size--;
+        modCount++;
+    }
+
+    /**
+     * Stores a value in a slot found by {@link #locate(Object, int)}, inserting a new entry
+     * at the insertion slot if the key was not present.
+     *
+     * @param slot the slot
+     * @param hash the hash of the key
+     * @param key the key
+     * @param value the value
+     */
+    private void store(int slot, int hash, K key, V value) {
+        if (slot >= 0) {
+            setValueAt(slot, value);
+            return;
+        }
+        int index = -1 - slot;
+        insert(index, (index - hash) & (keys.length - 1), hash, key, value);
+        size++;
+        modCount++;
+    }
+
+    /**
+     * Stores a computed value in a located slot, removing the entry if the value is
+     * {@code null}.
+     *
+     * @param slot the slot
+     * @param hash the hash of the key
+     * @param key the key
+     * @param value the computed value
+     * @return the value
+     */
+    private V storeOrRemove(int slot, int hash, K key, V value) {
+        if (value != null) {
+            store(slot, hash, key, value);
+        } else if (slot >= 0) {
+            removeAt(slot);
+        }
+        return value;
+    }
+
+    /**
+     * Copies all key-value pairs of another hash table into this one. The table is grown
+     * at most once, to hold both tables, and the cached hashes of the other table are
+     * reused instead of calling {@link Object#hashCode()}.
+     *
+     * @param other the hash table to copy
+     */
+    public void putAll(HashTable<? extends K, ? extends V> other) {
+        reserve(size + other.size);
+        putAll(other.hashes, other.keys, other.values);
+        if (other.oldKeys != null) {
+            putAll(other.oldHashes, other.oldKeys, other.oldValues);
+        }
+    }
+
+    /**
+     * Inserts or updates the entries of slot arrays of another table.
+     *
+     * @param hashes the cached hashes of the slots
+     * @param keys the keys of the slots
+     * @param values the values of the slots
+     */
+    @SuppressWarnings("unchecked")
+    private void putAll(int[] hashes, Object[] keys, Object[] values) {
+        for (int i = 0; i < keys.length; i++) {
+            Object key = keys[i];
+            if (key != null && key != TOMBSTONE) {
+                store(locate(key, hashes[i]), hashes[i], (K) key, (V) values[i]);
+            }
+        }
+    }
+
+    /**
+     * Grows the table at once, if needed, so that it holds the given number of entries
+     * without resizing. An incremental resize in progress is completed first.
+     *
+     * @param expectedSize the number of entries
+     */
+    private void reserve(int expectedSize) {
+        int capacity = capacityFor(expectedSize);
+        if (capacity <= keys.length) {
+            return;
+        }
+        while (oldKeys != null) {
+            migrate();
+        }
+        if (capacity > keys.length) {
+            rebuild(capacity);
+        }
+        modCount++;
+    }
+
+    /**
+     * Returns the smallest capacity that holds the given number of entries without
+     * resizing.
+     *
+     * @param expectedSize the number of entries
+     * @return the capacity, a power of two
+     */
+    private static int capacityFor(int expectedSize) {
+        // Расширение происходит при size >= capacity * LOAD_FACTOR перед вставкой
+        long needed = (long) Math.ceil(expectedSize / (double) LOAD_FACTOR);
+        if (needed > MAXIMUM_CAPACITY) {
+            return MAXIMUM_CAPACITY;
+        }
+        return Math.max(DEFAULT_CAPACITY, Integer.highestOneBit((int) needed * 2 - 1));
+    }
+
+    /**
+     * Returns whether the hash table is in the middle of an incremental resize, that is,
+     * some entries still live in the previous slot arrays.
+     *
+     * @return {@code true} if a resize is in progress
+     */
+    public boolean isResizing() {
+        return oldKeys != null;
+    }
+
+    /**
+     * Collects statistics of the layout of the hash table by scanning all its slots, along
+     * with its resize history and the probe lengths of sampled lookups. During an
+     * incremental resize the slots of both arrays are counted.
+     *
+     * @return the statistics
+     */
+    public HashTableStats stats() {
+        long[] probeLengths = new long[HashTableStats.MAX_TRACKED_PROBE_LENGTH + 1];
+        int[] maxima = new int[2]; // Наибольшие длина пробы и длина кластера
+        scanLayout(hashes, keys, probeLengths, maxima);
+        int capacity = keys.length;
+        if (oldKeys != null) {
+            scanLayout(oldHashes, oldKeys, probeLengths, maxima);
+            capacity += oldKeys.length - migrated;
+        }
+        return new HashTableStats(capacity, size, probeLengths, maxima[0], maxima[1],
+                resizeCount, resizeNanos, sampledProbeLengths.clone());
+    }
+
+    /**
+     * Turns on sampling of the probe lengths of {@link #get(Object)} calls, reported by
+     * {@link #stats()}. A sampled lookup probes the table twice, so a rate of a few hundred
+     * keeps the overhead negligible.
+     *
+     * @param rate sample one lookup in {@code rate}, or 0 to turn sampling off
+     */
+    public void setLookupSampling(int rate) {
+        if (rate < 0) {
+            throw new IllegalArgumentException("Sampling rate is negative: " + rate);
+        }
+        samplingRate = rate;
+        untilSample = rate;
+    }
+
+    /**
+     * Records how many extra slots a lookup of the key reads.
+     *
+     * @param key the key
+     * @param hash the hash of the key
+     */
+    private void sampleLookup(Object key, int hash) {
+        int probes = probeLength(hashes, keys, key, hash);
+        if (oldKeys != null && find(hashes, keys, key, hash) < 0) {
+            // Не нашли в новой таблице - читается ещё и старая
+            probes += 1 + probeLength(oldHashes, oldKeys, key, hash);
+        }
+        sampledProbeLengths[Math.min(probes, HashTableStats.MAX_TRACKED_PROBE_LENGTH)]++;
+    }
+
+    /**
+     * Counts the extra slots read by a lookup, whether it finds the key or not.
+     *
+     * @param hashes the cached hashes of the slots
+     * @param keys the keys of the slots
+     * @param key the key to look for
+     * @param hash the hash of the key
+     * @return the number of slots read after the home slot
+     */
+    private static int probeLength(int[] hashes, Object[] keys, Object key, int hash) {
+        int mask = keys.length - 1;
+        int index = hash & mask;
+        int distance = 0;
+
+        for (; keys[index] != null; distance++) {
+            if (probeDistance(hashes, index, mask) < distance
+                    || hashes[index] == hash && keys[index].equals(key)) {
+                break;
+            }
+            index = (index + 1) & mask;
+        }
+
+        return distance;
+    }
+
+    /**
+     * Adds the probe lengths of the entries of slot arrays to a histogram and updates the
+     * longest probe length and the longest run of occupied slots.
+     *
+     * @param hashes the cached hashes of the slots
+     * @param keys the keys of the slots
+     * @param probeLengths the histogram
+     * @param maxima the longest probe length and the longest cluster so far
+     */
+    private static void scanLayout(int[] hashes, Object[] keys, long[] probeLengths,
+                                   int[] maxima) {
+        int mask = keys.length - 1;
+        int cluster = 0;
+        int leading = -1; // Длина кластера в начале массива, он может продолжаться с конца
+
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] == null) {
+                if (leading < 0) {
+                    leading = cluster;
+                }
+                cluster = 0;
+                continue;
+            }
+            cluster++;
+            maxima[1] = Math.max(maxima[1], cluster);
+            if (keys[i] != TOMBSTONE) {
+                int distance = probeDistance(hashes, i, mask);
+                probeLengths[Math.min(distance, HashTableStats.MAX_TRACKED_PROBE_LENGTH)]++;
+                maxima[0] = Math.max(maxima[0], distance);
+            }
+        }
+        if (leading >= 0) {
+            maxima[1] = Math.max(maxima[1], cluster + leading);
+        }
+    }
+
+    /**
+     * Writes a snapshot of the hash table that {@link MappedHashTable} can serve lookups from
+     * without loading or rehashing it. The slot array is written exactly as it is laid out,
+     * with the keys and values encoded by the codecs; an incremental resize in progress is
+     * completed first. The snapshot is written in one sequential pass, with memory use
+     * independent of the size of the table.
+     *
+     * <p>The keys must have hash codes that do not change between runs, like strings and
+     * boxed numbers, since {@link MappedHashTable} hashes the keys it looks up.
+     *
+     * @param file the file to write, replaced if it exists
+     * @param keyCodec the codec of the keys
+     * @param valueCodec the codec of the values, not called for {@code null} values
+     * @throws IOException if the file can not be written
+     */
+    public void save(Path file, Codec<? super K> keyCodec, Codec<? super V> valueCodec)
+            throws IOException {
+        while (oldKeys != null) {
+            migrate();
+        }
+        long window = 1L << MappedHashTable.WINDOW_SHIFT;
+
+        try (FileChannel out = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer slots = ByteBuffer.allocate(64 * 1024);
+            ByteBuffer records = ByteBuffer.allocate(1024 * 1024);
+            long slotPosition = MappedHashTable.HEADER_SIZE;
+            long recordStart = slotPosition + (long) keys.length * MappedHashTable.SLOT_SIZE;
+            long recordPosition = recordStart; // Где окажется следующая запись
+
+            for (int i = 0; i < keys.length; i++) {
+                if (!slots.hasRemaining()) {
+                    slotPosition += writeFully(out, slots, slotPosition);
+                }
+                if (keys[i] == null) {
+                    slots.putLong(0).putInt(0).putInt(0);
+                    continue;
+                }
+
+                int keyLength = keyCodec.size(keys[i]);
+                int valueLength = values[i] == null ? -1 : valueCodec.size(values[i]);
+                int length = 8 + keyLength + Math.max(valueLength, 0);
+                if (length > window) {
+                    throw new IllegalArgumentException("Entry of " + length
+                            + " bytes is too big for a snapshot: " + keys[i]);
+                }
+                if (records.remaining() < length
+                        || recordPosition / window != (recordPosition + length - 1) / window) {
+                    // Запись не должна пересекать границу окна: дописываем буфер и переходим
+                    recordStart += writeFully(out, records, recordStart);
+                    if (recordPosition / window != (recordPosition + length - 1) / window) {
+                        recordPosition = (recordPosition / window + 1) * window;
+                        recordStart = recordPosition;
+                    }
+                    if (records.capacity() < length) {
+                        records = ByteBuffer.allocate(length);
+                    }
+                }
+
+                slots.putLong(recordPosition).putInt(hashes[i]).putInt(0);
+                records.putInt(keyLength).putInt(valueLength);
+                keyCodec.write(keys[i], records);
+                if (values[i] != null) {
+                    valueCodec.write(values[i], records);
+                }
+                recordPosition += length;
+            }
+            writeFully(out, slots, slotPosition);
+            writeFully(out, records, recordStart);
+
+            ByteBuffer header = ByteBuffer.allocate(MappedHashTable.HEADER_SIZE);
+            header.putInt(MappedHashTable.MAGIC).putInt(MappedHashTable.VERSION)
+                    .putInt(keys.length).putInt(size);
+            header.position(MappedHashTable.HEADER_SIZE);
+            writeFully(out, header, 0);
+        }
+    }
+
+    /**
+     * Writes the contents of a buffer at a file position and clears the buffer.
+     *
+     * @param out the file
+     * @param buffer the buffer, with its contents before the position
+     * @param position the file position
+     * @return the number of bytes written
+     * @throws IOException if the file can not be written
+     */
+    private static int writeFully(FileChannel out, ByteBuffer buffer, long position)
+            throws IOException {
+        buffer.flip();
+        int length = buffer.remaining();
+        while (buffer.hasRemaining()) {
+            position += out.write(buffer, position);
+        }
+        buffer.clear();
+        return length;
+    }
+
+    /**
+     * Returns the slot holding the specified key. The search stops at the first slot whose
+     * entry is closer to its home slot than the key would be, because Robin Hood insertion
+     * would have placed the key there.
+     *
+     * @param hashes the cached hashes of the slots
+     * @param keys the keys of the slots
+     * @param key the key to look for
+     * @param hash the hash of the key
+     * @return the index of the slot, or -1 if there is no such key
+     */
+    private static int find(int[] hashes, Object[] keys, Object key, int hash) {
+        int mask = keys.length - 1;
+        int index = hash & mask;
+
+        for (int distance = 0; keys[index] != null; distance++) {
+            if (probeDistance(hashes, index, mask) < distance) {
+                return -1;
+            }
+            if (hashes[index] == hash && keys[index].equals(key)) {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+
+        return -1;
+    }
+
+    /**
+     * Places a new entry starting at the specified slot. Whenever the entry in a slot is
+     * closer to its home slot than the one being placed, they are swapped and the displaced
+     * entry moves on, which keeps the probe distances of all entries close to each other.
+     *
+     * @param index the slot to start from
+     * @param distance the probe distance of the entry at that slot
+     * @param hash the cached hash of the key
+     * @param key the key
+     * @param value the value
+     */
+    private void insert(int index, int distance, int hash, K key, V value) {
+        int mask = keys.length - 1;
+
+        while (keys[index] != null) {
+            int existing = probeDistance(hashes, index, mask);
+            if (existing < distance) {
+                int h = hashes[index];
+                K k = keys[index];
+                V v = values[index];
+                hashes[index] = hash;
+                keys[index] = key;
+                values[index] = value;
+                hash = h;
+                key = k;
+                value = v;
+                distance = existing;
+            }
+            index = (index + 1) & mask;
+            distance++;
+        }
+
+        hashes[index] = hash;
+        keys[index] = key;
+        values[index] = value;
+    }
+
+    /**
+     * Frees the specified slot and moves the following entries of the cluster one slot back,
+     * until an empty slot or an entry in its home slot is reached. Unlike tombstones, this
+     * keeps the probe sequences short after many removals.
+     *
+     * @param index the slot to free
+     */
+    private void shiftBack(int index) {
+        int mask = keys.length - 1;
+        int next = (index + 1) & mask;
+
+        while (keys[next] != null && probeDistance(hashes, next, mask) > 0) {
+            hashes[index] = hashes[next];
+            keys[index] = keys[next];
+            values[index] = values[next];
+            index = next;
+            next = (next + 1) & mask;
+        }
+
+        hashes[index] = 0;
+        keys[index] = null;
+        values[index] = null;
+    }
+
+    /**
+     * Returns how far the entry in the specified slot is from its home slot.
+     *
+     * @param hashes the cached hashes of the slots
+     * @param index the index of an occupied slot
+     * @param mask the number of slots minus one
+     * @return the probe distance of the entry
+     */
+    private static int probeDistance(int[] hashes, int index, int mask) {
+        return (index - hashes[index]) & mask;
     }
 
     /**
      * Ensures the capacity of the hash table is sufficient. Resizes the table
-     * if necessary.
+     * if necessary, or continues an incremental resize in progress.
      */
     private void ensureCapacity() {
-        if (size >= table.length * LOAD_FACTOR) {
+        if (oldKeys != null) {
+            migrate();
+        } else if (size >= keys.length * LOAD_FACTOR) {
             resize();
         }
     }
 
     /**
-     * Resizes the hash table to double its current capacity and rehashes all
-     * existing entries.
+     * Resizes the hash table to double its current capacity. In the incremental mode the
+     * current slot arrays are kept and drained by later operations, otherwise all existing
+     * entries are reinserted at once, reusing their cached hashes.
      */
     private void resize() {
-        Entry<K, V>[] oldTable = table;
-        table = new Entry[oldTable.length * 2];
-        size = 0;
+        if (!incrementalResize) {
+            rebuild(keys.length * 2);
+            return;
+        }
+
+        long start = System.nanoTime();
+        resizeCount++;
+        oldHashes = hashes;
+        oldKeys = keys;
+        oldValues = values;
+        migrated = 0;
+        allocate(keys.length * 2);
+        resizeNanos += System.nanoTime() - start;
+        migrate(); // Учитывает своё время сам
+    }
+
+    /**
+     * Reinserts all entries into new slot arrays at once, reusing their cached hashes.
+     * Must not be called during an incremental resize.
+     *
+     * @param capacity the new number of slots, a power of two
+     */
+    private void rebuild(int capacity) {
+        long start = System.nanoTime();
+        resizeCount++;
+        int[] previousHashes = hashes;
+        K[] previousKeys = keys;
+        V[] previousValues = values;
+        allocate(capacity);
 
-        for (Entry<K, V> entry : oldTable) {
-            if (entry != null) {
-                put(entry.key, entry.value);
+        for (int i = 0; i < previousKeys.length; i++) {
+            if (previousKeys[i] != null) {
+                insert(indexFor(previousHashes[i], keys.length), 0, previousHashes[i],
+                        previousKeys[i], previousValues[i]);
             }
         }
+        resizeNanos += System.nanoTime() - start;
     }
 
     /**
-     * Rehashes the hash table starting from the specified index to resolve
-     * any gaps caused by removals.
-     *
-     * @param start the index from which to rehash
+     * Moves the entries of the next {@link #MIGRATION_STEP} slots of the previous slot
+     * arrays into the current ones, leaving tombstones behind so that the probe sequences
+     * of the remaining entries stay intact. Drops the previous arrays once all slots are
+     * moved. Since every insertion moves a whole step and the capacity is doubled, the
+     * current arrays can not fill up before the migration ends.
      */
-    private void rehash(int start) {
-        int index = nextIndex(start);
+    @SuppressWarnings("unchecked")
+    private void migrate() {
+        long start = System.nanoTime();
+        int end = Math.min(migrated + MIGRATION_STEP, oldKeys.length);
+
+        for (; migrated < end; migrated++) {
+            Object key = oldKeys[migrated];
+            if (key != null && key != TOMBSTONE) {
+                int hash = oldHashes[migrated];
+                insert(indexFor(hash, keys.length), 0, hash, (K) key, oldValues[migrated]);
+                oldKeys[migrated] = TOMBSTONE;
+                oldValues[migrated] = null;
+            }
+        }
 
-        while (table[index] != null) {
-            Entry<K, V> entry = table[index];
-            table[index] = null;
-            size--;
-            put(entry.key, entry.value);
-            index = nextIndex(index);
+        modCount++;
+        if (migrated == oldKeys.length) {
+            oldHashes = null;
+            oldKeys = null;
+            oldValues = null;
         }
+        resizeNanos += System.nanoTime() - start;
     }
 
     /**
-     * Returns the next index in the hash table (with wrap-around).
+     * Allocates empty slot arrays.
      *
-     * @param index the current index
-     * @return the next index
+     * @param capacity the number of slots, a power of two
      */
-    private int nextIndex(int index) {
-        return (index + 1) % table.length;
+    @SuppressWarnings("unchecked")
+    private void allocate(int capacity) {
+        hashes = new int[capacity];
+        keys = (K[]) new Object[capacity];
+        values = (V[]) new Object[capacity];
     }
 
     /**
@@ -242,21 +1018,27 @@ public class HashTable<K, V> implements Iterable<HashTable.Entry<K, V>> {
      * @param key the key to hash
      * @return the hash value
      */
-    private int hash(Object key) {
-        return (key == null) ? 0 : key.hashCode() ^ (key.hashCode() >>> 16);
-
+    static int hash(Object key) {
+        if (key == null) {
+            throw new NullPointerException("Null keys are not supported");
+        }
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
     }
 
     /**
-     * Iterates over all key-value pairs in the hash table.
+     * Iterates over all key-value pairs in the hash table. The returned entries are
+     * snapshots of the slots and do not reflect later changes.
      *
      * @return an iterator over the key-value pairs
      */
     @Override
     public Iterator<Entry<K, V>> iterator() {
         return new Iterator<>() {
-            private int index = 0;
             private final int expectedModCount = modCount;
+            private Object[] slotKeys = keys;
+            private Object[] slotValues = values;
+            private int index = 0;
 
             @Override
             public boolean hasNext() {
@@ -264,24 +1046,299 @@ public class HashTable<K, V> implements Iterable<HashTable.Entry<K, V>> {
                     throw new ConcurrentModificationException();
                 }
 
-                while (index < table.length && table[index] == null) {
-                    index++;
+                while (true) {
+                    while (index < slotKeys.length
+                            && (slotKeys[index] == null || slotKeys[index] == TOMBSTONE)) {
+                        index++;
+                    }
+                    if (index < slotKeys.length || slotKeys != keys || oldKeys == null) {
+                        return index < slotKeys.length;
+                    }
+                    // Затем записи, ещё не перенесённые из старой таблицы
+                    slotKeys = oldKeys;
+                    slotValues = oldValues;
+                    index = 0;
                 }
-
-                return index < table.length;
             }
 
             @Override
+            @SuppressWarnings("unchecked")
             public Entry<K, V> next() {
                 if (!hasNext()) {
                     throw new NoSuchElementException();
                 }
 
-                return table[index++];
+                Entry<K, V> entry = new Entry<>((K) slotKeys[index], (V) slotValues[index]);
+                index++;
+                return entry;
             }
         };
     }
 
+    /**
+     * Creates a spliterator over the key-value pairs. It covers the slot array by index
+     * ranges and splits a range in halves, so parallel traversals divide the table evenly
+     * without walking it first. The spliterator is fail-fast like {@link #iterator()}.
+     *
+     * @return a spliterator over the key-value pairs
+     */
+    @Override
+    public Spliterator<Entry<K, V>> spliterator() {
+        Slots<K, V> slots = new Slots<>(keys, values, oldKeys, oldValues);
+        return new SlotSpliterator(slots, 0, slots.length(), modCount);
+    }
+
+    /**
+     * Returns a sequential stream of the key-value pairs.
+     *
+     * @return a stream of the key-value pairs
+     */
+    public Stream<Entry<K, V>> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    /**
+     * Returns a parallel stream of the key-value pairs. The table must not be modified
+     * while the stream is processed.
+     *
+     * @return a parallel stream of the key-value pairs
+     */
+    public Stream<Entry<K, V>> parallelStream() {
+        return StreamSupport.stream(spliterator(), true);
+    }
+
+    /**
+     * Performs the action for every key-value pair, in parallel in the common fork/join
+     * pool if the table holds at least {@code parallelismThreshold} pairs. The pairs are
+     * read straight from the slots, without creating entries.
+     *
+     * @param parallelismThreshold the number of pairs from which the action is performed
+     *                             in parallel: 1 for maximal parallelism,
+     *                             {@code Long.MAX_VALUE} to run sequentially
+     * @param action the action, which must be safe to call from several threads if the
+     *               threshold may be reached
+     * @throws ConcurrentModificationException if the table is modified meanwhile
+     */
+    public void forEach(long parallelismThreshold, BiConsumer<? super K, ? super V> action) {
+        this.<Void>reduce(parallelismThreshold, (key, value) -> {
+            action.accept(key, value);
+            return null;
+        }, (a, b) -> null);
+    }
+
+    /**
+     * Transforms every key-value pair and combines the non-null results, in parallel in the
+     * common fork/join pool if the table holds at least {@code parallelismThreshold} pairs.
+     * The pairs are read straight from the slots, without creating entries.
+     *
+     * @param parallelismThreshold the number of pairs from which the reduction is performed
+     *                             in parallel: 1 for maximal parallelism,
+     *                             {@code Long.MAX_VALUE} to run sequentially
+     * @param transformer computes the result for a pair, or {@code null} to skip it
+     * @param reducer combines two results; must be associative
+     * @param <U> the type of the results
+     * @return the combined result, or {@code null} if there are no results
+     * @throws ConcurrentModificationException if the table is modified meanwhile
+     */
+    public <U> U reduce(long parallelismThreshold,
+                        BiFunction<? super K, ? super V, ? extends U> transformer,
+                        BiFunction<? super U, ? super U, ? extends U> reducer) {
+        int expectedModCount = modCount;
+        Slots<K, V> slots = new Slots<>(keys, values, oldKeys, oldValues);
+        U result;
+
+        if (size < parallelismThreshold) {
+            result = new BulkTask<>(slots, 0, slots.length(), slots.length(), transformer,
+                    reducer).compute();
+        } else {
+            // Листовая задача - примерно четверть доли одного потока
+            int leafSize = Math.max(MIN_LEAF_SLOTS,
+                    slots.length() / (ForkJoinPool.getCommonPoolParallelism() * 4));
+            result = ForkJoinPool.commonPool().invoke(new BulkTask<>(slots, 0, slots.length(),
+                    leafSize, transformer, reducer));
+        }
+
+        if (modCount != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+        return result;
+    }
+
+    /**
+     * The slot arrays of the table at the start of a traversal, with the previous arrays of
+     * an incremental resize following the current ones.
+     */
+    private static final class Slots<K, V> {
+        final Object[] keys;
+        final Object[] values;
+        final Object[] oldKeys;
+        final Object[] oldValues;
+
+        Slots(Object[] keys, Object[] values, Object[] oldKeys, Object[] oldValues) {
+            this.keys = keys;
+            this.values = values;
+            this.oldKeys = oldKeys;
+            this.oldValues = oldValues;
+        }
+
+        /**
+         * Returns the number of slots.
+         *
+         * @return the number of slots in both arrays
+         */
+        int length() {
+            return oldKeys == null ? keys.length : keys.length + oldKeys.length;
+        }
+
+        /**
+         * Returns the key in a slot.
+         *
+         * @param index the index of the slot
+         * @return the key, or {@code null} if the slot holds no entry
+         */
+        @SuppressWarnings("unchecked")
+        K key(int index) {
+            Object key = index < keys.length ? keys[index] : oldKeys[index - keys.length];
+            return key == TOMBSTONE ? null : (K) key;
+        }
+
+        /**
+         * Returns the value in a slot.
+         *
+         * @param index the index of a slot holding an entry
+         * @return the value
+         */
+        @SuppressWarnings("unchecked")
+        V value(int index) {
+            return (V) (index < keys.length ? values[index] : oldValues[index - keys.length]);
+        }
+    }
+
+    /**
+     * Splits a range of slots in halves.
+     */
+    private final class SlotSpliterator implements Spliterator<Entry<K, V>> {
+        private final Slots<K, V> slots;
+        private final int expectedModCount;
+        private int index;
+        private final int fence;
+
+        SlotSpliterator(Slots<K, V> slots, int index, int fence, int expectedModCount) {
+            this.slots = slots;
+            this.index = index;
+            this.fence = fence;
+            this.expectedModCount = expectedModCount;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Entry<K, V>> action) {
+            while (index < fence) {
+                K key = slots.key(index);
+                V value = slots.value(index);
+                index++;
+                if (key != null) {
+                    action.accept(new Entry<>(key, value));
+                    checkModCount();
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super Entry<K, V>> action) {
+            for (; index < fence; index++) {
+                K key = slots.key(index);
+                if (key != null) {
+                    action.accept(new Entry<>(key, slots.value(index)));
+                }
+            }
+            checkModCount();
+        }
+
+        @Override
+        public Spliterator<Entry<K, V>> trySplit() {
+            int middle = (index + fence) >>> 1;
+            if (middle - index < MIN_LEAF_SLOTS) {
+                return null;
+            }
+            SlotSpliterator prefix = new SlotSpliterator(slots, index, middle, expectedModCount);
+            index = middle;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            // Доля записей пропорциональна доле слотов
+            return (long) size * (fence - index) / Math.max(slots.length(), 1);
+        }
+
+        @Override
+        public int characteristics() {
+            return DISTINCT | NONNULL;
+        }
+
+        private void checkModCount() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+
+    /**
+     * Transforms and combines the entries of a range of slots, forking halves of the range
+     * until they are small enough.
+     *
+     * @param <U> the type of the results
+     */
+    private final class BulkTask<U> extends RecursiveTask<U> {
+        private static final long serialVersionUID = 1L;
+
+        private final Slots<K, V> slots;
+        private final int from;
+        private final int to;
+        private final int leafSize;
+        private final BiFunction<? super K, ? super V, ? extends U> transformer;
+        private final BiFunction<? super U, ? super U, ? extends U> reducer;
+
+        BulkTask(Slots<K, V> slots, int from, int to, int leafSize,
+                 BiFunction<? super K, ? super V, ? extends U> transformer,
+                 BiFunction<? super U, ? super U, ? extends U> reducer) {
+            this.slots = slots;
+            this.from = from;
+            this.to = to;
+            this.leafSize = leafSize;
+            this.transformer = transformer;
+            this.reducer = reducer;
+        }
+
+        @Override
+        protected U compute() {
+            if (to - from > leafSize) {
+                int middle = (from + to) >>> 1;
+                BulkTask<U> right = new BulkTask<>(slots, middle, to, leafSize, transformer,
+                        reducer);
+                right.fork();
+                U left = new BulkTask<>(slots, from, middle, leafSize, transformer, reducer)
+                        .compute();
+                return combine(left, right.join());
+            }
+
+            U result = null;
+            for (int i = from; i < to; i++) {
+                K key = slots.key(i);
+                if (key != null) {
+                    result = combine(result, transformer.apply(key, slots.value(i)));
+                }
+            }
+            return result;
+        }
+
+        private U combine(U a, U b) {
+            return a == null ? b : b == null ? a : reducer.apply(a, b);
+        }
+    }
+
     /**
      * Returns a string representation of this hash table. The string
      * representation consists of a list of key-value mappings in the
@@ -333,12 +1390,14 @@ public class HashTable<K, V> implements Iterable<HashTable.Entry<K, V>> {
             return false;
         }
 
-        // Проходим по текущей таблице и сравниваем ключи и значения с другой таблицей
+        // Проходим по текущей таблице и сравниваем ключи и значения с другой таблицей.
+        // Ищем через locate, а не get, чтобы не задевать выборку статистики other
         for (Entry<K, V> entry : this) {
-            Object otherValue = other.get(entry.getKey());
+            K key = entry.getKey();
+            int slot = other.locate(key, hash(key));
 
             // Если в другой таблице нет значения для ключа или значения не равны
-            if (!entry.getValue().equals(otherValue)) {
+            if (slot < 0 || !entry.getValue().equals(other.valueAt(slot))) {
                 return false;
             }
         }
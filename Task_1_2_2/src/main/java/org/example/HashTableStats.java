@@ -0,0 +1,200 @@
+package org.example;
+
+import java.util.Arrays;
+
+/**
+ * A snapshot of the layout and history of a {@link HashTable}, for tuning its capacity and
+ * spotting poor hash codes.
+ *
+ * <p>The probe length of an entry is how far it lies from its home slot, that is, how many
+ * extra slots a lookup of its key reads. Long probe lengths with a low load point to
+ * colliding hash codes; long clusters of occupied slots point to clustering. Probe lengths
+ * of {@value #MAX_TRACKED_PROBE_LENGTH} and more share the last bucket of the histograms.
+ */
+public final class HashTableStats {
+    /**
+     * Probe length counted in the last bucket of the histograms, with all longer ones.
+     */
+    public static final int MAX_TRACKED_PROBE_LENGTH = 32;
+
+    private final int capacity;
+    private final int size;
+    private final long[] probeLengths;
+    private final int maxProbeLength;
+    private final int maxClusterLength;
+    private final long resizeCount;
+    private final long resizeNanos;
+    private final long[] sampledProbeLengths;
+
+    /**
+     * Constructs a snapshot.
+     *
+     * @param capacity the number of slots
+     * @param size the number of entries
+     * @param probeLengths the histogram of probe lengths of the entries
+     * @param maxProbeLength the longest probe length
+     * @param maxClusterLength the longest run of occupied slots
+     * @param resizeCount the number of resizes
+     * @param resizeNanos the total time spent resizing
+     * @param sampledProbeLengths the histogram of probe lengths of sampled lookups
+     */
+    HashTableStats(int capacity, int size, long[] probeLengths, int maxProbeLength,
+                   int maxClusterLength, long resizeCount, long resizeNanos,
+                   long[] sampledProbeLengths) {
+        this.capacity = capacity;
+        this.size = size;
+        this.probeLengths = probeLengths;
+        this.maxProbeLength = maxProbeLength;
+        this.maxClusterLength = maxClusterLength;
+        this.resizeCount = resizeCount;
+        this.resizeNanos = resizeNanos;
+        this.sampledProbeLengths = sampledProbeLengths;
+    }
+
+    /**
+     * Returns the number of slots.
+     *
+     * @return the capacity
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the number of entries.
+     *
+     * @return the size
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Returns the share of occupied slots.
+     *
+     * @return the load, from 0 to 1
+     */
+    public double getLoad() {
+        return capacity == 0 ? 0 : (double) size / capacity;
+    }
+
+    /**
+     * Returns how many entries have each probe length.
+     *
+     * @return the histogram, indexed by probe length
+     */
+    public long[] getProbeLengthHistogram() {
+        return probeLengths.clone();
+    }
+
+    /**
+     * Returns the mean probe length of the entries.
+     *
+     * @return the mean probe length, counting the last bucket as
+     *         {@value #MAX_TRACKED_PROBE_LENGTH}
+     */
+    public double getMeanProbeLength() {
+        return mean(probeLengths);
+    }
+
+    /**
+     * Returns the longest probe length of an entry.
+     *
+     * @return the longest probe length
+     */
+    public int getMaxProbeLength() {
+        return maxProbeLength;
+    }
+
+    /**
+     * Returns the longest run of occupied slots.
+     *
+     * @return the length of the longest cluster
+     */
+    public int getMaxClusterLength() {
+        return maxClusterLength;
+    }
+
+    /**
+     * Returns how many times the table has grown.
+     *
+     * @return the number of resizes
+     */
+    public long getResizeCount() {
+        return resizeCount;
+    }
+
+    /**
+     * Returns the total time spent resizing, including the migration steps of incremental
+     * resizes.
+     *
+     * @return the time in nanoseconds
+     */
+    public long getResizeNanos() {
+        return resizeNanos;
+    }
+
+    /**
+     * Returns how many sampled lookups read each number of extra slots, including lookups
+     * of missing keys.
+     *
+     * @return the histogram, indexed by probe length; all zeros if sampling is off
+     */
+    public long[] getSampledProbeLengthHistogram() {
+        return sampledProbeLengths.clone();
+    }
+
+    /**
+     * Returns the mean probe length of the sampled lookups.
+     *
+     * @return the mean probe length, or 0 if nothing is sampled
+     */
+    public double getSampledMeanProbeLength() {
+        return mean(sampledProbeLengths);
+    }
+
+    /**
+     * Computes the mean of a histogram.
+     *
+     * @param histogram the histogram
+     * @return the mean, or 0 for an empty histogram
+     */
+    private static double mean(long[] histogram) {
+        long count = 0;
+        long sum = 0;
+        for (int i = 0; i < histogram.length; i++) {
+            count += histogram[i];
+            sum += i * histogram[i];
+        }
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    /**
+     * Returns a short summary of the statistics.
+     *
+     * @return the summary
+     */
+    @Override
+    public String toString() {
+        return String.format("HashTableStats{size=%d, capacity=%d, load=%.3f, "
+                        + "meanProbe=%.3f, maxProbe=%d, maxCluster=%d, resizes=%d, "
+                        + "resizeMs=%.3f, sampledMeanProbe=%.3f, probes=%s}",
+                size, capacity, getLoad(), getMeanProbeLength(), maxProbeLength,
+                maxClusterLength, resizeCount, resizeNanos / 1e6, getSampledMeanProbeLength(),
+                Arrays.toString(trim(probeLengths)));
+    }
+
+    /**
+     * Drops the trailing empty buckets of a histogram.
+     *
+     * @param histogram the histogram
+     * @return the non-empty prefix
+     */
+    private static long[] trim(long[] histogram) {
+        int length = histogram.length;
+        while (length > 0 && histogram[length - 1] == 0) {
+            length--;
+        }
+        return Arrays.copyOf(histogram, length);
+    }
+}
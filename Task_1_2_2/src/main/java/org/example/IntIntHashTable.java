@@ -0,0 +1,334 @@
+package org.example;
+
+import java.util.Arrays;
+
+/**
+ * A hash table mapping {@code int} keys to {@code int} values, a primitive sibling of
+ * {@link HashTable}. Keys and values are stored in two flat arrays with linear probing,
+ * so a mapping takes 8 bytes plus free slots, and neither {@link #put(int, int)} nor
+ * {@link #get(int)} allocate anything. The key 0 marks free slots and is stored apart
+ * from the arrays.
+ */
+public class IntIntHashTable {
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.75f;
+
+    private int[] keys;
+    private int[] values;
+    private int size = 0; // Не считая ключа 0
+    private int threshold;
+
+    private boolean hasZeroKey = false;
+    private int zeroValue;
+
+    /**
+     * Receives the mappings of the table.
+     */
+    @FunctionalInterface
+    public interface EntryConsumer {
+        /**
+         * Called for every mapping.
+         *
+         * @param key the key
+         * @param value the value
+         */
+        void accept(int key, int value);
+    }
+
+    /**
+     * Constructs an empty hash table with the default initial capacity (16)
+     * and load factor (0.75).
+     */
+    public IntIntHashTable() {
+        allocate(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Associates the value with the key. If the key already exists, the value is updated.
+     *
+     * @param key the key to insert or update
+     * @param value the value to associate with the key
+     */
+    public void put(int key, int value) {
+        if (key == 0) {
+            hasZeroKey = true;
+            zeroValue = value;
+            return;
+        }
+        int mask = keys.length - 1;
+        int index = mix(key) & mask;
+
+        while (keys[index] != 0) {
+            if (keys[index] == key) {
+                values[index] = value;
+                return;
+            }
+            index = (index + 1) & mask;
+        }
+
+        // Вставка нового элемента
+        keys[index] = key;
+        values[index] = value;
+        if (++size > threshold) {
+            resize();
+        }
+    }
+
+    /**
+     * Retrieves the value associated with the key.
+     *
+     * @param key the key whose associated value is to be returned
+     * @return the value associated with the key, or 0 if this table contains no mapping
+     *         for the key
+     */
+    public int get(int key) {
+        return getOrDefault(key, 0);
+    }
+
+    /**
+     * Retrieves the value associated with the key.
+     *
+     * @param key the key whose associated value is to be returned
+     * @param defaultValue the value returned if there is no mapping for the key
+     * @return the value associated with the key, or {@code defaultValue}
+     */
+    public int getOrDefault(int key, int defaultValue) {
+        if (key == 0) {
+            return hasZeroKey ? zeroValue : defaultValue;
+        }
+        int index = indexOf(key);
+        return index >= 0 ? values[index] : defaultValue;
+    }
+
+    /**
+     * Removes the mapping for the key, if it exists.
+     *
+     * @param key the key whose mapping is to be removed
+     * @return the previous value associated with the key, or 0 if there was no mapping
+     */
+    public int remove(int key) {
+        if (key == 0) {
+            int oldValue = hasZeroKey ? zeroValue : 0;
+            hasZeroKey = false;
+            return oldValue;
+        }
+        int index = indexOf(key);
+        if (index < 0) {
+            return 0;
+        }
+        int oldValue = values[index];
+        size--;
+        shiftBack(index);
+        return oldValue;
+    }
+
+    /**
+     * Checks if the key is present in the hash table.
+     *
+     * @param key the key whose presence is to be tested
+     * @return {@code true} if the key exists in the table, {@code false} otherwise
+     */
+    public boolean containsKey(int key) {
+        return key == 0 ? hasZeroKey : indexOf(key) >= 0;
+    }
+
+    /**
+     * Updates the value for the key if it exists in the hash table.
+     * Else throws IllegalArgumentException
+     *
+     * @param key the key to update
+     * @param value the new value to associate with the key
+     */
+    public void update(int key, int value) {
+        if (!containsKey(key)) {
+            throw new IllegalArgumentException("Key not found in the table: " + key);
+        }
+        put(key, value);
+    }
+
+    /**
+     * Removes all mappings.
+     */
+    public void clear() {
+        Arrays.fill(keys, 0);
+        Arrays.fill(values, 0);
+        size = 0;
+        hasZeroKey = false;
+    }
+
+    /**
+     * Passes every mapping to the consumer, without boxing.
+     *
+     * @param action the consumer of the mappings
+     */
+    public void forEach(EntryConsumer action) {
+        if (hasZeroKey) {
+            action.accept(0, zeroValue);
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != 0) {
+                action.accept(keys[i], values[i]);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of key-value pairs in the hash table.
+     *
+     * @return the number of key-value pairs
+     */
+    public int size() {
+        return hasZeroKey ? size + 1 : size;
+    }
+
+    /**
+     * Returns the slot holding the key.
+     *
+     * @param key the non-zero key
+     * @return the index of the slot, or -1 if there is no such key
+     */
+    private int indexOf(int key) {
+        int mask = keys.length - 1;
+        for (int i = mix(key) & mask; keys[i] != 0; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Frees a slot and moves the following entries of its probe sequence back, so that
+     * no entry becomes unreachable and no tombstones are needed.
+     *
+     * @param free the index of the slot to free
+     */
+    private void shiftBack(int free) {
+        int mask = keys.length - 1;
+        int i = free;
+        while (true) {
+            i = (i + 1) & mask;
+            if (keys[i] == 0) {
+                break;
+            }
+            int home = mix(keys[i]) & mask;
+            // Переносим запись, если её исходный слот не лежит между free и i
+            if (((i - home) & mask) >= ((i - free) & mask)) {
+                keys[free] = keys[i];
+                values[free] = values[i];
+                free = i;
+            }
+        }
+        keys[free] = 0;
+        values[free] = 0;
+    }
+
+    /**
+     * Doubles the capacity of the hash table and reinserts all entries.
+     */
+    private void resize() {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(oldKeys.length * 2);
+        int mask = keys.length - 1;
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                int index = mix(oldKeys[i]) & mask;
+                while (keys[index] != 0) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = oldKeys[i];
+                values[index] = oldValues[i];
+            }
+        }
+    }
+
+    /**
+     * Allocates empty arrays.
+     *
+     * @param capacity the number of slots, a power of two
+     */
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new int[capacity];
+        threshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    /**
+     * Spreads the bits of a key, so that keys differing only in their high bits do not
+     * collide.
+     *
+     * @param key the key
+     * @return the hash value
+     */
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Returns a string representation of this hash table in the form
+     * "{key=value, ...}", in the order the mappings are stored.
+     *
+     * @return a string representation of this hash table
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("{");
+        forEach((key, value) -> sb.append(key).append('=').append(value).append(", "));
+        if (sb.length() > 1) {
+            sb.setLength(sb.length() - 2);
+        }
+        return sb.append('}').toString();
+    }
+
+    /**
+     * Compares the specified object with this hash table for equality.
+     *
+     * @param obj the object to be compared for equality with this hash table
+     * @return {@code true} if the object is a table of the same type with the same mappings
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof IntIntHashTable)) {
+            return false;
+        }
+        IntIntHashTable other = (IntIntHashTable) obj;
+        if (size() != other.size()) {
+            return false;
+        }
+        if (hasZeroKey && (!other.hasZeroKey || zeroValue != other.zeroValue)) {
+            return false;
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != 0) {
+                int index = other.indexOf(keys[i]);
+                if (index < 0 || other.values[index] != values[i]) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the hash code value for this hash table, the sum of
+     * {@code key ^ value} over all mappings.
+     *
+     * @return the hash code value for this hash table
+     */
+    @Override
+    public int hashCode() {
+        int result = hasZeroKey ? zeroValue : 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != 0) {
+                result += keys[i] ^ values[i];
+            }
+        }
+        return result;
+    }
+}
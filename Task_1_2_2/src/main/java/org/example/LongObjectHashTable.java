@@ -0,0 +1,347 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * A hash table mapping {@code long} keys to object values, a primitive sibling of
+ * {@link HashTable}. Keys and values are stored in two flat arrays with linear probing,
+ * so a mapping takes 12 to 16 bytes plus free slots instead of an {@code Entry} and a boxed
+ * key, and neither {@link #put(long, Object)} nor {@link #get(long)} allocate anything.
+ * The key 0 marks free slots and is stored apart from the arrays. Values may be
+ * {@code null}.
+ *
+ * @param <V> the type of mapped values
+ */
+public class LongObjectHashTable<V> {
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.75f;
+
+    private long[] keys;
+    private Object[] values;
+    private int size = 0; // Не считая ключа 0
+    private int threshold;
+
+    private boolean hasZeroKey = false;
+    private V zeroValue;
+
+    /**
+     * Receives the mappings of the table.
+     *
+     * @param <V> the type of mapped values
+     */
+    @FunctionalInterface
+    public interface EntryConsumer<V> {
+        /**
+         * Called for every mapping.
+         *
+         * @param key the key
+         * @param value the value
+         */
+        void accept(long key, V value);
+    }
+
+    /**
+     * Constructs an empty hash table with the default initial capacity (16)
+     * and load factor (0.75).
+     */
+    public LongObjectHashTable() {
+        allocate(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Associates the value with the key. If the key already exists, the value is updated.
+     *
+     * @param key the key to insert or update
+     * @param value the value to associate with the key
+     */
+    public void put(long key, V value) {
+        if (key == 0) {
+            hasZeroKey = true;
+            zeroValue = value;
+            return;
+        }
+        int mask = keys.length - 1;
+        int index = mix(key) & mask;
+
+        while (keys[index] != 0) {
+            if (keys[index] == key) {
+                values[index] = value;
+                return;
+            }
+            index = (index + 1) & mask;
+        }
+
+        // Вставка нового элемента
+        keys[index] = key;
+        values[index] = value;
+        if (++size > threshold) {
+            resize();
+        }
+    }
+
+    /**
+     * Retrieves the value associated with the key.
+     *
+     * @param key the key whose associated value is to be returned
+     * @return the value associated with the key, or {@code null} if this table contains
+     *         no mapping for the key
+     */
+    public V get(long key) {
+        return getOrDefault(key, null);
+    }
+
+    /**
+     * Retrieves the value associated with the key.
+     *
+     * @param key the key whose associated value is to be returned
+     * @param defaultValue the value returned if there is no mapping for the key
+     * @return the value associated with the key, or {@code defaultValue}
+     */
+    @SuppressWarnings("unchecked")
+    public V getOrDefault(long key, V defaultValue) {
+        if (key == 0) {
+            return hasZeroKey ? zeroValue : defaultValue;
+        }
+        int index = indexOf(key);
+        return index >= 0 ? (V) values[index] : defaultValue;
+    }
+
+    /**
+     * Removes the mapping for the key, if it exists.
+     *
+     * @param key the key whose mapping is to be removed
+     * @return the previous value associated with the key, or {@code null} if there was no
+     *         mapping
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        if (key == 0) {
+            V oldValue = zeroValue;
+            hasZeroKey = false;
+            zeroValue = null;
+            return oldValue;
+        }
+        int index = indexOf(key);
+        if (index < 0) {
+            return null;
+        }
+        V oldValue = (V) values[index];
+        size--;
+        shiftBack(index);
+        return oldValue;
+    }
+
+    /**
+     * Checks if the key is present in the hash table.
+     *
+     * @param key the key whose presence is to be tested
+     * @return {@code true} if the key exists in the table, {@code false} otherwise
+     */
+    public boolean containsKey(long key) {
+        return key == 0 ? hasZeroKey : indexOf(key) >= 0;
+    }
+
+    /**
+     * Updates the value for the key if it exists in the hash table.
+     * Else throws IllegalArgumentException
+     *
+     * @param key the key to update
+     * @param value the new value to associate with the key
+     */
+    public void update(long key, V value) {
+        if (!containsKey(key)) {
+            throw new IllegalArgumentException("Key not found in the table: " + key);
+        }
+        put(key, value);
+    }
+
+    /**
+     * Removes all mappings.
+     */
+    public void clear() {
+        Arrays.fill(keys, 0);
+        Arrays.fill(values, null);
+        size = 0;
+        hasZeroKey = false;
+        zeroValue = null;
+    }
+
+    /**
+     * Passes every mapping to the consumer, without boxing.
+     *
+     * @param action the consumer of the mappings
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(EntryConsumer<? super V> action) {
+        if (hasZeroKey) {
+            action.accept(0, zeroValue);
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != 0) {
+                action.accept(keys[i], (V) values[i]);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of key-value pairs in the hash table.
+     *
+     * @return the number of key-value pairs
+     */
+    public int size() {
+        return hasZeroKey ? size + 1 : size;
+    }
+
+    /**
+     * Returns the slot holding the key.
+     *
+     * @param key the non-zero key
+     * @return the index of the slot, or -1 if there is no such key
+     */
+    private int indexOf(long key) {
+        int mask = keys.length - 1;
+        for (int i = mix(key) & mask; keys[i] != 0; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Frees a slot and moves the following entries of its probe sequence back, so that
+     * no entry becomes unreachable and no tombstones are needed.
+     *
+     * @param free the index of the slot to free
+     */
+    private void shiftBack(int free) {
+        int mask = keys.length - 1;
+        int i = free;
+        while (true) {
+            i = (i + 1) & mask;
+            if (keys[i] == 0) {
+                break;
+            }
+            int home = mix(keys[i]) & mask;
+            // Переносим запись, если её исходный слот не лежит между free и i
+            if (((i - home) & mask) >= ((i - free) & mask)) {
+                keys[free] = keys[i];
+                values[free] = values[i];
+                free = i;
+            }
+        }
+        keys[free] = 0;
+        values[free] = null;
+    }
+
+    /**
+     * Doubles the capacity of the hash table and reinserts all entries.
+     */
+    private void resize() {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(oldKeys.length * 2);
+        int mask = keys.length - 1;
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                int index = mix(oldKeys[i]) & mask;
+                while (keys[index] != 0) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = oldKeys[i];
+                values[index] = oldValues[i];
+            }
+        }
+    }
+
+    /**
+     * Allocates empty arrays.
+     *
+     * @param capacity the number of slots, a power of two
+     */
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new Object[capacity];
+        threshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    /**
+     * Spreads the bits of a key, so that keys differing only in their high bits do not
+     * collide.
+     *
+     * @param key the key
+     * @return the hash value
+     */
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * Returns a string representation of this hash table in the form
+     * "{key=value, ...}", in the order the mappings are stored.
+     *
+     * @return a string representation of this hash table
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("{");
+        forEach((key, value) -> sb.append(key).append('=').append(value).append(", "));
+        if (sb.length() > 1) {
+            sb.setLength(sb.length() - 2);
+        }
+        return sb.append('}').toString();
+    }
+
+    /**
+     * Compares the specified object with this hash table for equality.
+     *
+     * @param obj the object to be compared for equality with this hash table
+     * @return {@code true} if the object is a table of the same type with the same mappings
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof LongObjectHashTable)) {
+            return false;
+        }
+        LongObjectHashTable<?> other = (LongObjectHashTable<?>) obj;
+        if (size() != other.size()) {
+            return false;
+        }
+        if (hasZeroKey
+                && (!other.hasZeroKey || !Objects.equals(zeroValue, other.zeroValue))) {
+            return false;
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != 0) {
+                int index = other.indexOf(keys[i]);
+                if (index < 0 || !Objects.equals(other.values[index], values[i])) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the hash code value for this hash table, the sum of
+     * {@code Long.hashCode(key) ^ Objects.hashCode(value)} over all mappings.
+     *
+     * @return the hash code value for this hash table
+     */
+    @Override
+    public int hashCode() {
+        int result = hasZeroKey ? Objects.hashCode(zeroValue) : 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != 0) {
+                result += Long.hashCode(keys[i]) ^ Objects.hashCode(values[i]);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,222 @@
+package org.example;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A read-only hash table served straight from a memory-mapped snapshot written by
+ * {@link HashTable#save(Path, Codec, Codec)}.
+ *
+ * <p>The snapshot holds the slot array of the saved table exactly as it was laid out, so
+ * opening it only maps the file: nothing is read, decoded or rehashed until a lookup touches
+ * the slots, and the operating system pages the file in on demand and shares it between
+ * processes. A lookup probes the mapped slots like {@link HashTable} does and decodes only
+ * the key whose hash matches and the value found.
+ *
+ * <p>Since lookups hash the keys with {@link Object#hashCode()}, the keys must have hash
+ * codes that do not change between runs, like strings and boxed numbers. Lookups do not
+ * change any state and may run in parallel.
+ *
+ * <p>Snapshot layout: a header of {@value #HEADER_SIZE} bytes (magic number, version,
+ * capacity, size), then {@value #SLOT_SIZE}-byte slots (file offset of the record or 0 for
+ * an empty slot, hash of the key), then records (key length, value length or -1 for
+ * {@code null}, key, value). No record crosses a 1 GB boundary of the file, so every record
+ * lies within one mapped window.
+ *
+ * @param <K> the type of keys maintained by this hash table
+ * @param <V> the type of mapped values
+ */
+public final class MappedHashTable<K, V> implements Closeable {
+    static final int MAGIC = 0x48545331; // "HTS1"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 32;
+    static final int SLOT_SIZE = 16;
+    static final int WINDOW_SHIFT = 30; // Файл отображается окнами по 1 ГБ
+
+    private final Codec<K> keyCodec;
+    private final Codec<V> valueCodec;
+    private final FileChannel channel;
+    private final MappedByteBuffer[] windows;
+    private final int capacity;
+    private final int size;
+
+    /**
+     * Maps a snapshot.
+     *
+     * @param file the snapshot
+     * @param keyCodec the codec of the keys the snapshot was saved with
+     * @param valueCodec the codec of the values the snapshot was saved with
+     * @throws IOException if the file can not be mapped or is not a snapshot
+     */
+    private MappedHashTable(Path file, Codec<K> keyCodec, Codec<V> valueCodec)
+            throws IOException {
+        this.keyCodec = keyCodec;
+        this.valueCodec = valueCodec;
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            long fileSize = channel.size();
+            if (fileSize < HEADER_SIZE) {
+                throw new IOException("Not a hash table snapshot: " + file);
+            }
+            windows = new MappedByteBuffer[(int) ((fileSize + (1L << WINDOW_SHIFT) - 1)
+                    >>> WINDOW_SHIFT)];
+            for (int w = 0; w < windows.length; w++) {
+                long start = (long) w << WINDOW_SHIFT;
+                windows[w] = channel.map(FileChannel.MapMode.READ_ONLY, start,
+                        Math.min(1L << WINDOW_SHIFT, fileSize - start));
+            }
+
+            if (windows[0].getInt(0) != MAGIC || windows[0].getInt(4) != VERSION) {
+                throw new IOException("Not a hash table snapshot: " + file);
+            }
+            capacity = windows[0].getInt(8);
+            size = windows[0].getInt(12);
+            if (Integer.bitCount(capacity) != 1
+                    || HEADER_SIZE + (long) capacity * SLOT_SIZE > fileSize) {
+                throw new IOException("Corrupted hash table snapshot: " + file);
+            }
+        } catch (IOException | RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * Maps a snapshot written by {@link HashTable#save(Path, Codec, Codec)}.
+     *
+     * @param file the snapshot
+     * @param keyCodec the codec of the keys the snapshot was saved with
+     * @param valueCodec the codec of the values the snapshot was saved with
+     * @param <K> the type of keys
+     * @param <V> the type of values
+     * @return the hash table
+     * @throws IOException if the file can not be mapped or is not a snapshot
+     */
+    public static <K, V> MappedHashTable<K, V> open(Path file, Codec<K> keyCodec,
+                                                    Codec<V> valueCodec) throws IOException {
+        return new MappedHashTable<>(file, keyCodec, valueCodec);
+    }
+
+    /**
+     * Retrieves the value associated with the specified key.
+     *
+     * @param key the key whose associated value is to be returned
+     * @return the value associated with the specified key, or {@code null}
+     *         if this table contains no mapping for the key
+     */
+    public V get(K key) {
+        long record = find(key);
+        if (record == 0) {
+            return null;
+        }
+        ByteBuffer window = window(record);
+        int at = offsetIn(record);
+        int keyLength = window.getInt(at);
+        int valueLength = window.getInt(at + 4);
+        if (valueLength < 0) {
+            return null;
+        }
+        return valueCodec.read(window.slice(at + 8 + keyLength, valueLength));
+    }
+
+    /**
+     * Checks if the specified key is present in the hash table.
+     *
+     * @param key the key whose presence is to be tested
+     * @return {@code true} if the key exists in the table, {@code false} otherwise
+     */
+    public boolean containsKey(K key) {
+        return find(key) != 0;
+    }
+
+    /**
+     * Returns the number of key-value pairs in the hash table.
+     *
+     * @return the number of key-value pairs
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Unmaps the snapshot and closes the file. The hash table must not be used afterwards.
+     *
+     * @throws IOException if the file can not be closed
+     */
+    @Override
+    public void close() throws IOException {
+        if (windows != null) {
+            for (MappedByteBuffer window : windows) {
+                DirectBuffers.free(window);
+            }
+        }
+        channel.close();
+    }
+
+    /**
+     * Returns the record of the specified key, probing the slots with the early exit of
+     * Robin Hood hashing.
+     *
+     * @param key the key to look for
+     * @return the file offset of the record, or 0 if there is no such key
+     */
+    private long find(K key) {
+        int hash = HashTable.hash(key);
+        int mask = capacity - 1;
+        int index = hash & mask;
+
+        for (int distance = 0; ; distance++) {
+            long slot = HEADER_SIZE + (long) index * SLOT_SIZE;
+            ByteBuffer window = window(slot);
+            long record = window.getLong(offsetIn(slot));
+            if (record == 0) {
+                return 0;
+            }
+            int slotHash = window.getInt(offsetIn(slot) + 8);
+            if (((index - slotHash) & mask) < distance) {
+                return 0;
+            }
+            if (slotHash == hash && key.equals(readKey(record))) {
+                return record;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    /**
+     * Decodes the key of a record.
+     *
+     * @param record the file offset of the record
+     * @return the key
+     */
+    private K readKey(long record) {
+        ByteBuffer window = window(record);
+        int at = offsetIn(record);
+        return keyCodec.read(window.slice(at + 8, window.getInt(at)));
+    }
+
+    /**
+     * Returns the mapped window holding a file offset.
+     *
+     * @param position the file offset
+     * @return the window
+     */
+    private ByteBuffer window(long position) {
+        return windows[(int) (position >>> WINDOW_SHIFT)];
+    }
+
+    /**
+     * Returns the position of a file offset within its window.
+     *
+     * @param position the file offset
+     * @return the position in the window
+     */
+    private static int offsetIn(long position) {
+        return (int) (position & ((1L << WINDOW_SHIFT) - 1));
+    }
+}
@@ -0,0 +1,548 @@
+package org.example;
+
+import java.io.Closeable;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * A hash table that keeps its keys and values outside the Java heap, for tables too big for
+ * the garbage collector to traverse.
+ *
+ * <p>Keys and values are encoded with {@link Codec}s into records appended to direct buffer
+ * slabs. The slot index is an open-addressing table with plain linear probing, stored in
+ * direct buffer pages too: every slot holds the reference to a record and the hash of its
+ * key, so probing and resizing never decode a record. Unlike {@link HashTable}, insertion
+ * does not displace entries by their probe distance; removal shifts the following entries
+ * of the probe sequence back instead of leaving a tombstone. The heap footprint is a few
+ * arrays of buffer references, whatever the number of entries.
+ *
+ * <p>Keys are compared and hashed by their encoded bytes. Values replaced with values of
+ * another size and removed entries leave garbage in the slabs, which is reclaimed by
+ * copying the live records into new slabs once it outweighs them. The memory is released
+ * by {@link #close()}, after which the table can not be used.
+ *
+ * @param <K> the type of keys maintained by this hash table
+ * @param <V> the type of mapped values
+ */
+public class OffHeapHashTable<K, V> implements Closeable {
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.75f;
+    private static final int DEFAULT_SLAB_SIZE = 64 * 1024 * 1024;
+
+    // Слот: ссылка на запись (8 байт), хеш ключа (4 байта), выравнивание (4 байта)
+    private static final int SLOT_SIZE = 16;
+    private static final int PAGE_SHIFT = 20; // Слотов в странице индекса - 2^20
+    private static final int PAGE_MASK = (1 << PAGE_SHIFT) - 1;
+
+    // Запись: длина ключа (4 байта), длина значения (4 байта), ключ, значение
+    private static final int RECORD_HEADER = 8;
+
+    private final Codec<K> keyCodec;
+    private final Codec<V> valueCodec;
+    private final int slabSize;
+
+    private ByteBuffer[] index;
+    private int capacity;
+    private int size = 0;
+
+    private final List<ByteBuffer> slabs = new ArrayList<>();
+    private int slabPosition; // Свободное место в последнем слябе
+    private long liveBytes = 0;
+    private long garbageBytes = 0;
+
+    private ByteBuffer scratch = ByteBuffer.allocate(64); // Закодированный ключ
+    private boolean closed = false;
+
+    /**
+     * Constructs an empty hash table with 64 MB slabs.
+     *
+     * @param keyCodec the codec of the keys
+     * @param valueCodec the codec of the values
+     */
+    public OffHeapHashTable(Codec<K> keyCodec, Codec<V> valueCodec) {
+        this(keyCodec, valueCodec, DEFAULT_SLAB_SIZE);
+    }
+
+    /**
+     * Constructs an empty hash table.
+     *
+     * @param keyCodec the codec of the keys
+     * @param valueCodec the codec of the values
+     * @param slabSize the size of the buffers records are stored in, which limits the size
+     *                 of a record
+     */
+    public OffHeapHashTable(Codec<K> keyCodec, Codec<V> valueCodec, int slabSize) {
+        if (slabSize <= RECORD_HEADER) {
+            throw new IllegalArgumentException("Slab size is too small: " + slabSize);
+        }
+        this.keyCodec = keyCodec;
+        this.valueCodec = valueCodec;
+        this.slabSize = slabSize;
+        this.index = allocateIndex(DEFAULT_CAPACITY);
+        this.capacity = DEFAULT_CAPACITY;
+    }
+
+    /**
+     * Inserts the specified key-value pair into the hash table.
+     * If the key already exists, the value is updated.
+     *
+     * @param key the key to insert or update
+     * @param value the value to associate with the key
+     */
+    public void put(K key, V value) {
+        int keyLength = encodeKey(key);
+        int hash = hash(keyLength);
+        int valueLength = valueCodec.size(value);
+        int mask = capacity - 1;
+        int slot = hash & mask;
+
+        for (long ref; (ref = refAt(slot)) != 0; slot = (slot + 1) & mask) {
+            if (hashAt(slot) == hash && keyEquals(ref, keyLength)) {
+                ByteBuffer slab = slab(ref);
+                int offset = offset(ref);
+                if (slab.getInt(offset + 4) == valueLength) {
+                    // Значение того же размера пишем поверх старого
+                    int at = offset + RECORD_HEADER + keyLength;
+                    valueCodec.write(value, slab.slice(at, valueLength));
+                    return;
+                }
+                discard(ref);
+                setSlot(slot, append(keyLength, value, valueLength), hash);
+                compactIfWasteful();
+                return;
+            }
+        }
+
+        // Вставка нового элемента
+        setSlot(slot, append(keyLength, value, valueLength), hash);
+        if (++size > capacity * LOAD_FACTOR) {
+            resize();
+        }
+    }
+
+    /**
+     * Retrieves the value associated with the specified key.
+     *
+     * @param key the key whose associated value is to be returned
+     * @return the value associated with the specified key, or {@code null}
+     *         if this table contains no mapping for the key
+     */
+    public V get(K key) {
+        int slot = find(key);
+        return slot >= 0 ? readValue(refAt(slot)) : null;
+    }
+
+    /**
+     * Removes the key-value pair for the specified key from the hash table,
+     * if it exists.
+     *
+     * @param key the key whose mapping is to be removed
+     * @return the previous value associated with the key, or {@code null}
+     *         if there was no mapping for the key
+     */
+    public V remove(K key) {
+        int slot = find(key);
+        if (slot < 0) {
+            return null;
+        }
+        long ref = refAt(slot);
+        V oldValue = readValue(ref);
+        discard(ref);
+        size--;
+        shiftBack(slot);
+        compactIfWasteful();
+        return oldValue;
+    }
+
+    /**
+     * Checks if the specified key is present in the hash table.
+     *
+     * @param key the key whose presence is to be tested
+     * @return {@code true} if the key exists in the table, {@code false} otherwise
+     */
+    public boolean containsKey(K key) {
+        return find(key) >= 0;
+    }
+
+    /**
+     * Passes every mapping to the action, decoding the keys and values.
+     *
+     * @param action the action
+     */
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        checkOpen();
+        for (int slot = 0; slot < capacity; slot++) {
+            long ref = refAt(slot);
+            if (ref != 0) {
+                ByteBuffer slab = slab(ref);
+                int offset = offset(ref);
+                int keyLength = slab.getInt(offset);
+                K key = keyCodec.read(slab.slice(offset + RECORD_HEADER, keyLength));
+                action.accept(key, readValue(ref));
+            }
+        }
+    }
+
+    /**
+     * Returns the number of key-value pairs in the hash table.
+     *
+     * @return the number of key-value pairs
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the amount of memory held outside the heap by the slot index and the slabs.
+     *
+     * @return the number of allocated bytes
+     */
+    public long offHeapBytes() {
+        return (long) capacity * SLOT_SIZE + (long) slabs.size() * slabSize;
+    }
+
+    /**
+     * Releases the memory of the hash table. Does nothing if it is already released.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        freeAll(index);
+        for (ByteBuffer slab : slabs) {
+            DirectBuffers.free(slab);
+        }
+        index = null;
+        slabs.clear();
+        size = 0;
+    }
+
+    /**
+     * Returns the slot holding the specified key.
+     *
+     * @param key the key to look for
+     * @return the index of the slot, or -1 if there is no such key
+     */
+    private int find(K key) {
+        int keyLength = encodeKey(key);
+        int hash = hash(keyLength);
+        int mask = capacity - 1;
+
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            long ref = refAt(slot);
+            if (ref == 0) {
+                return -1;
+            }
+            if (hashAt(slot) == hash && keyEquals(ref, keyLength)) {
+                return slot;
+            }
+        }
+    }
+
+    /**
+     * Encodes a key into the scratch buffer.
+     *
+     * @param key the key
+     * @return the length of the encoded key
+     */
+    private int encodeKey(K key) {
+        checkOpen();
+        if (key == null) {
+            throw new NullPointerException("Null keys are not supported");
+        }
+        int length = keyCodec.size(key);
+        if (scratch.capacity() < length) {
+            scratch = ByteBuffer.allocate(Math.max(length, scratch.capacity() * 2));
+        }
+        keyCodec.write(key, scratch.slice(0, length));
+        return length;
+    }
+
+    /**
+     * Computes the hash value of the encoded key in the scratch buffer.
+     *
+     * @param keyLength the length of the encoded key
+     * @return the hash value
+     */
+    private int hash(int keyLength) {
+        byte[] bytes = scratch.array();
+        int h = 1;
+        for (int i = 0; i < keyLength; i++) {
+            h = 31 * h + bytes[i];
+        }
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Compares the key of a record with the encoded key in the scratch buffer.
+     *
+     * @param ref the reference to the record
+     * @param keyLength the length of the encoded key
+     * @return {@code true} if the keys are equal
+     */
+    private boolean keyEquals(long ref, int keyLength) {
+        ByteBuffer slab = slab(ref);
+        int offset = offset(ref);
+        return slab.getInt(offset) == keyLength
+                && slab.slice(offset + RECORD_HEADER, keyLength)
+                        .equals(scratch.slice(0, keyLength));
+    }
+
+    /**
+     * Decodes the value of a record.
+     *
+     * @param ref the reference to the record
+     * @return the value
+     */
+    private V readValue(long ref) {
+        ByteBuffer slab = slab(ref);
+        int offset = offset(ref);
+        int keyLength = slab.getInt(offset);
+        int valueLength = slab.getInt(offset + 4);
+        return valueCodec.read(slab.slice(offset + RECORD_HEADER + keyLength, valueLength));
+    }
+
+    /**
+     * Appends a record with the encoded key in the scratch buffer.
+     *
+     * @param keyLength the length of the encoded key
+     * @param value the value
+     * @param valueLength the length of the encoded value
+     * @return the reference to the record
+     */
+    private long append(int keyLength, V value, int valueLength) {
+        int length = reserve(RECORD_HEADER + keyLength + valueLength);
+        ByteBuffer slab = slabs.get(slabs.size() - 1);
+        int offset = slabPosition - length;
+        slab.putInt(offset, keyLength);
+        slab.putInt(offset + 4, valueLength);
+        slab.put(offset + RECORD_HEADER, scratch, 0, keyLength);
+        valueCodec.write(value, slab.slice(offset + RECORD_HEADER + keyLength, valueLength));
+        return ref(slabs.size() - 1, offset);
+    }
+
+    /**
+     * Reserves space for a record at the end of the last slab, starting a new slab if the
+     * record does not fit.
+     *
+     * @param length the length of the record
+     * @return the length of the record
+     */
+    private int reserve(int length) {
+        if (length > slabSize || length < 0) {
+            throw new IllegalArgumentException("Record of " + length
+                    + " bytes does not fit in a slab of " + slabSize + " bytes");
+        }
+        if (slabs.isEmpty() || slabPosition + length > slabSize) {
+            slabs.add(ByteBuffer.allocateDirect(slabSize).order(ByteOrder.nativeOrder()));
+            slabPosition = 0;
+        }
+        slabPosition += length;
+        liveBytes += length;
+        return length;
+    }
+
+    /**
+     * Marks a record as garbage.
+     *
+     * @param ref the reference to the record
+     */
+    private void discard(long ref) {
+        ByteBuffer slab = slab(ref);
+        int offset = offset(ref);
+        int length = RECORD_HEADER + slab.getInt(offset) + slab.getInt(offset + 4);
+        liveBytes -= length;
+        garbageBytes += length;
+    }
+
+    /**
+     * Copies the live records into new slabs and releases the old ones, if the garbage
+     * takes more space than the live records and at least a whole slab.
+     */
+    private void compactIfWasteful() {
+        if (garbageBytes < slabSize || garbageBytes < liveBytes) {
+            return;
+        }
+        List<ByteBuffer> oldSlabs = new ArrayList<>(slabs);
+        slabs.clear();
+        liveBytes = 0;
+        garbageBytes = 0;
+
+        for (int slot = 0; slot < capacity; slot++) {
+            long ref = refAt(slot);
+            if (ref != 0) {
+                ByteBuffer source = oldSlabs.get((int) (ref >>> 32) - 1);
+                int offset = offset(ref);
+                int length = reserve(RECORD_HEADER + source.getInt(offset)
+                        + source.getInt(offset + 4));
+                ByteBuffer slab = slabs.get(slabs.size() - 1);
+                slab.put(slabPosition - length, source, offset, length);
+                setSlot(slot, ref(slabs.size() - 1, slabPosition - length), hashAt(slot));
+            }
+        }
+
+        for (ByteBuffer slab : oldSlabs) {
+            DirectBuffers.free(slab);
+        }
+    }
+
+    /**
+     * Frees a slot and moves the following entries of its probe sequence back, so that no
+     * entry becomes unreachable.
+     *
+     * @param free the index of the slot to free
+     */
+    private void shiftBack(int free) {
+        int mask = capacity - 1;
+        int i = free;
+        while (true) {
+            i = (i + 1) & mask;
+            long ref = refAt(i);
+            if (ref == 0) {
+                break;
+            }
+            int hash = hashAt(i);
+            // Переносим запись, если её исходный слот не лежит между free и i
+            if (((i - hash) & mask) >= ((i - free) & mask)) {
+                setSlot(free, ref, hash);
+                free = i;
+            }
+        }
+        setSlot(free, 0, 0);
+    }
+
+    /**
+     * Doubles the number of slots, moving the references by their stored hashes.
+     */
+    private void resize() {
+        ByteBuffer[] oldIndex = index;
+        int oldCapacity = capacity;
+        index = allocateIndex(capacity * 2);
+        capacity *= 2;
+        int mask = capacity - 1;
+
+        for (int slot = 0; slot < oldCapacity; slot++) {
+            ByteBuffer page = oldIndex[slot >>> PAGE_SHIFT];
+            int at = (slot & PAGE_MASK) * SLOT_SIZE;
+            long ref = page.getLong(at);
+            if (ref != 0) {
+                int hash = page.getInt(at + 8);
+                int i = hash & mask;
+                while (refAt(i) != 0) {
+                    i = (i + 1) & mask;
+                }
+                setSlot(i, ref, hash);
+            }
+        }
+
+        freeAll(oldIndex);
+    }
+
+    /**
+     * Allocates zeroed index pages.
+     *
+     * @param slots the number of slots, a power of two
+     * @return the pages
+     */
+    private static ByteBuffer[] allocateIndex(int slots) {
+        int pageSlots = Math.min(slots, 1 << PAGE_SHIFT);
+        ByteBuffer[] pages = new ByteBuffer[slots / pageSlots];
+        for (int i = 0; i < pages.length; i++) {
+            pages[i] = ByteBuffer.allocateDirect(pageSlots * SLOT_SIZE)
+                    .order(ByteOrder.nativeOrder());
+        }
+        return pages;
+    }
+
+    /**
+     * Releases the memory of buffers.
+     *
+     * @param buffers the buffers
+     */
+    private static void freeAll(ByteBuffer[] buffers) {
+        for (ByteBuffer buffer : buffers) {
+            DirectBuffers.free(buffer);
+        }
+    }
+
+    /**
+     * Returns the reference stored in a slot.
+     *
+     * @param slot the index of the slot
+     * @return the reference, or 0 if the slot is empty
+     */
+    private long refAt(int slot) {
+        return index[slot >>> PAGE_SHIFT].getLong((slot & PAGE_MASK) * SLOT_SIZE);
+    }
+
+    /**
+     * Returns the hash stored in a slot.
+     *
+     * @param slot the index of an occupied slot
+     * @return the hash of the key
+     */
+    private int hashAt(int slot) {
+        return index[slot >>> PAGE_SHIFT].getInt((slot & PAGE_MASK) * SLOT_SIZE + 8);
+    }
+
+    /**
+     * Stores a reference and a hash in a slot.
+     *
+     * @param slot the index of the slot
+     * @param ref the reference, or 0 to free the slot
+     * @param hash the hash of the key
+     */
+    private void setSlot(int slot, long ref, int hash) {
+        ByteBuffer page = index[slot >>> PAGE_SHIFT];
+        int at = (slot & PAGE_MASK) * SLOT_SIZE;
+        page.putLong(at, ref);
+        page.putInt(at + 8, hash);
+    }
+
+    /**
+     * Builds a reference to a record. The slab number is shifted by one so that no
+     * reference is 0.
+     *
+     * @param slab the number of the slab
+     * @param offset the offset of the record in the slab
+     * @return the reference
+     */
+    private static long ref(int slab, int offset) {
+        return ((long) (slab + 1) << 32) | offset;
+    }
+
+    /**
+     * Returns the slab holding a record.
+     *
+     * @param ref the reference to the record
+     * @return the slab
+     */
+    private ByteBuffer slab(long ref) {
+        return slabs.get((int) (ref >>> 32) - 1);
+    }
+
+    /**
+     * Returns the offset of a record in its slab.
+     *
+     * @param ref the reference to the record
+     * @return the offset
+     */
+    private static int offset(long ref) {
+        return (int) ref;
+    }
+
+    /**
+     * Checks that the memory of the hash table is not released.
+     */
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("The hash table is closed");
+        }
+    }
+}
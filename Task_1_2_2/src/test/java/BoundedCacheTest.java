@@ -0,0 +1,121 @@
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.example.BoundedCache;
+import org.junit.jupiter.api.Test;
+
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedCacheTest {
+
+    @Test
+    void testLruEvictsLeastRecentlyUsed() {
+        BoundedCache<String, Integer> cache = new BoundedCache<>(2, BoundedCache.Policy.LRU);
+        cache.put("one", 1);
+        cache.put("two", 2);
+        assertEquals(1, cache.get("one")); // "two" становится самым старым
+        cache.put("three", 3);
+
+        assertEquals(1, cache.get("one"));
+        assertNull(cache.get("two"));
+        assertEquals(3, cache.get("three"));
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.evictionCount());
+        assertEquals(3, cache.hitCount());
+        assertEquals(1, cache.missCount());
+    }
+
+    @Test
+    void testClockGivesSecondChance() {
+        BoundedCache<String, Integer> cache = new BoundedCache<>(2, BoundedCache.Policy.CLOCK);
+        cache.put("one", 1);
+        cache.put("two", 2);
+        cache.get("one");
+        cache.put("three", 3);
+
+        assertEquals(1, cache.get("one"));
+        assertNull(cache.get("two"));
+        assertEquals(3, cache.get("three"));
+    }
+
+    @Test
+    void testWeightBound() {
+        BoundedCache<String, String> cache = new BoundedCache<>(10, BoundedCache.Policy.LRU,
+                (key, value) -> value.length());
+        cache.put("a", "12345");
+        cache.put("b", "12345");
+        assertEquals(10, cache.weight());
+        cache.put("c", "123");
+        assertNull(cache.get("a"));
+        assertEquals(8, cache.weight());
+
+        // Замена значения учитывает новый вес
+        cache.put("b", "1");
+        assertEquals(4, cache.weight());
+        assertEquals("1", cache.remove("b"));
+        assertEquals(3, cache.weight());
+    }
+
+    @Test
+    void testTimeToLive() throws InterruptedException {
+        BoundedCache<String, Integer> cache = new BoundedCache<>(10, BoundedCache.Policy.LRU);
+        cache.put("short", 1, Duration.ofMillis(1));
+        cache.put("long", 2, Duration.ofHours(1));
+        cache.put("forever", 3);
+        Thread.sleep(20);
+
+        assertNull(cache.get("short"));
+        assertEquals(2, cache.get("long"));
+        assertEquals(3, cache.get("forever"));
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void testHugeTimeToLiveNeverExpires() {
+        BoundedCache<String, Integer> cache = new BoundedCache<>(10, BoundedCache.Policy.LRU);
+        cache.put("centuries", 1, Duration.ofDays(365L * 300));
+        cache.put("max", 2, Duration.ofSeconds(Long.MAX_VALUE));
+        cache.put("almost", 3, Duration.ofNanos(Long.MAX_VALUE - 1));
+
+        assertEquals(1, cache.get("centuries"));
+        assertEquals(2, cache.get("max"));
+        assertEquals(3, cache.get("almost"));
+    }
+
+    @Test
+    void testConcurrentAccessKeepsBound() throws Exception {
+        BoundedCache<Integer, Integer> cache = new BoundedCache<>(100, BoundedCache.Policy.LRU);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                int seed = t;
+                futures.add(pool.submit(() -> {
+                    for (int i = 0; i < 50_000; i++) {
+                        int key = (i * 31 + seed) % 300;
+                        Integer value = cache.get(key);
+                        if (value == null) {
+                            cache.put(key, key);
+                        } else {
+                            assertEquals(key, value);
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        assertEquals(100, cache.size());
+        assertEquals(100, cache.weight());
+        assertEquals(200_000, cache.hitCount() + cache.missCount());
+    }
+}
@@ -0,0 +1,177 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.example.ConcurrentHashTable;
+import org.example.HashTable;
+import org.junit.jupiter.api.Test;
+
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentHashTableTest {
+
+    @Test
+    void testPutGetRemove() {
+        ConcurrentHashTable<String, Integer> table = new ConcurrentHashTable<>();
+        table.put("one", 1);
+        table.put("two", 2);
+        table.put("one", 11);
+
+        assertEquals(11, table.get("one"));
+        assertEquals(2, table.size());
+        assertEquals(2, table.putIfAbsent("two", 3));
+        assertNull(table.putIfAbsent("three", 3));
+        assertEquals(3, table.get("three"));
+
+        assertEquals(11, table.remove("one"));
+        assertNull(table.get("one"));
+        assertFalse(table.containsKey("one"));
+        assertEquals(2, table.size());
+
+        table.update("two", 22);
+        assertEquals(22, table.get("two"));
+        assertThrows(IllegalArgumentException.class, () -> table.update("one", 1));
+        assertThrows(NullPointerException.class, () -> table.put("four", null));
+    }
+
+    @Test
+    void testTombstonesDoNotGrowTable() {
+        ConcurrentHashTable<Integer, Integer> table = new ConcurrentHashTable<>(1);
+        for (int i = 0; i < 100_000; i++) {
+            table.put(i, i);
+            assertEquals(i, table.remove(i));
+        }
+        assertEquals(0, table.size());
+        assertEquals("{}", table.toString());
+    }
+
+    @Test
+    void testConcurrentWriters() throws Exception {
+        ConcurrentHashTable<Integer, Integer> table = new ConcurrentHashTable<>(8);
+        int threads = 8;
+        int perThread = 20_000;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int base = t * perThread;
+                futures.add(pool.submit(() -> {
+                    for (int i = base; i < base + perThread; i++) {
+                        table.put(i, i);
+                        // Каждый второй ключ сразу удаляем
+                        if (i % 2 == 0) {
+                            assertEquals(i, table.remove(i));
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        assertEquals(threads * perThread / 2, table.size());
+        Map<Integer, Integer> visited = new HashMap<>();
+        for (HashTable.Entry<Integer, Integer> entry : table) {
+            visited.put(entry.getKey(), entry.getValue());
+        }
+        assertEquals(threads * perThread / 2, visited.size());
+        for (int i = 0; i < threads * perThread; i++) {
+            assertEquals(i % 2 == 0 ? null : i, table.get(i));
+        }
+    }
+
+    @Test
+    void testReadersSeeStableKeysDuringWrites() throws Exception {
+        ConcurrentHashTable<Integer, Integer> table = new ConcurrentHashTable<>(4);
+        // Постоянные ключи не должны пропадать, пока другие растят и чистят таблицу
+        for (int i = 0; i < 1000; i++) {
+            table.put(-i - 1, i);
+        }
+        AtomicBoolean done = new AtomicBoolean();
+        ExecutorService pool = Executors.newFixedThreadPool(3);
+        try {
+            Future<?> writer = pool.submit(() -> {
+                for (int i = 0; i < 200_000; i++) {
+                    table.put(i, i);
+                    if (i >= 1000) {
+                        table.remove(i - 1000);
+                    }
+                }
+                done.set(true);
+            });
+            List<Future<?>> readers = new ArrayList<>();
+            for (int r = 0; r < 2; r++) {
+                readers.add(pool.submit(() -> {
+                    while (!done.get()) {
+                        for (int i = 0; i < 1000; i++) {
+                            assertEquals(i, table.get(-i - 1));
+                        }
+                    }
+                }));
+            }
+            writer.get();
+            for (Future<?> reader : readers) {
+                reader.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void testReadersNeverSeeValueOfAnotherKey() throws Exception {
+        ConcurrentHashTable<Integer, Integer> table = new ConcurrentHashTable<>(1);
+        int keyCount = 32;
+        AtomicBoolean done = new AtomicBoolean();
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int w = 0; w < 2; w++) {
+                int first = w;
+                writers.add(pool.submit(() -> {
+                    // Значение несёт свой ключ: key * 16 + номер раунда
+                    for (int round = 0; round < 20_000; round++) {
+                        for (int key = first; key < keyCount; key += 2) {
+                            table.remove(key);
+                            table.put(key, key * 16 + round % 16);
+                        }
+                    }
+                }));
+            }
+            List<Future<?>> readers = new ArrayList<>();
+            for (int r = 0; r < 2; r++) {
+                readers.add(pool.submit(() -> {
+                    while (!done.get()) {
+                        for (int key = 0; key < keyCount; key++) {
+                            Integer value = table.get(key);
+                            if (value != null) {
+                                assertEquals(key, value / 16);
+                            }
+                        }
+                    }
+                }));
+            }
+            try {
+                for (Future<?> writer : writers) {
+                    writer.get();
+                }
+            } finally {
+                done.set(true);
+            }
+            for (Future<?> reader : readers) {
+                reader.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
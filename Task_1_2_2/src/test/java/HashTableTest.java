@@ -1,8 +1,16 @@
+import java.util.Arrays;
 import java.util.ConcurrentModificationException;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
 
 import org.example.HashTable;
+import org.example.HashTableStats;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -62,6 +70,20 @@ class HashTableTest {
         assertFalse(hashTable.containsKey("key3"));
     }
 
+    @Test
+    void testKeyMappedToNullIsAbsent() {
+        hashTable.put("key", null);
+        assertEquals(1, hashTable.size());
+        assertFalse(hashTable.containsKey("key"));
+        assertThrows(IllegalArgumentException.class, () -> hashTable.update("key", 1));
+        assertNull(hashTable.get("key"));
+
+        hashTable.put("key", 1);
+        assertTrue(hashTable.containsKey("key"));
+        hashTable.update("key", 2);
+        assertEquals(2, hashTable.get("key"));
+    }
+
     @Test
     void testSize() {
         assertEquals(0, hashTable.size());
@@ -159,4 +181,316 @@ class HashTableTest {
         hashTable2.put("three", 3);
         assertNotEquals(hashTable1, hashTable2);
     }
+
+    @Test
+    void testRemoveInCollidingCluster() {
+        HashTable<CollidingKey, Integer> table = new HashTable<>();
+        for (int i = 0; i < 10; i++) {
+            table.put(new CollidingKey(i, i % 2), i);
+        }
+
+        // Удаление из середины кластера не должно терять следующие записи
+        assertEquals(4, table.remove(new CollidingKey(4, 0)));
+        assertEquals(1, table.remove(new CollidingKey(1, 1)));
+        assertEquals(8, table.size());
+        for (int i = 0; i < 10; i++) {
+            Integer expected = i == 1 || i == 4 ? null : i;
+            assertEquals(expected, table.get(new CollidingKey(i, i % 2)));
+        }
+        assertFalse(table.containsKey(new CollidingKey(11, 1)));
+    }
+
+    @Test
+    void testAgreesWithHashMap() {
+        Random random = new Random(16);
+        Map<String, Integer> expected = new HashMap<>();
+
+        for (int i = 0; i < 50_000; i++) {
+            String key = "key" + random.nextInt(3000);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), hashTable.remove(key));
+            } else {
+                expected.put(key, i);
+                hashTable.put(key, i);
+            }
+        }
+
+        assertEquals(expected.size(), hashTable.size());
+        for (int i = 0; i < 3000; i++) {
+            assertEquals(expected.get("key" + i), hashTable.get("key" + i));
+        }
+        Map<String, Integer> visited = new HashMap<>();
+        for (HashTable.Entry<String, Integer> entry : hashTable) {
+            visited.put(entry.getKey(), entry.getValue());
+        }
+        assertEquals(expected, visited);
+    }
+
+    @Test
+    void testIncrementalResize() {
+        HashTable<String, Integer> table = new HashTable<>(true);
+        Map<String, Integer> expected = new HashMap<>();
+        Random random = new Random(17);
+        boolean resized = false;
+
+        for (int i = 0; i < 20_000; i++) {
+            String key = "key" + random.nextInt(10_000);
+            if (random.nextInt(4) == 0) {
+                assertEquals(expected.remove(key), table.remove(key));
+            } else {
+                expected.put(key, i);
+                table.put(key, i);
+            }
+            resized |= table.isResizing();
+
+            // Во время переноса ключи ищутся в обеих таблицах
+            if (table.isResizing()) {
+                String probe = "key" + random.nextInt(10_000);
+                assertEquals(expected.get(probe), table.get(probe));
+                assertEquals(expected.containsKey(probe), table.containsKey(probe));
+            }
+        }
+
+        assertTrue(resized);
+        assertEquals(expected.size(), table.size());
+        Map<String, Integer> visited = new HashMap<>();
+        for (HashTable.Entry<String, Integer> entry : table) {
+            visited.put(entry.getKey(), entry.getValue());
+        }
+        assertEquals(expected, visited);
+    }
+
+    @Test
+    void testGetOrDefaultAndPutIfAbsent() {
+        hashTable.put("one", 1);
+        hashTable.put("none", null);
+
+        assertEquals(1, hashTable.getOrDefault("one", 0));
+        assertNull(hashTable.getOrDefault("none", 0));
+        assertEquals(0, hashTable.getOrDefault("two", 0));
+
+        assertEquals(1, hashTable.putIfAbsent("one", 10));
+        assertNull(hashTable.putIfAbsent("two", 2));
+        assertNull(hashTable.putIfAbsent("none", 3));
+        assertEquals(2, hashTable.get("two"));
+        assertEquals(3, hashTable.get("none"));
+    }
+
+    @Test
+    void testComputeAndMerge() {
+        assertEquals(3, hashTable.computeIfAbsent("abc", String::length));
+        assertEquals(3, hashTable.computeIfAbsent("abc", key -> 100));
+        assertNull(hashTable.computeIfAbsent("skip", key -> null));
+        assertFalse(hashTable.containsKey("skip"));
+
+        assertEquals(4, hashTable.compute("abc", (key, value) -> value + 1));
+        assertEquals(1, hashTable.compute("new", (key, value) -> value == null ? 1 : value));
+        assertNull(hashTable.compute("new", (key, value) -> null));
+        assertFalse(hashTable.containsKey("new"));
+
+        // Подсчёт слов одним проходом по таблице на слово
+        String[] words = "a b a c b a".split(" ");
+        for (String word : words) {
+            hashTable.merge(word, 1, Integer::sum);
+        }
+        assertEquals(3, hashTable.get("a"));
+        assertEquals(2, hashTable.get("b"));
+        assertEquals(1, hashTable.get("c"));
+        assertNull(hashTable.merge("c", 1, (a, b) -> null));
+        assertFalse(hashTable.containsKey("c"));
+        assertEquals(3, hashTable.size());
+
+        assertThrows(ConcurrentModificationException.class,
+                () -> hashTable.computeIfAbsent("x", key -> {
+                    hashTable.put("y", 1);
+                    return 1;
+                }));
+    }
+
+    @Test
+    void testMergeDuringIncrementalResize() {
+        HashTable<Integer, Integer> table = new HashTable<>(true);
+        Map<Integer, Integer> expected = new HashMap<>();
+        Random random = new Random(21);
+
+        for (int i = 0; i < 100_000; i++) {
+            int key = random.nextInt(20_000);
+            table.merge(key, 1, Integer::sum);
+            expected.merge(key, 1, Integer::sum);
+        }
+
+        assertEquals(expected.size(), table.size());
+        for (Map.Entry<Integer, Integer> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), table.get(entry.getKey()));
+        }
+    }
+
+    @Test
+    void testStreamsAndBulkOperations() {
+        HashTable<Integer, Long> table = new HashTable<>();
+        long expectedSum = 0;
+        for (int i = 0; i < 100_000; i++) {
+            table.put(i, (long) i * 3);
+            expectedSum += (long) i * 3;
+        }
+
+        assertEquals(100_000, table.stream().count());
+        assertEquals(expectedSum, table.parallelStream().mapToLong(HashTable.Entry::getValue)
+                .sum());
+        Map<Integer, Long> collected = table.parallelStream()
+                .filter(entry -> entry.getKey() % 1000 == 0)
+                .collect(Collectors.toMap(HashTable.Entry::getKey, HashTable.Entry::getValue));
+        assertEquals(100, collected.size());
+        assertEquals(3000L, collected.get(1000));
+
+        // Последовательно и параллельно результат одинаков
+        assertEquals(expectedSum, table.reduce(Long.MAX_VALUE, (key, value) -> value, Long::sum));
+        assertEquals(expectedSum, table.reduce(1, (key, value) -> value, Long::sum));
+        assertNull(table.reduce(1, (key, value) -> null, Long::sum));
+        AtomicLong visited = new AtomicLong();
+        table.forEach(1, (key, value) -> visited.incrementAndGet());
+        assertEquals(100_000, visited.get());
+    }
+
+    @Test
+    void testSpliteratorSplitsEvenly() {
+        for (int i = 0; i < 10_000; i++) {
+            hashTable.put("key" + i, i);
+        }
+        Spliterator<HashTable.Entry<String, Integer>> right = hashTable.spliterator();
+        Spliterator<HashTable.Entry<String, Integer>> left = right.trySplit();
+        assertNotNull(left);
+
+        long[] counts = new long[2];
+        left.forEachRemaining(entry -> counts[0]++);
+        right.forEachRemaining(entry -> counts[1]++);
+        assertEquals(10_000, counts[0] + counts[1]);
+        assertTrue(Math.abs(counts[0] - counts[1]) < 1000);
+    }
+
+    @Test
+    void testStreamDuringIncrementalResize() {
+        HashTable<Integer, Integer> table = new HashTable<>(true);
+        int i = 0;
+        while (i < 5000 || !table.isResizing()) {
+            table.put(i, i);
+            i++;
+        }
+        assertEquals(i, table.parallelStream().count());
+        assertEquals((long) i * (i - 1) / 2,
+                table.reduce(1, (key, value) -> (long) value, Long::sum));
+        assertThrows(ConcurrentModificationException.class,
+                () -> table.stream().forEach(entry -> table.remove(entry.getKey())));
+    }
+
+    @Test
+    void testStats() {
+        HashTable<CollidingKey, Integer> table = new HashTable<>();
+        // 5 ключей с одним хешем образуют кластер длиной 5
+        for (int i = 0; i < 5; i++) {
+            table.put(new CollidingKey(i, 3), i);
+        }
+        HashTableStats stats = table.stats();
+        assertEquals(16, stats.getCapacity());
+        assertEquals(5, stats.getSize());
+        assertEquals(5.0 / 16, stats.getLoad(), 1e-9);
+        assertEquals(4, stats.getMaxProbeLength());
+        assertEquals(5, stats.getMaxClusterLength());
+        assertEquals(2.0, stats.getMeanProbeLength(), 1e-9);
+        assertArrayEquals(new long[] {1, 1, 1, 1, 1},
+                Arrays.copyOf(stats.getProbeLengthHistogram(), 5));
+        assertEquals(0, stats.getResizeCount());
+
+        for (int i = 0; i < 100; i++) {
+            hashTable.put("key" + i, i);
+        }
+        assertEquals(4, hashTable.stats().getResizeCount());
+        assertTrue(hashTable.stats().getResizeNanos() > 0);
+    }
+
+    @Test
+    void testLookupSampling() {
+        HashTable<CollidingKey, Integer> table = new HashTable<>();
+        for (int i = 0; i < 5; i++) {
+            table.put(new CollidingKey(i, 3), i);
+        }
+        table.setLookupSampling(1);
+        for (int i = 0; i < 5; i++) {
+            table.get(new CollidingKey(i, 3));
+        }
+        table.get(new CollidingKey(100, 3)); // Промах читает весь кластер
+
+        long[] sampled = table.stats().getSampledProbeLengthHistogram();
+        assertArrayEquals(new long[] {1, 1, 1, 1, 1, 1}, Arrays.copyOf(sampled, 6));
+
+        // Сравнение таблиц не попадает в выборку
+        HashTable<CollidingKey, Integer> copy = new HashTable<>();
+        for (int i = 0; i < 5; i++) {
+            copy.put(new CollidingKey(i, 3), i);
+        }
+        assertEquals(copy, table);
+        assertEquals(6, Arrays.stream(table.stats().getSampledProbeLengthHistogram()).sum());
+
+        table.setLookupSampling(0);
+        table.get(new CollidingKey(0, 3));
+        assertEquals(6, Arrays.stream(table.stats().getSampledProbeLengthHistogram()).sum());
+    }
+
+    @Test
+    void testExpectedSizeAvoidsResizes() {
+        HashTable<Integer, Integer> table = new HashTable<>(12);
+        for (int i = 0; i < 12; i++) {
+            table.put(i, i);
+        }
+        assertEquals(16, table.stats().getCapacity());
+        assertEquals(0, table.stats().getResizeCount());
+
+        HashTable<Integer, Integer> large = new HashTable<>(100_000);
+        for (int i = 0; i < 100_000; i++) {
+            large.put(i, i);
+        }
+        assertEquals(0, large.stats().getResizeCount());
+        assertThrows(IllegalArgumentException.class, () -> new HashTable<>(-1));
+    }
+
+    @Test
+    void testPutAllResizesOnce() {
+        HashTable<Integer, Integer> source = new HashTable<>(true);
+        for (int i = 0; i < 50_000; i++) {
+            source.put(i, -i);
+        }
+        HashTable<Integer, Integer> target = new HashTable<>();
+        target.put(-1, 1);
+        target.put(0, 100);
+        target.putAll(source);
+
+        assertEquals(50_001, target.size());
+        assertEquals(1, target.stats().getResizeCount());
+        assertEquals(0, target.get(0));
+        assertEquals(-49_999, target.get(49_999));
+        assertEquals(1, target.get(-1));
+    }
+
+    /**
+     * A key with a chosen hash code, for building long collision chains.
+     */
+    private static final class CollidingKey {
+        private final int id;
+        private final int hash;
+
+        CollidingKey(int id, int hash) {
+            this.id = id;
+            this.hash = hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof CollidingKey && ((CollidingKey) obj).id == id;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
 }
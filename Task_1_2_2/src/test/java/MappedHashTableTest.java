@@ -0,0 +1,80 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.example.Codec;
+import org.example.HashTable;
+import org.example.MappedHashTable;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedHashTableTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testSaveAndMap() throws IOException {
+        HashTable<String, String> table = new HashTable<>();
+        table.put("one", "один");
+        table.put("two", "два");
+        table.put("none", null);
+        Path file = tempDir.resolve("table.snapshot");
+        table.save(file, Codec.STRING, Codec.STRING);
+
+        try (MappedHashTable<String, String> mapped =
+                     MappedHashTable.open(file, Codec.STRING, Codec.STRING)) {
+            assertEquals(3, mapped.size());
+            assertEquals("один", mapped.get("one"));
+            assertEquals("два", mapped.get("two"));
+            assertNull(mapped.get("none"));
+            assertTrue(mapped.containsKey("none"));
+            assertNull(mapped.get("three"));
+            assertFalse(mapped.containsKey("three"));
+        }
+    }
+
+    @Test
+    void testLargeTableDuringIncrementalResize() throws IOException {
+        HashTable<Integer, Long> table = new HashTable<>(true);
+        Map<Integer, Long> expected = new HashMap<>();
+        Random random = new Random(22);
+        // Останавливаемся посреди переноса, чтобы save его завершил
+        while (expected.size() < 50_000 || !table.isResizing()) {
+            int key = random.nextInt();
+            long value = random.nextLong();
+            table.put(key, value);
+            expected.put(key, value);
+        }
+        Path file = tempDir.resolve("large.snapshot");
+        table.save(file, Codec.INTEGER, Codec.LONG);
+
+        try (MappedHashTable<Integer, Long> mapped =
+                     MappedHashTable.open(file, Codec.INTEGER, Codec.LONG)) {
+            assertEquals(expected.size(), mapped.size());
+            for (Map.Entry<Integer, Long> entry : expected.entrySet()) {
+                assertEquals(entry.getValue(), mapped.get(entry.getKey()));
+            }
+            for (int i = 0; i < 10_000; i++) {
+                int key = random.nextInt();
+                assertEquals(expected.get(key), mapped.get(key));
+            }
+        }
+    }
+
+    @Test
+    void testNotASnapshot() throws IOException {
+        Path file = tempDir.resolve("garbage");
+        Files.write(file, new byte[100]);
+        assertThrows(IOException.class,
+                () -> MappedHashTable.open(file, Codec.STRING, Codec.STRING));
+        Path empty = Files.createFile(tempDir.resolve("empty"));
+        assertThrows(IOException.class,
+                () -> MappedHashTable.open(empty, Codec.STRING, Codec.STRING));
+    }
+}
@@ -0,0 +1,104 @@
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.example.Codec;
+import org.example.OffHeapHashTable;
+import org.junit.jupiter.api.Test;
+
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapHashTableTest {
+
+    @Test
+    void testPutGetRemove() {
+        try (OffHeapHashTable<String, Integer> table =
+                     new OffHeapHashTable<>(Codec.STRING, Codec.INTEGER)) {
+            table.put("one", 1);
+            table.put("два", 2);
+            table.put("one", 11);
+
+            assertEquals(11, table.get("one"));
+            assertEquals(2, table.get("два"));
+            assertNull(table.get("three"));
+            assertEquals(2, table.size());
+
+            assertEquals(11, table.remove("one"));
+            assertFalse(table.containsKey("one"));
+            assertEquals(1, table.size());
+        }
+    }
+
+    @Test
+    void testLoneSurrogateKeys() {
+        for (String key : new String[] {"\uD800", "a\uDC00b", "\uD83D\uDE00", "x\uD83D"}) {
+            assertEquals(key.getBytes(StandardCharsets.UTF_8).length, Codec.STRING.size(key));
+        }
+        try (OffHeapHashTable<String, Integer> table =
+                     new OffHeapHashTable<>(Codec.STRING, Codec.INTEGER)) {
+            table.put("\uD800", 1);
+            table.put("\uD83D\uDE00", 2);
+            assertEquals(1, table.get("\uD800"));
+            assertEquals(2, table.get("\uD83D\uDE00"));
+            assertEquals(1, table.remove("\uD800"));
+            assertEquals(1, table.size());
+        }
+    }
+
+    @Test
+    void testValuesOfDifferentSize() {
+        try (OffHeapHashTable<Long, String> table =
+                     new OffHeapHashTable<>(Codec.LONG, Codec.STRING, 1024)) {
+            table.put(1L, "a");
+            table.put(1L, "b");
+            table.put(1L, "значение подлиннее");
+            assertEquals("значение подлиннее", table.get(1L));
+            assertThrows(IllegalArgumentException.class, () -> table.put(2L, "x".repeat(2000)));
+        }
+    }
+
+    @Test
+    void testAgreesWithHashMapAndCompacts() {
+        // Маленькие слябы, чтобы сжатие происходило много раз
+        try (OffHeapHashTable<String, String> table =
+                     new OffHeapHashTable<>(Codec.STRING, Codec.STRING, 4096)) {
+            Map<String, String> expected = new HashMap<>();
+            Random random = new Random(19);
+
+            for (int i = 0; i < 50_000; i++) {
+                String key = "key" + random.nextInt(2000);
+                if (random.nextInt(3) == 0) {
+                    assertEquals(expected.remove(key), table.remove(key));
+                } else {
+                    String value = "v".repeat(random.nextInt(10)) + i;
+                    expected.put(key, value);
+                    table.put(key, value);
+                }
+            }
+
+            assertEquals(expected.size(), table.size());
+            for (int i = 0; i < 2000; i++) {
+                assertEquals(expected.get("key" + i), table.get("key" + i));
+            }
+            Map<String, String> visited = new HashMap<>();
+            table.forEach(visited::put);
+            assertEquals(expected, visited);
+            // Мусор не накапливается: живых записей не больше 2000 по ~30 байт
+            assertTrue(table.offHeapBytes() < 1024 * 1024);
+        }
+    }
+
+    @Test
+    void testClosedTable() {
+        OffHeapHashTable<Integer, Integer> table =
+                new OffHeapHashTable<>(Codec.INTEGER, Codec.INTEGER);
+        for (int i = 0; i < 1000; i++) {
+            table.put(i, i);
+        }
+        table.close();
+        table.close();
+        assertThrows(IllegalStateException.class, () -> table.get(1));
+    }
+}
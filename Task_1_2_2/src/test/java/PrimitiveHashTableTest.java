@@ -0,0 +1,132 @@
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.example.IntIntHashTable;
+import org.example.IntLongHashTable;
+import org.example.LongObjectHashTable;
+import org.junit.jupiter.api.Test;
+
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrimitiveHashTableTest {
+
+    @Test
+    void testIntIntPutGetRemove() {
+        IntIntHashTable table = new IntIntHashTable();
+        table.put(1, 10);
+        table.put(2, 20);
+        table.put(1, 11);
+
+        assertEquals(11, table.get(1));
+        assertEquals(20, table.get(2));
+        assertEquals(0, table.get(3));
+        assertEquals(-1, table.getOrDefault(3, -1));
+        assertEquals(2, table.size());
+
+        assertEquals(11, table.remove(1));
+        assertFalse(table.containsKey(1));
+        assertEquals(1, table.size());
+    }
+
+    @Test
+    void testZeroKey() {
+        IntIntHashTable table = new IntIntHashTable();
+        assertFalse(table.containsKey(0));
+        table.put(0, 5);
+        assertTrue(table.containsKey(0));
+        assertEquals(5, table.get(0));
+        assertEquals(1, table.size());
+        assertEquals("{0=5}", table.toString());
+        assertEquals(5, table.remove(0));
+        assertEquals(0, table.size());
+
+        LongObjectHashTable<String> objects = new LongObjectHashTable<>();
+        objects.put(0L, null);
+        assertTrue(objects.containsKey(0L));
+        assertNull(objects.get(0L));
+    }
+
+    @Test
+    void testUpdateMissingKey() {
+        IntLongHashTable table = new IntLongHashTable();
+        table.put(7, 1L << 40);
+        table.update(7, 3L);
+        assertEquals(3L, table.get(7));
+        assertThrows(IllegalArgumentException.class, () -> table.update(8, 1L));
+    }
+
+    @Test
+    void testAgreesWithHashMap() {
+        Random random = new Random(15);
+        IntIntHashTable ints = new IntIntHashTable();
+        IntLongHashTable longs = new IntLongHashTable();
+        LongObjectHashTable<String> objects = new LongObjectHashTable<>();
+        Map<Integer, Integer> expected = new HashMap<>();
+
+        for (int i = 0; i < 100_000; i++) {
+            // Маленький диапазон ключей, чтобы часто попадать в существующие
+            int key = random.nextInt(2000) - 1000;
+            if (random.nextInt(3) == 0) {
+                Integer old = expected.remove(key);
+                int removed = old == null ? 0 : old;
+                assertEquals(removed, ints.remove(key));
+                assertEquals(removed, longs.remove(key));
+                assertEquals(old == null ? null : String.valueOf(old), objects.remove(key));
+            } else {
+                int value = random.nextInt();
+                expected.put(key, value);
+                ints.put(key, value);
+                longs.put(key, value);
+                objects.put(key, String.valueOf(value));
+            }
+        }
+
+        assertEquals(expected.size(), ints.size());
+        assertEquals(expected.size(), longs.size());
+        assertEquals(expected.size(), objects.size());
+        for (int key = -1000; key < 1000; key++) {
+            Integer value = expected.get(key);
+            assertEquals(value != null, ints.containsKey(key));
+            assertEquals(value == null ? 0 : value, ints.get(key));
+            assertEquals(value == null ? 0L : (long) value, longs.get(key));
+            assertEquals(value == null ? null : String.valueOf(value), objects.get(key));
+        }
+
+        Map<Integer, Integer> visited = new HashMap<>();
+        ints.forEach(visited::put);
+        assertEquals(expected, visited);
+    }
+
+    @Test
+    void testResizeWithLargeKeys() {
+        LongObjectHashTable<Long> table = new LongObjectHashTable<>();
+        for (long i = 1; i <= 10_000; i++) {
+            table.put(i << 32, i);
+        }
+        assertEquals(10_000, table.size());
+        for (long i = 1; i <= 10_000; i++) {
+            assertEquals(i, table.get(i << 32));
+        }
+    }
+
+    @Test
+    void testEqualsAndHashCode() {
+        IntIntHashTable table1 = new IntIntHashTable();
+        IntIntHashTable table2 = new IntIntHashTable();
+        for (int i = 0; i < 100; i++) {
+            table1.put(i, i * i);
+            table2.put(99 - i, (99 - i) * (99 - i));
+        }
+        assertEquals(table1, table2);
+        assertEquals(table1.hashCode(), table2.hashCode());
+
+        table2.put(0, 1);
+        assertNotEquals(table1, table2);
+
+        table1.clear();
+        assertEquals(0, table1.size());
+        assertEquals("{}", table1.toString());
+    }
+}
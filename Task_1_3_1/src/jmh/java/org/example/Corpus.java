@@ -0,0 +1,137 @@
+package org.example;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * Generated texts the benchmarks search in. Every corpus is deterministic, so results of
+ * different runs and branches can be compared.
+ */
+public enum Corpus {
+    /**
+     * Random lowercase ASCII words; the needle is taken from the middle of the text, so it
+     * occurs about once.
+     */
+    RANDOM {
+        @Override
+        String text(int size, Random random) {
+            return randomText(size, "abcdefghijklmnopqrstuvwxyz     ", random);
+        }
+    },
+    /**
+     * Copies of the needle separated by single spaces: a match every few bytes, which
+     * stresses the result path rather than the matcher.
+     */
+    DENSE {
+        @Override
+        String text(int size, Random random) {
+            return null; // Built from the needle
+        }
+
+        @Override
+        String needle(String text, int length) {
+            return "ab".repeat(length).substring(0, length);
+        }
+    },
+    /**
+     * A run of {@code a} searched for {@code aaa...ab}: every position is a partial match,
+     * the worst case of naive and skip-based matchers.
+     */
+    PATHOLOGICAL {
+        @Override
+        String text(int size, Random random) {
+            return "a".repeat(size);
+        }
+
+        @Override
+        String needle(String text, int length) {
+            return "a".repeat(length - 1) + "b";
+        }
+    },
+    /**
+     * Random Cyrillic words: every letter takes two bytes in UTF-8, so the character
+     * offsets differ from the byte offsets.
+     */
+    CYRILLIC {
+        @Override
+        String text(int size, Random random) {
+            return randomText(size / 2, "абвгдеёжзийклмнопрстуфхцчшщъыьэюя     ", random);
+        }
+    };
+
+    /**
+     * Generates the text of the corpus.
+     *
+     * @param size the approximate size of the text in bytes
+     * @param random the source of randomness
+     * @return the text, or {@code null} if it is built from the needle
+     */
+    abstract String text(int size, Random random);
+
+    /**
+     * Chooses the needle searched for in the text.
+     *
+     * @param text the text of the corpus, {@code null} for {@link #DENSE}
+     * @param length the length of the needle in characters
+     * @return the needle
+     */
+    String needle(String text, int length) {
+        return text.substring(text.length() / 2, text.length() / 2 + length);
+    }
+
+    /**
+     * Generates the corpus and its needle.
+     *
+     * @param size the approximate size of the text in bytes
+     * @param needleLength the length of the needle in characters
+     * @return the UTF-8 encoded text followed by the needle
+     */
+    Instance generate(int size, int needleLength) {
+        Random random = new Random(1_3_1);
+        String text = text(size, random);
+        String needle = needle(text, needleLength);
+        if (text == null) {
+            StringBuilder sb = new StringBuilder();
+            while (sb.length() < size) {
+                sb.append(needle).append(' ');
+            }
+            text = sb.toString();
+        }
+        return new Instance(text.getBytes(StandardCharsets.UTF_8), needle);
+    }
+
+    /**
+     * Generates random text over an alphabet.
+     *
+     * @param length the length in characters
+     * @param alphabet the characters to choose from
+     * @param random the source of randomness
+     * @return the text
+     */
+    private static String randomText(int length, String alphabet, Random random) {
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * A generated text and the needle searched for in it.
+     */
+    static final class Instance {
+        final byte[] text;
+        final String needle;
+
+        /**
+         * Constructs an instance.
+         *
+         * @param text the UTF-8 encoded text
+         * @param needle the needle
+         */
+        Instance(byte[] text, String needle) {
+            this.text = text;
+            this.needle = needle;
+        }
+    }
+}
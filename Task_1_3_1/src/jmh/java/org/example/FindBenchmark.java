@@ -0,0 +1,108 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * End-to-end benchmarks of the public search methods on a generated file, including reading
+ * the file in {@link SubstringSearch#CHUNK_SIZE} chunks and converting offsets to characters.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class FindBenchmark {
+    /**
+     * Size of the generated file in bytes (64 MB).
+     */
+    private static final int FILE_SIZE = 64 * 1024 * 1024;
+
+    @Param({"RANDOM", "DENSE", "PATHOLOGICAL", "CYRILLIC"})
+    private Corpus corpus;
+
+    @Param({"4", "16", "64"})
+    private int needleLength;
+
+    private Path file;
+    private String needle;
+
+    /**
+     * Writes the corpus to a temporary file.
+     *
+     * @throws IOException if the file can not be written
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Corpus.Instance instance = corpus.generate(FILE_SIZE, needleLength);
+        file = Files.createTempFile("corpus", ".txt");
+        Files.write(file, instance.text);
+        needle = instance.needle;
+    }
+
+    /**
+     * Deletes the temporary file.
+     *
+     * @throws IOException if the file can not be deleted
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    /**
+     * Finds all character positions, passing them to a primitive sink.
+     *
+     * @param blackhole the sink
+     * @throws IOException if the file can not be read
+     */
+    @Benchmark
+    public void find(Blackhole blackhole) throws IOException {
+        SubstringSearch.find(file.toString(), needle, blackhole::consume);
+    }
+
+    /**
+     * Finds all character positions into a list of boxed positions.
+     *
+     * @return the positions
+     * @throws IOException if the file can not be read
+     */
+    @Benchmark
+    public Object findList() throws IOException {
+        return SubstringSearch.find(file.toString(), needle);
+    }
+
+    /**
+     * Counts the matches without converting offsets.
+     *
+     * @return the number of matches
+     * @throws IOException if the file can not be read
+     */
+    @Benchmark
+    public long count() throws IOException {
+        return SubstringSearch.count(file.toString(), needle);
+    }
+
+    /**
+     * Finds all character positions using a memory-mapped scan.
+     *
+     * @param blackhole the sink
+     * @throws IOException if the file can not be read
+     */
+    @Benchmark
+    public void findMapped(Blackhole blackhole) throws IOException {
+        SubstringSearch.findMapped(file.toString(), needle, blackhole::consume);
+    }
+}
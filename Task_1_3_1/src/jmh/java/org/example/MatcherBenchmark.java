@@ -0,0 +1,89 @@
+package org.example;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks of the matcher strategies on an in-memory corpus fed in chunks of different
+ * sizes, without any I/O. Compares the algorithms with each other and shows the cost of
+ * carrying partial matches across chunk boundaries.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MatcherBenchmark {
+    /**
+     * Size of the generated corpus in bytes (16 MB).
+     */
+    private static final int CORPUS_SIZE = 16 * 1024 * 1024;
+
+    @Param({"RANDOM", "DENSE", "PATHOLOGICAL", "CYRILLIC"})
+    private Corpus corpus;
+
+    @Param({"4", "16", "64"})
+    private int needleLength;
+
+    @Param({"4096", "65536", "1048576"})
+    private int chunkSize;
+
+    @Param({"AUTO", "KMP", "HORSPOOL", "FIRST_LAST"})
+    private MatchAlgorithm algorithm;
+
+    private ByteBuffer text;
+    private SubstringMatcher matcher;
+
+    /**
+     * Generates the corpus into a direct buffer, like the chunks read from a file.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        Corpus.Instance instance = corpus.generate(CORPUS_SIZE, needleLength);
+        text = ByteBuffer.allocateDirect(instance.text.length);
+        text.put(instance.text).flip();
+        matcher = SubstringMatcher.compile(instance.needle, algorithm);
+    }
+
+    /**
+     * Scans the corpus chunk by chunk, reporting byte offsets.
+     *
+     * @param blackhole the sink
+     */
+    @Benchmark
+    public void scan(Blackhole blackhole) {
+        SubstringMatcher m = matcher.fork();
+        for (int from = 0; from < text.capacity(); from += chunkSize) {
+            ByteBuffer chunk = text.duplicate();
+            chunk.position(from).limit(Math.min(from + chunkSize, text.capacity()));
+            m.scan(chunk, blackhole::consume);
+        }
+    }
+
+    /**
+     * Scans the corpus chunk by chunk, converting the offsets to characters.
+     *
+     * @param blackhole the sink
+     */
+    @Benchmark
+    public void scanCharOffsets(Blackhole blackhole) {
+        SubstringMatcher m = matcher.fork();
+        CharOffsetSink sink = new CharOffsetSink(blackhole::consume, m.length() - 1);
+        for (int from = 0; from < text.capacity(); from += chunkSize) {
+            ByteBuffer chunk = text.duplicate();
+            chunk.position(from).limit(Math.min(from + chunkSize, text.capacity()));
+            sink.beginChunk(chunk, m.position());
+            m.scan(chunk, sink);
+            sink.endChunk();
+        }
+    }
+}
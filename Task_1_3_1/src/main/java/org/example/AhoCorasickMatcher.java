@@ -0,0 +1,332 @@
+package org.example;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * A compiled Aho-Corasick automaton searching for many UTF-8 encoded substrings at once.
+ * Building it takes time linear in the total length of the substrings, so it is cheap
+ * enough to rebuild for every request. Like a {@link SubstringMatcher} it keeps its state and
+ * position between calls to {@link #scan(ByteBuffer, MatchListener)}, so a stream can be
+ * fed chunk by chunk.
+ *
+ * <p>A matcher is not thread-safe; use {@link #fork()} to obtain an independent matcher
+ * sharing the compiled automaton.
+ */
+public final class AhoCorasickMatcher {
+
+    /**
+     * Receives the matches found by the automaton.
+     */
+    @FunctionalInterface
+    public interface MatchListener {
+        /**
+         * Called for every occurrence of a substring.
+         *
+         * @param patternId the index of the substring in the compiled collection
+         * @param position the starting byte offset of the occurrence
+         */
+        void onMatch(int patternId, long position);
+    }
+
+    private final Automaton automaton;
+
+    private int state = 0;
+    private long position = 0;
+
+    /**
+     * Constructs a matcher over a compiled automaton.
+     *
+     * @param automaton the automaton
+     */
+    private AhoCorasickMatcher(Automaton automaton) {
+        this.automaton = automaton;
+    }
+
+    /**
+     * Compiles a matcher for the given substrings. The substrings are numbered in
+     * iteration order; equal substrings get separate numbers and are both reported.
+     *
+     * @param searchStrings the substrings to search for
+     * @return a new matcher positioned at the start of a stream
+     * @throws IllegalArgumentException if there are no substrings or one of them is empty
+     */
+    public static AhoCorasickMatcher compile(Collection<String> searchStrings) {
+        if (searchStrings.isEmpty()) {
+            throw new IllegalArgumentException("No search strings given");
+        }
+        return new AhoCorasickMatcher(new Automaton(searchStrings));
+    }
+
+    /**
+     * Returns a new matcher sharing the compiled automaton, positioned at the start
+     * of a stream.
+     *
+     * @return an independent matcher
+     */
+    public AhoCorasickMatcher fork() {
+        return new AhoCorasickMatcher(automaton);
+    }
+
+    /**
+     * Forgets any partial match and restarts the stream at the given position.
+     *
+     * @param position the byte offset of the next byte passed to the matcher
+     */
+    public void reset(long position) {
+        this.state = 0;
+        this.position = position;
+    }
+
+    /**
+     * Returns the byte offset of the next byte the matcher expects.
+     *
+     * @return the number of consumed bytes, counted from the last reset
+     */
+    public long position() {
+        return position;
+    }
+
+    /**
+     * Returns the number of compiled substrings.
+     *
+     * @return the number of substrings
+     */
+    public int patternCount() {
+        return automaton.byteLength.length;
+    }
+
+    /**
+     * Returns the length of the longest UTF-8 encoded substring.
+     *
+     * @return the length in bytes
+     */
+    public int maxLength() {
+        return automaton.maxLength;
+    }
+
+    /**
+     * Feeds the remaining bytes of the chunk to the automaton and reports every match that
+     * ends in the chunk. Matches are reported in the order they end; matches ending at the
+     * same byte are reported from the longest to the shortest. The chunk's position is
+     * advanced to its limit.
+     *
+     * @param chunk the next bytes of the stream
+     * @param listener the listener receiving the matches
+     */
+    public void scan(ByteBuffer chunk, MatchListener listener) {
+        Automaton a = automaton;
+        int from = chunk.position();
+        int to = chunk.limit();
+        long base = position - from + 1; // Added to the index of the last byte of a match
+        int s = state;
+
+        for (int i = from; i < to; i++) {
+            int b = chunk.get(i) & 0xFF;
+            int next;
+            while ((next = a.transition(s, b)) < 0) {
+                s = a.fail[s];
+            }
+            s = next;
+
+            int output = a.firstPattern[s] >= 0 ? s : a.outputLink[s];
+            while (output > 0) {
+                for (int id = a.firstPattern[output]; id >= 0; id = a.nextPattern[id]) {
+                    listener.onMatch(id, base + i - a.byteLength[id]);
+                }
+                output = a.outputLink[output];
+            }
+        }
+
+        state = s;
+        position += to - from;
+        chunk.position(to);
+    }
+
+    /**
+     * Immutable automaton shared by forked matchers. State 0 is the root; the transitions
+     * of the root are stored in a dense table, all other transitions in an open-addressing
+     * hash table keyed by state and byte.
+     */
+    private static final class Automaton {
+        final int[] byteLength; // Encoded length of every substring
+        final int maxLength;
+
+        final int[] rootTransitions = new int[256];
+        final long[] transitionKeys;
+        final int[] transitionTargets;
+
+        int stateCount = 1;
+        final int[] fail;
+        final int[] outputLink; // Nearest state on the fail chain that ends a substring
+        final int[] firstPattern; // First substring ending in the state, or -1
+        final int[] nextPattern; // Next substring ending in the same state, or -1
+        final int[] firstChild;
+        final int[] nextSibling;
+        final byte[] label;
+
+        /**
+         * Builds the trie of the substrings and computes the failure links.
+         *
+         * @param searchStrings the substrings
+         */
+        Automaton(Collection<String> searchStrings) {
+            int patternCount = searchStrings.size();
+            byteLength = new int[patternCount];
+            nextPattern = new int[patternCount];
+
+            byte[][] needles = new byte[patternCount][];
+            int totalLength = 0;
+            int longest = 0;
+            int id = 0;
+            for (String searchString : searchStrings) {
+                byte[] needle = searchString.getBytes(StandardCharsets.UTF_8);
+                if (needle.length == 0) {
+                    throw new IllegalArgumentException("Search string must not be empty");
+                }
+                needles[id] = needle;
+                byteLength[id] = needle.length;
+                totalLength += needle.length;
+                longest = Math.max(longest, needle.length);
+                id++;
+            }
+            maxLength = longest;
+
+            int capacity = totalLength + 1;
+            fail = new int[capacity];
+            outputLink = new int[capacity];
+            firstPattern = new int[capacity];
+            firstChild = new int[capacity];
+            nextSibling = new int[capacity];
+            label = new byte[capacity];
+            Arrays.fill(firstPattern, -1);
+            Arrays.fill(firstChild, -1);
+            Arrays.fill(rootTransitions, -1);
+            int tableSize = Integer.highestOneBit(Math.max(totalLength, 8) * 2) * 2;
+            transitionKeys = new long[tableSize];
+            transitionTargets = new int[tableSize];
+            Arrays.fill(transitionKeys, -1);
+
+            for (id = patternCount - 1; id >= 0; id--) {
+                insert(needles[id], id);
+            }
+            // Unmatched bytes at the root lead back to the root
+            for (int b = 0; b < 256; b++) {
+                if (rootTransitions[b] < 0) {
+                    rootTransitions[b] = 0;
+                }
+            }
+            buildFailureLinks();
+        }
+
+        /**
+         * Adds a substring to the trie.
+         *
+         * @param needle the encoded substring
+         * @param id the index of the substring
+         */
+        private void insert(byte[] needle, int id) {
+            int s = 0;
+            for (byte value : needle) {
+                int b = value & 0xFF;
+                int next = transition(s, b);
+                if (next < 0) {
+                    next = stateCount++;
+                    label[next] = value;
+                    nextSibling[next] = firstChild[s];
+                    firstChild[s] = next;
+                    addTransition(s, b, next);
+                }
+                s = next;
+            }
+            // Substrings are inserted in reverse, so the chain is in ascending order
+            nextPattern[id] = firstPattern[s];
+            firstPattern[s] = id;
+        }
+
+        /**
+         * Computes the failure and output links in breadth-first order.
+         */
+        private void buildFailureLinks() {
+            int[] queue = new int[stateCount];
+            int head = 0;
+            int tail = 0;
+            for (int child = firstChild[0]; child >= 0; child = nextSibling[child]) {
+                fail[child] = 0;
+                queue[tail++] = child;
+            }
+
+            while (head < tail) {
+                int s = queue[head++];
+                for (int child = firstChild[s]; child >= 0; child = nextSibling[child]) {
+                    int b = label[child] & 0xFF;
+                    int f = fail[s];
+                    int next;
+                    while ((next = transition(f, b)) < 0) {
+                        f = fail[f];
+                    }
+                    fail[child] = next;
+                    outputLink[child] = firstPattern[fail[child]] >= 0
+                            ? fail[child] : outputLink[fail[child]];
+                    queue[tail++] = child;
+                }
+            }
+        }
+
+        /**
+         * Returns the target of the goto function.
+         *
+         * @param s the state
+         * @param b the unsigned byte
+         * @return the next state, or -1 if the state has no transition on the byte
+         */
+        int transition(int s, int b) {
+            if (s == 0) {
+                return rootTransitions[b];
+            }
+            long key = ((long) s << 8) | b;
+            int mask = transitionKeys.length - 1;
+            for (int i = mix(key) & mask; transitionKeys[i] != -1; i = (i + 1) & mask) {
+                if (transitionKeys[i] == key) {
+                    return transitionTargets[i];
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Adds an edge of the trie.
+         *
+         * @param s the source state
+         * @param b the unsigned byte
+         * @param target the target state
+         */
+        private void addTransition(int s, int b, int target) {
+            if (s == 0) {
+                rootTransitions[b] = target;
+                return;
+            }
+            long key = ((long) s << 8) | b;
+            int mask = transitionKeys.length - 1;
+            int i = mix(key) & mask;
+            while (transitionKeys[i] != -1) {
+                i = (i + 1) & mask;
+            }
+            transitionKeys[i] = key;
+            transitionTargets[i] = target;
+        }
+
+        /**
+         * Spreads the bits of a transition key.
+         *
+         * @param key the key
+         * @return the hash of the key
+         */
+        private static int mix(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package org.example;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Case-insensitive Boyer-Moore-Horspool matcher for ASCII needles none of whose letters has
+ * a non-ASCII case variant. Such a needle can only match ASCII bytes, so the haystack is
+ * folded byte by byte through a lookup table while it is compared, without decoding it or
+ * copying it.
+ */
+final class AsciiFoldingMatcher extends WindowMatcher {
+    private final int[] shift;
+
+    /**
+     * Constructs a matcher and its shift table.
+     *
+     * @param needle the ASCII substring, folded to lower case
+     */
+    AsciiFoldingMatcher(byte[] needle) {
+        this(needle, buildShiftTable(needle));
+    }
+
+    /**
+     * Constructs a matcher sharing a shift table.
+     *
+     * @param needle the ASCII substring, folded to lower case
+     * @param shift the shift table
+     */
+    private AsciiFoldingMatcher(byte[] needle, int[] shift) {
+        super(needle);
+        this.shift = shift;
+    }
+
+    @Override
+    public SubstringMatcher fork() {
+        return new AsciiFoldingMatcher(needle, shift);
+    }
+
+    @Override
+    protected int indexOf(ByteBuffer haystack, int from, int to) {
+        byte[] needle = this.needle;
+        byte[] fold = CaseFolding.ASCII;
+        int last = needle.length - 1;
+        byte lastByte = needle[last];
+
+        for (int s = from; s <= to - needle.length; ) {
+            int b = haystack.get(s + last) & 0xFF;
+            if (fold[b] == lastByte) {
+                int i = last - 1;
+                while (i >= 0 && fold[haystack.get(s + i) & 0xFF] == needle[i]) {
+                    i--;
+                }
+                if (i < 0) {
+                    return s;
+                }
+            }
+            s += shift[b];
+        }
+        return -1;
+    }
+
+    /**
+     * Builds the bad character shift table of the needle for both cases of every letter.
+     *
+     * @param needle the folded substring
+     * @return the shift for every byte value
+     */
+    private static int[] buildShiftTable(byte[] needle) {
+        int[] shift = new int[256];
+        Arrays.fill(shift, needle.length);
+        for (int i = 0; i < needle.length - 1; i++) {
+            shift[needle[i]] = needle.length - 1 - i;
+            if (needle[i] >= 'a' && needle[i] <= 'z') {
+                shift[needle[i] - ('a' - 'A')] = needle.length - 1 - i;
+            }
+        }
+        return shift;
+    }
+}
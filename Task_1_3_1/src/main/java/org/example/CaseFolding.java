@@ -0,0 +1,58 @@
+package org.example;
+
+/**
+ * Simple (one-to-one) Unicode case folding of code points, as used by the case-insensitive
+ * matchers. Nothing is allocated; ASCII letters are folded by a table lookup.
+ */
+final class CaseFolding {
+    /**
+     * Lowercase form of every ASCII byte; other bytes map to themselves.
+     */
+    static final byte[] ASCII = new byte[256];
+
+    static {
+        for (int b = 0; b < 256; b++) {
+            ASCII[b] = (byte) (b >= 'A' && b <= 'Z' ? b + ('a' - 'A') : b);
+        }
+    }
+
+    private CaseFolding() {
+    }
+
+    /**
+     * Folds a code point, so that two code points are equal ignoring case if and only if
+     * their folded forms are equal. Like {@link String#equalsIgnoreCase(String)} the code
+     * point is mapped to upper case and back to lower case, which also unifies variants such
+     * as the Kelvin sign and {@code k}; the Turkish dotted and dotless {@code i} are left alone,
+     * as in the Unicode simple case folding.
+     *
+     * @param codePoint the code point
+     * @return the folded code point, in the same Unicode plane
+     */
+    static int fold(int codePoint) {
+        if (codePoint < 0x80) {
+            return ASCII[codePoint];
+        }
+        if (codePoint == 0x130 || codePoint == 0x131) {
+            return codePoint;
+        }
+        return Character.toLowerCase(Character.toUpperCase(codePoint));
+    }
+
+    /**
+     * Checks whether a string is ASCII and none of its characters equals a non-ASCII
+     * character ignoring case. Only the long s and the Kelvin sign fold to ASCII letters.
+     *
+     * @param s the string
+     * @return {@code true} if case-insensitive matches of the string are ASCII only
+     */
+    static boolean isAsciiClosed(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c >= 0x80 || ASCII[c] == 'k' || ASCII[c] == 's') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,141 @@
+package org.example;
+
+import java.nio.ByteBuffer;
+import java.util.function.LongConsumer;
+
+/**
+ * Converts byte offsets of matches in a UTF-8 stream to UTF-16 character offsets and passes
+ * them on. The stream is fed chunk by chunk between {@link #beginChunk(ByteBuffer, long)} and
+ * {@link #endChunk()}; every byte is counted at most a constant number of times.
+ * Byte offsets may lie in the current chunk or up to {@code lookBehind} bytes before it,
+ * which covers matches that started in the previous chunk.
+ */
+final class CharOffsetSink implements LongConsumer {
+    private final LongConsumer downstream;
+    private final byte[] tail; // Last bytes of the stream before the current chunk
+    private int tailLength = 0;
+
+    private ByteBuffer chunk;
+    private int chunkIndex; // Buffer index of the first byte of the chunk
+    private int chunkLength;
+    private long chunkStart; // Stream offset of the first byte of the chunk
+
+    private long bytePosition; // Counted prefix of the stream in bytes...
+    private long charPosition; // ...and in characters
+
+    /**
+     * Constructs a converter for a stream starting at offset 0.
+     *
+     * @param downstream the consumer receiving character offsets
+     * @param lookBehind the maximum distance of a reported offset before the current chunk
+     */
+    CharOffsetSink(LongConsumer downstream, int lookBehind) {
+        this(downstream, lookBehind, 0, 0);
+    }
+
+    /**
+     * Constructs a converter for a stream starting at the given offsets.
+     *
+     * @param downstream the consumer receiving character offsets
+     * @param lookBehind the maximum distance of a reported offset before the current chunk
+     * @param bytePosition the byte offset of the first byte of the stream
+     * @param charPosition the character offset of the first byte of the stream
+     */
+    CharOffsetSink(LongConsumer downstream, int lookBehind, long bytePosition,
+                   long charPosition) {
+        this.downstream = downstream;
+        this.tail = new byte[lookBehind];
+        this.bytePosition = bytePosition;
+        this.charPosition = charPosition;
+        this.chunkStart = bytePosition;
+    }
+
+    /**
+     * Makes the remaining bytes of the buffer the current chunk. The buffer must not
+     * be modified until {@link #endChunk()} is called, but its position may change.
+     *
+     * @param chunk the chunk
+     * @param chunkStart the stream offset of the first remaining byte
+     */
+    void beginChunk(ByteBuffer chunk, long chunkStart) {
+        this.chunk = chunk;
+        this.chunkIndex = chunk.position();
+        this.chunkLength = chunk.remaining();
+        this.chunkStart = chunkStart;
+    }
+
+    /**
+     * Counts the rest of the current chunk and remembers its last bytes.
+     */
+    void endChunk() {
+        long chunkEnd = chunkStart + chunkLength;
+        moveTo(chunkEnd);
+
+        int kept = Math.max(0, Math.min(tailLength, tail.length - chunkLength));
+        int copied = Math.min(chunkLength, tail.length);
+        System.arraycopy(tail, tailLength - kept, tail, 0, kept);
+        for (int i = 0; i < copied; i++) {
+            tail[kept + i] = chunk.get(chunkIndex + chunkLength - copied + i);
+        }
+        tailLength = kept + copied;
+        chunk = null;
+        chunkStart = chunkEnd;
+        chunkLength = 0;
+    }
+
+    /**
+     * Converts a byte offset and passes it on.
+     *
+     * @param bytePosition the byte offset of a match
+     */
+    @Override
+    public void accept(long bytePosition) {
+        downstream.accept(charPositionAt(bytePosition));
+    }
+
+    /**
+     * Returns the character offset of a byte offset in the current chunk or its look-behind.
+     *
+     * @param bytePosition the byte offset
+     * @return the character offset
+     */
+    long charPositionAt(long bytePosition) {
+        moveTo(bytePosition);
+        return charPosition;
+    }
+
+    /**
+     * Moves the counting cursor forwards or backwards to the given byte offset.
+     *
+     * @param target the byte offset
+     */
+    private void moveTo(long target) {
+        if (target >= bytePosition) {
+            charPosition += count(bytePosition, target);
+        } else {
+            charPosition -= count(target, bytePosition);
+        }
+        bytePosition = target;
+    }
+
+    /**
+     * Counts the characters encoded by the bytes between two stream offsets.
+     *
+     * @param from the first byte (inclusive)
+     * @param to the last byte (exclusive)
+     * @return the number of UTF-16 characters
+     */
+    private long count(long from, long to) {
+        long count = 0;
+        if (from < chunkStart) {
+            int tailEnd = (int) (Math.min(to, chunkStart) - chunkStart) + tailLength;
+            count += Utf8.charCount(tail, (int) (from - chunkStart) + tailLength, tailEnd);
+            from = chunkStart;
+        }
+        if (from < to) {
+            count += Utf8.charCount(chunk, chunkIndex + (int) (from - chunkStart),
+                    chunkIndex + (int) (to - chunkStart));
+        }
+        return count;
+    }
+}
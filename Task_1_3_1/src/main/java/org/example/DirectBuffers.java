@@ -0,0 +1,49 @@
+package org.example;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+
+/**
+ * Unmaps memory-mapped buffers as soon as a scan is done with them. Otherwise a mapping
+ * stays in the address space until the garbage collector finds its buffer unreachable.
+ */
+final class DirectBuffers {
+    private static final Object UNSAFE;
+    private static final Method INVOKE_CLEANER;
+
+    static {
+        Object unsafe = null;
+        Method invokeCleaner = null;
+        try {
+            Class<?> type = Class.forName("sun.misc.Unsafe");
+            Field field = type.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            unsafe = field.get(null);
+            invokeCleaner = type.getMethod("invokeCleaner", ByteBuffer.class);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // Not available: the garbage collector unmaps the buffers
+        }
+        UNSAFE = unsafe;
+        INVOKE_CLEANER = invokeCleaner;
+    }
+
+    private DirectBuffers() {
+    }
+
+    /**
+     * Unmaps a buffer. The buffer, and any view of it, must not be used afterwards.
+     *
+     * @param buffer the mapped or direct buffer, may be {@code null}
+     */
+    static void free(ByteBuffer buffer) {
+        if (buffer == null || !buffer.isDirect() || INVOKE_CLEANER == null) {
+            return;
+        }
+        try {
+            INVOKE_CLEANER.invoke(UNSAFE, buffer);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // A slice or duplicate can not be freed on its own
+        }
+    }
+}
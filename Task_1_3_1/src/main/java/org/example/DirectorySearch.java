@@ -0,0 +1,448 @@
+package org.example;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NotDirectoryException;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Concurrent substring search over the files of a directory tree. For every search a walker
+ * thread lists the files while the worker threads of the engine's executor search them, one
+ * file per task; at most {@code concurrency} files of a search are open at any time. Matches
+ * are handed over through a bounded queue, so they can be consumed while the walk is still
+ * running, and workers wait whenever the consumer falls behind.
+ *
+ * <p>The returned stream must be closed, preferably with try-with-resources; closing it
+ * stops the walk and all running searches. Matches within one file arrive in ascending order,
+ * matches of different files are interleaved. A file that cannot be read, e.g. because it has
+ * been deleted after being listed, is skipped and passed to the error handler of the search.
+ * An I/O error of the walk itself ends the search and is rethrown by the stream as an
+ * {@link UncheckedIOException}.
+ *
+ * <p>The engine owns its executor unless one is passed to the constructor, and should be
+ * closed when it is no longer needed; idle worker threads of an owned executor exit on
+ * their own.
+ */
+public class DirectorySearch implements AutoCloseable {
+    /**
+     * The default number of files searched at once.
+     */
+    public static final int DEFAULT_CONCURRENCY = 32;
+    /**
+     * The default number of matches buffered for the consumer.
+     */
+    public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+
+    private static final FileMatch END = new FileMatch(Path.of(""), -1);
+    private static final AtomicInteger THREAD_NUMBER = new AtomicInteger();
+    private static final BiConsumer<Path, IOException> SKIP = (file, e) -> { };
+    private static final long IDLE_SECONDS = 60;
+
+    private final ExecutorService executor;
+    private final boolean ownsExecutor;
+    private final int concurrency;
+    private final int queueCapacity;
+
+    /**
+     * Constructs a search engine with the default concurrency and queue capacity.
+     */
+    public DirectorySearch() {
+        this(DEFAULT_CONCURRENCY, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * Constructs a search engine with its own pool of {@code concurrency} worker threads,
+     * shared by all its searches.
+     *
+     * @param concurrency the maximum number of files searched, and open, at once
+     * @param queueCapacity the maximum number of matches buffered for the consumer
+     */
+    public DirectorySearch(int concurrency, int queueCapacity) {
+        this(newPool(concurrency), true, concurrency, queueCapacity);
+    }
+
+    /**
+     * Constructs a search engine running its searches on the given executor, which is not
+     * shut down when the engine is closed.
+     *
+     * @param executor the executor searching the files
+     * @param concurrency the maximum number of files of one search searched, and open, at once
+     * @param queueCapacity the maximum number of matches buffered for the consumer
+     */
+    public DirectorySearch(ExecutorService executor, int concurrency, int queueCapacity) {
+        this(Objects.requireNonNull(executor, "executor"), false, concurrency, queueCapacity);
+    }
+
+    /**
+     * Constructs a search engine.
+     *
+     * @param executor the executor searching the files
+     * @param ownsExecutor {@code true} if closing the engine shuts the executor down
+     * @param concurrency the maximum number of files of one search searched at once
+     * @param queueCapacity the maximum number of matches buffered for the consumer
+     */
+    private DirectorySearch(ExecutorService executor, boolean ownsExecutor, int concurrency,
+                            int queueCapacity) {
+        if (queueCapacity <= 0) {
+            throw new IllegalArgumentException("Illegal queue capacity: " + queueCapacity);
+        }
+        this.executor = executor;
+        this.ownsExecutor = ownsExecutor;
+        this.concurrency = checkConcurrency(concurrency);
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * Searches all regular files of a directory tree for a substring, skipping the files that
+     * cannot be read.
+     *
+     * @param directory the root of the tree
+     * @param searchString the substring to search for
+     * @return a stream of the matches, which must be closed
+     * @throws IOException if the directory does not exist or is not a directory
+     * @throws IllegalArgumentException if the substring is empty
+     * @throws IllegalStateException if the engine has been closed
+     */
+    public Stream<FileMatch> find(Path directory, String searchString) throws IOException {
+        return find(directory, path -> true, searchString, SKIP);
+    }
+
+    /**
+     * Searches the regular files of a directory tree whose paths, relative to the directory,
+     * match a glob pattern, e.g. {@code "*.txt"} for the top level or {@code "**.log"} for
+     * the whole tree. The files that cannot be read are skipped.
+     *
+     * @param directory the root of the tree
+     * @param glob the glob pattern, see {@link java.nio.file.FileSystem#getPathMatcher}
+     * @param searchString the substring to search for
+     * @return a stream of the matches, which must be closed
+     * @throws IOException if the directory does not exist or is not a directory
+     * @throws IllegalArgumentException if the substring is empty or the pattern is invalid
+     * @throws IllegalStateException if the engine has been closed
+     */
+    public Stream<FileMatch> find(Path directory, String glob, String searchString)
+            throws IOException {
+        return find(directory, glob, searchString, SKIP);
+    }
+
+    /**
+     * Searches the regular files of a directory tree whose paths, relative to the directory,
+     * match a glob pattern, and passes the files that cannot be read to an error handler.
+     *
+     * @param directory the root of the tree
+     * @param glob the glob pattern, see {@link java.nio.file.FileSystem#getPathMatcher}
+     * @param searchString the substring to search for
+     * @param onError the handler of the skipped files, see
+     *         {@link #find(Path, PathMatcher, String, BiConsumer)}
+     * @return a stream of the matches, which must be closed
+     * @throws IOException if the directory does not exist or is not a directory
+     * @throws IllegalArgumentException if the substring is empty or the pattern is invalid
+     * @throws IllegalStateException if the engine has been closed
+     */
+    public Stream<FileMatch> find(Path directory, String glob, String searchString,
+                                  BiConsumer<Path, IOException> onError) throws IOException {
+        return find(directory, FileSystems.getDefault().getPathMatcher("glob:" + glob),
+                searchString, onError);
+    }
+
+    /**
+     * Searches the regular files of a directory tree whose paths, relative to the directory,
+     * are accepted by a matcher. A file that cannot be read is skipped and passed to the
+     * error handler together with the exception. The handler is called from the worker
+     * threads, possibly concurrently; an unchecked exception thrown by it ends the search
+     * and is rethrown by the stream.
+     *
+     * @param directory the root of the tree
+     * @param filter the matcher of the relative paths of the searched files
+     * @param searchString the substring to search for
+     * @param onError the handler of the skipped files
+     * @return a stream of the matches, which must be closed
+     * @throws IOException if the directory does not exist or is not a directory
+     * @throws IllegalArgumentException if the substring is empty
+     * @throws IllegalStateException if the engine has been closed
+     */
+    public Stream<FileMatch> find(Path directory, PathMatcher filter, String searchString,
+                                  BiConsumer<Path, IOException> onError) throws IOException {
+        SubstringMatcher matcher = SubstringMatcher.compile(searchString);
+        if (!Files.isDirectory(directory)) {
+            throw new NotDirectoryException(directory.toString());
+        }
+        if (executor.isShutdown()) {
+            throw new IllegalStateException("The search engine is closed");
+        }
+        Search search = new Search(directory, filter, matcher, onError);
+        search.walker.start();
+        return StreamSupport.stream(search, false).onClose(search::cancel);
+    }
+
+    /**
+     * Shuts the executor down if the engine owns it, stopping the running searches. An
+     * executor passed to the constructor is left to the caller.
+     */
+    @Override
+    public void close() {
+        if (ownsExecutor) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Checks the number of files searched at once.
+     *
+     * @param concurrency the number to check
+     * @return the number
+     * @throws IllegalArgumentException if the number is not positive
+     */
+    private static int checkConcurrency(int concurrency) {
+        if (concurrency <= 0) {
+            throw new IllegalArgumentException("Illegal concurrency: " + concurrency);
+        }
+        return concurrency;
+    }
+
+    /**
+     * Creates the pool of an engine, whose idle threads exit after {@value #IDLE_SECONDS}
+     * seconds.
+     *
+     * @param concurrency the number of threads
+     * @return the pool
+     */
+    private static ExecutorService newPool(int concurrency) {
+        checkConcurrency(concurrency);
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(concurrency, concurrency,
+                IDLE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                DirectorySearch::newThread);
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    /**
+     * Creates a daemon thread, so an unclosed stream does not keep the JVM alive.
+     *
+     * @param task the task of the thread
+     * @return the thread
+     */
+    private static Thread newThread(Runnable task) {
+        Thread thread = new Thread(task, "directory-search-" + THREAD_NUMBER.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    /**
+     * State of one directory search, consumed as a spliterator over the queue of matches.
+     */
+    private final class Search extends Spliterators.AbstractSpliterator<FileMatch> {
+        private final Path directory;
+        private final PathMatcher filter;
+        private final SubstringMatcher matcher;
+        private final BiConsumer<Path, IOException> onError;
+
+        private final BlockingQueue<FileMatch> queue = new ArrayBlockingQueue<>(queueCapacity);
+        private final Semaphore permits = new Semaphore(concurrency);
+        private final Set<FutureTask<?>> tasks = ConcurrentHashMap.newKeySet();
+        private final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        private final Thread walker = newThread(this::walk);
+        private volatile boolean cancelled;
+
+        /**
+         * Constructs the state of a search.
+         *
+         * @param directory the root of the tree
+         * @param filter the matcher of the relative paths of the searched files
+         * @param matcher the compiled matcher, forked for every file
+         * @param onError the handler of the files that cannot be read
+         */
+        Search(Path directory, PathMatcher filter, SubstringMatcher matcher,
+               BiConsumer<Path, IOException> onError) {
+            super(Long.MAX_VALUE, Spliterator.NONNULL);
+            this.directory = directory;
+            this.filter = filter;
+            this.matcher = matcher;
+            this.onError = onError;
+        }
+
+        /**
+         * Lists the files and submits them to the workers, at most {@code concurrency} at a
+         * time, then waits for all searches and ends the queue.
+         */
+        private void walk() {
+            boolean completed = false;
+            try (Stream<Path> paths = Files.walk(directory)) {
+                Iterator<Path> iterator = paths.iterator();
+                while (iterator.hasNext()) {
+                    Path file = iterator.next();
+                    if (Files.isRegularFile(file) && filter.matches(directory.relativize(file))) {
+                        permits.acquire();
+                        submit(file);
+                    }
+                }
+                permits.acquire(concurrency);
+                completed = true;
+                queue.put(END);
+            } catch (IOException e) {
+                fail(new UncheckedIOException(e));
+            } catch (UncheckedIOException | RejectedExecutionException e) {
+                fail(e);
+            } catch (InterruptedException e) {
+                // Cancelled, or failed and already reported to the consumer
+            } finally {
+                if (!completed) {
+                    stop();
+                }
+            }
+        }
+
+        /**
+         * Submits the search of a file to the executor, remembering the task until it is
+         * done so that it can be cancelled.
+         *
+         * @param file the file
+         */
+        private void submit(Path file) {
+            FutureTask<Void> task = new FutureTask<>(() -> search(file), null) {
+                @Override
+                protected void done() {
+                    tasks.remove(this);
+                }
+            };
+            tasks.add(task);
+            try {
+                executor.execute(task);
+            } catch (RejectedExecutionException e) {
+                tasks.remove(task);
+                throw e;
+            }
+        }
+
+        /**
+         * Searches a single file and puts its matches into the queue. If the file cannot be
+         * read, it is passed to the error handler.
+         *
+         * @param file the file
+         */
+        private void search(Path file) {
+            try {
+                if (!cancelled) {
+                    SubstringSearch.scan(file.toString(), matcher.fork(),
+                            position -> put(new FileMatch(file, position)), true,
+                            Long.MAX_VALUE);
+                }
+            } catch (IOException e) {
+                // Interrupted reads of a cancelled search are not errors of the file
+                if (!cancelled) {
+                    report(file, e);
+                }
+            } catch (CancellationException e) {
+                // The search has been cancelled
+            } finally {
+                permits.release();
+            }
+        }
+
+        /**
+         * Passes a skipped file to the error handler; an exception thrown by the handler
+         * ends the search.
+         *
+         * @param file the file
+         * @param e the error reading the file
+         */
+        private void report(Path file, IOException e) {
+            try {
+                onError.accept(file, e);
+            } catch (RuntimeException handlerFailure) {
+                fail(handlerFailure);
+            }
+        }
+
+        /**
+         * Puts a match into the queue, waiting while it is full.
+         *
+         * @param match the match
+         * @throws CancellationException if the worker is interrupted
+         */
+        private void put(FileMatch match) {
+            try {
+                queue.put(match);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CancellationException();
+            }
+        }
+
+        /**
+         * Records the first failure and stops the walk.
+         *
+         * @param e the failure
+         */
+        private void fail(RuntimeException e) {
+            if (failure.compareAndSet(null, e)) {
+                walker.interrupt();
+                queue.offer(END);
+            }
+        }
+
+        /**
+         * Cancels the submitted searches; those not started yet are never run.
+         */
+        private void stop() {
+            cancelled = true;
+            for (FutureTask<?> task : tasks) {
+                task.cancel(true);
+            }
+        }
+
+        /**
+         * Stops the walk and all searches and drops the buffered matches.
+         */
+        void cancel() {
+            walker.interrupt();
+            stop();
+            queue.clear();
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super FileMatch> action) {
+            FileMatch match;
+            try {
+                match = failure.get() == null ? queue.take() : END;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CancellationException("Interrupted while waiting for matches");
+            }
+            if (failure.get() != null) {
+                throw failure.get();
+            }
+            if (match == END) {
+                queue.offer(END); // Later calls end as well
+                return false;
+            }
+            action.accept(match);
+            return true;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package org.example;
+
+import java.nio.file.Path;
+
+/**
+ * An occurrence of a substring in one of several searched files.
+ */
+public final class FileMatch {
+    private final Path path;
+    private final long position;
+
+    /**
+     * Constructs a match.
+     *
+     * @param path the file containing the occurrence
+     * @param position the starting character position of the occurrence in the file
+     */
+    public FileMatch(Path path, long position) {
+        this.path = path;
+        this.position = position;
+    }
+
+    /**
+     * Returns the file containing the occurrence.
+     *
+     * @return the path of the file
+     */
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Returns the starting character position of the occurrence in the file.
+     *
+     * @return the position
+     */
+    public long getPosition() {
+        return position;
+    }
+
+    /**
+     * Compares the specified object with this match for equality.
+     *
+     * @param obj the object to be compared
+     * @return {@code true} if the object is a match in the same file at the same position
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof FileMatch)) {
+            return false;
+        }
+        FileMatch other = (FileMatch) obj;
+        return path.equals(other.path) && position == other.position;
+    }
+
+    /**
+     * Returns the hash code value for this match.
+     *
+     * @return the hash code value
+     */
+    @Override
+    public int hashCode() {
+        return 31 * path.hashCode() + Long.hashCode(position);
+    }
+
+    /**
+     * Returns a string representation of the match in the form "path:position".
+     *
+     * @return a string representation of the match
+     */
+    @Override
+    public String toString() {
+        return path + ":" + position;
+    }
+}
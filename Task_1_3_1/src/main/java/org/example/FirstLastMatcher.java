@@ -0,0 +1,47 @@
+package org.example;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Matcher that filters candidate positions by the first and the last byte of the needle
+ * and compares the rest only for the positions passing the filter. This is the scalar form
+ * of the SIMD first/last-byte prefilter; the tight loop has few branches and suits short
+ * needles, where skip tables can not skip much.
+ */
+final class FirstLastMatcher extends WindowMatcher {
+
+    /**
+     * Constructs a matcher positioned at the start of a stream.
+     *
+     * @param needle the UTF-8 encoded substring
+     */
+    FirstLastMatcher(byte[] needle) {
+        super(needle);
+    }
+
+    @Override
+    public SubstringMatcher fork() {
+        return new FirstLastMatcher(needle);
+    }
+
+    @Override
+    protected int indexOf(ByteBuffer haystack, int from, int to) {
+        byte[] needle = this.needle;
+        int last = needle.length - 1;
+        byte firstByte = needle[0];
+        byte lastByte = needle[last];
+
+        for (int s = from; s <= to - needle.length; s++) {
+            if (haystack.get(s) == firstByte && haystack.get(s + last) == lastByte) {
+                int i = 1;
+                while (i < last && haystack.get(s + i) == needle[i]) {
+                    i++;
+                }
+                if (i >= last) {
+                    return s;
+                }
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,194 @@
+package org.example;
+
+import java.nio.ByteBuffer;
+import java.util.function.LongConsumer;
+
+/**
+ * Case-insensitive Knuth-Morris-Pratt matcher working on code points. The UTF-8 stream is
+ * decoded incrementally, one code point at a time and without allocation, every code point
+ * is folded by {@link CaseFolding#fold(int)} and fed to an automaton built over the folded
+ * needle. Since a code point and its case variants may have encodings of different lengths,
+ * the starting byte offsets of the last code points are kept in a ring buffer.
+ *
+ * <p>Malformed bytes are decoded as a code point matching nothing.
+ */
+final class FoldingMatcher implements SubstringMatcher {
+    private static final int MALFORMED = -1;
+
+    private final int[] needle; // Folded code points
+    private final int[] lps;
+    private final int maxLength;
+
+    private final long[] starts; // Byte offsets of the last needle.length code points
+    private int next = 0; // Slot of the next code point, i.e. of the oldest one
+    private int state = 0;
+    private long position = 0;
+
+    private int codePoint = 0; // Bits of the code point being decoded
+    private int pending = 0; // Missing continuation bytes of the code point
+    private long codePointStart = 0;
+
+    /**
+     * Constructs a matcher from already compiled tables.
+     *
+     * @param needle the folded code points of the substring
+     * @param lps the LPS array of the folded code points
+     * @param maxLength the maximum length of a match in bytes
+     */
+    private FoldingMatcher(int[] needle, int[] lps, int maxLength) {
+        this.needle = needle;
+        this.lps = lps;
+        this.maxLength = maxLength;
+        this.starts = new long[needle.length];
+    }
+
+    /**
+     * Compiles a matcher for the given substring.
+     *
+     * @param searchString the non-empty substring to search for
+     * @return a new matcher positioned at the start of a stream
+     */
+    static FoldingMatcher compile(String searchString) {
+        int[] needle = searchString.codePoints().map(CaseFolding::fold).toArray();
+        int maxLength = 0;
+        for (int c : needle) {
+            // Case variants of a character stay in its plane, but not in its UTF-8 length
+            maxLength += c >= 0x10000 ? 4 : c >= 0x80 ? 3 : c == 'k' || c == 's' ? 3 : 1;
+        }
+        return new FoldingMatcher(needle, buildLpsArray(needle), maxLength);
+    }
+
+    @Override
+    public SubstringMatcher fork() {
+        return new FoldingMatcher(needle, lps, maxLength);
+    }
+
+    @Override
+    public void reset(long position) {
+        this.state = 0;
+        this.pending = 0;
+        this.position = position;
+    }
+
+    @Override
+    public long position() {
+        return position;
+    }
+
+    /**
+     * Returns the maximum length of a match, which may exceed the length of the encoded
+     * substring when a case variant has a longer encoding.
+     *
+     * @return the length in bytes
+     */
+    @Override
+    public int length() {
+        return maxLength;
+    }
+
+    @Override
+    public long scan(ByteBuffer chunk, LongConsumer sink, long limit) {
+        if (limit <= 0) {
+            return 0;
+        }
+        int from = chunk.position();
+        int to = chunk.limit();
+        long base = position - from; // Stream position of index 0 of the chunk
+        long found = 0;
+
+        for (int i = from; i < to; i++) {
+            int b = chunk.get(i);
+            if (pending > 0) {
+                if ((b & 0xC0) == 0x80) {
+                    codePoint = (codePoint << 6) | (b & 0x3F);
+                    if (--pending == 0 && feed(CaseFolding.fold(codePoint), sink)
+                            && ++found == limit) {
+                        to = i + 1;
+                        break;
+                    }
+                    continue;
+                }
+                // The sequence is cut short; the byte starts a new code point
+                pending = 0;
+                feed(MALFORMED, sink);
+            }
+
+            codePointStart = base + i;
+            if (b >= 0) {
+                if (feed(CaseFolding.ASCII[b], sink) && ++found == limit) {
+                    to = i + 1;
+                    break;
+                }
+            } else if ((b & 0xE0) == 0xC0) {
+                codePoint = b & 0x1F;
+                pending = 1;
+            } else if ((b & 0xF0) == 0xE0) {
+                codePoint = b & 0x0F;
+                pending = 2;
+            } else if ((b & 0xF8) == 0xF0) {
+                codePoint = b & 0x07;
+                pending = 3;
+            } else {
+                feed(MALFORMED, sink);
+            }
+        }
+
+        position += to - from;
+        chunk.position(to);
+        return found;
+    }
+
+    /**
+     * Feeds a folded code point to the automaton.
+     *
+     * @param c the folded code point starting at {@code codePointStart}
+     * @param sink the consumer receiving the start of a completed match
+     * @return {@code true} if the code point completed a match
+     */
+    private boolean feed(int c, LongConsumer sink) {
+        starts[next] = codePointStart;
+        next = next + 1 == starts.length ? 0 : next + 1;
+
+        int j = state;
+        while (j > 0 && c != needle[j]) {
+            j = lps[j - 1];
+        }
+        if (c == needle[j]) {
+            j++;
+        }
+        if (j == needle.length) {
+            // The oldest remembered code point starts the match
+            sink.accept(starts[next]);
+            state = lps[j - 1];
+            return true;
+        }
+        state = j;
+        return false;
+    }
+
+    /**
+     * Builds the longest prefix suffix (LPS) array of the folded code points.
+     *
+     * @param needle the folded code points
+     * @return the LPS array
+     */
+    private static int[] buildLpsArray(int[] needle) {
+        int[] lps = new int[needle.length];
+        int length = 0; // Length of the previous longest prefix suffix
+        int i = 1;
+
+        while (i < needle.length) {
+            if (needle[i] == needle[length]) {
+                length++;
+                lps[i] = length;
+                i++;
+            } else if (length != 0) {
+                length = lps[length - 1];
+            } else {
+                lps[i] = 0;
+                i++;
+            }
+        }
+        return lps;
+    }
+}
@@ -0,0 +1,212 @@
+package org.example;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongConsumer;
+
+/**
+ * Incremental substring search over a growing file, like {@code tail -F}. The searcher keeps
+ * the file open together with the matcher state, including partially matched bytes, and the
+ * character count between calls to {@link #poll(LongConsumer)}; every poll reads only the
+ * bytes appended since the previous one and reports only the new occurrences.
+ *
+ * <p>If the file shrinks below the searched offset it is assumed to have been truncated and is
+ * searched again from its start. If the path starts referring to another file, i.e. the log
+ * has been rotated, the rest of the old file is searched first and then the new file from its
+ * start. Positions are always character offsets within the currently followed file; use
+ * {@link #restarts()} to tell the files apart. A missing file is simply waited for.
+ *
+ * <p>A searcher is not thread-safe.
+ */
+public class FollowSearch implements Closeable {
+    private final Path file;
+    private final SubstringMatcher matcher;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(SubstringSearch.CHUNK_SIZE);
+
+    private LongConsumer target; // Sink of the current poll
+    private long found; // Matches reported by the current poll
+    private CharOffsetSink chars;
+    private FileChannel channel; // null while the file has not been opened
+    private Object fileKey; // Identity of the followed file
+    private long restarts = 0;
+
+    /**
+     * Constructs a searcher following a file from its start. The file is opened by the first
+     * poll.
+     *
+     * @param fileName the name of the file to follow
+     * @param searchString the substring to search for
+     * @throws IllegalArgumentException if the substring is empty
+     */
+    public FollowSearch(String fileName, String searchString) {
+        this.file = Path.of(fileName);
+        this.matcher = SubstringMatcher.compile(searchString);
+        this.chars = new CharOffsetSink(this::report, matcher.length() - 1);
+    }
+
+    /**
+     * Searches the bytes appended since the previous poll.
+     *
+     * @return the starting character positions of the new occurrences
+     * @throws IOException if an I/O error occurs when reading the file
+     */
+    public List<Long> poll() throws IOException {
+        List<Long> occurrences = new ArrayList<>();
+        poll(occurrences::add);
+        return occurrences;
+    }
+
+    /**
+     * Searches the bytes appended since the previous poll and passes the starting character
+     * positions of the new occurrences to the sink in ascending order, except that the
+     * positions of a rotated file precede those of its successor.
+     *
+     * @param sink the consumer receiving the positions
+     * @return the number of new occurrences
+     * @throws IOException if an I/O error occurs when reading the file
+     */
+    public long poll(LongConsumer sink) throws IOException {
+        target = sink;
+        found = 0;
+        try {
+            if (channel == null && !open()) {
+                return 0;
+            }
+            if (channel.size() < matcher.position()) {
+                restart(); // Truncated in place
+            }
+            drain();
+
+            BasicFileAttributes attributes = attributes();
+            if (attributes != null && !identity(attributes).equals(fileKey)) {
+                channel.close();
+                channel = null;
+                restart();
+                if (open()) {
+                    drain();
+                }
+            }
+            return found;
+        } finally {
+            target = null;
+        }
+    }
+
+    /**
+     * Returns the byte offset up to which the current file has been searched.
+     *
+     * @return the number of searched bytes
+     */
+    public long position() {
+        return matcher.position();
+    }
+
+    /**
+     * Returns how many times the search has started over because the file has been truncated
+     * or rotated.
+     *
+     * @return the number of restarts
+     */
+    public long restarts() {
+        return restarts;
+    }
+
+    /**
+     * Closes the followed file.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    /**
+     * Opens the file if it exists.
+     *
+     * @return {@code true} if the file has been opened
+     * @throws IOException if an I/O error occurs when opening the file
+     */
+    private boolean open() throws IOException {
+        try {
+            channel = FileChannel.open(file, StandardOpenOption.READ);
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+        BasicFileAttributes attributes = attributes();
+        fileKey = attributes == null ? null : identity(attributes);
+        return true;
+    }
+
+    /**
+     * Reads the attributes of the file the path currently refers to.
+     *
+     * @return the attributes, or {@code null} if there is no such file
+     * @throws IOException if an I/O error occurs
+     */
+    private BasicFileAttributes attributes() throws IOException {
+        try {
+            return Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns an object identifying a file: its file key or, on file systems without file
+     * keys, its creation time.
+     *
+     * @param attributes the attributes of the file
+     * @return the identity of the file
+     */
+    private static Object identity(BasicFileAttributes attributes) {
+        return attributes.fileKey() != null ? attributes.fileKey() : attributes.creationTime();
+    }
+
+    /**
+     * Forgets all state and starts searching from the beginning of a file.
+     */
+    private void restart() {
+        matcher.reset(0);
+        chars = new CharOffsetSink(this::report, matcher.length() - 1);
+        restarts++;
+    }
+
+    /**
+     * Searches the open file from the searched offset to its current end.
+     *
+     * @throws IOException if an I/O error occurs when reading the file
+     */
+    private void drain() throws IOException {
+        while (channel.read(buffer, matcher.position()) > 0) {
+            buffer.flip();
+            chars.beginChunk(buffer, matcher.position());
+            // The matcher keeps partial matches for the next chunk or poll
+            matcher.scan(buffer, chars);
+            chars.endChunk();
+            buffer.clear();
+        }
+    }
+
+    /**
+     * Passes a character position to the sink of the current poll.
+     *
+     * @param position the character position
+     */
+    private void report(long position) {
+        found++;
+        target.accept(position);
+    }
+}
@@ -0,0 +1,150 @@
+package org.example;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Boyer-Moore-Horspool matcher. The window is compared from its last byte and, on a
+ * mismatch, shifted by the distance from that byte's last occurrence in the needle to the
+ * needle's end, so long needles skip most of the input.
+ *
+ * <p>Horspool is O(n * m) in the worst case: a needle like {@code bcaaa...a} in a text of
+ * {@code a}s compares almost the whole needle for every byte it advances. The matcher
+ * therefore counts the comparisons spent verifying windows, and once they exceed
+ * {@value #MAX_COMPARISONS_PER_BYTE} per byte of input it falls back to Knuth-Morris-Pratt
+ * for the rest of the stream.
+ */
+final class HorspoolMatcher extends WindowMatcher {
+    /**
+     * Comparisons per byte of input the matcher may spend verifying windows before it falls
+     * back to Knuth-Morris-Pratt. Typical input needs far fewer.
+     */
+    static final int MAX_COMPARISONS_PER_BYTE = 4;
+
+    private final int[] shift;
+    private final int[] lps;
+
+    private long budget; // Comparisons left, grows with every window start passed
+    private boolean linear = false; // Whether the matcher fell back to KMP
+
+    /**
+     * Constructs a matcher and its shift table.
+     *
+     * @param needle the UTF-8 encoded substring
+     */
+    HorspoolMatcher(byte[] needle) {
+        this(needle, buildShiftTable(needle), KmpMatcher.buildLpsArray(needle));
+    }
+
+    /**
+     * Constructs a matcher sharing the compiled tables.
+     *
+     * @param needle the UTF-8 encoded substring
+     * @param shift the shift table
+     * @param lps the LPS array used after falling back to KMP
+     */
+    private HorspoolMatcher(byte[] needle, int[] shift, int[] lps) {
+        super(needle);
+        this.shift = shift;
+        this.lps = lps;
+        this.budget = initialBudget();
+    }
+
+    @Override
+    public SubstringMatcher fork() {
+        return new HorspoolMatcher(needle, shift, lps);
+    }
+
+    @Override
+    public void reset(long position) {
+        super.reset(position);
+        budget = initialBudget();
+        linear = false;
+    }
+
+    @Override
+    protected int indexOf(ByteBuffer haystack, int from, int to) {
+        if (linear) {
+            return linearIndexOf(haystack, from, to);
+        }
+        byte[] needle = this.needle;
+        int last = needle.length - 1;
+        byte lastByte = needle[last];
+        long spent = 0;
+
+        for (int s = from; s <= to - needle.length; ) {
+            byte b = haystack.get(s + last);
+            if (b == lastByte) {
+                int i = last - 1;
+                while (i >= 0 && haystack.get(s + i) == needle[i]) {
+                    i--;
+                }
+                if (i < 0) {
+                    budget += (long) MAX_COMPARISONS_PER_BYTE * (s - from) - spent;
+                    return s;
+                }
+                // Only verifications are counted, the shifts are paid for by the progress
+                spent += last - i;
+                if (spent > budget + (long) MAX_COMPARISONS_PER_BYTE * (s - from)) {
+                    linear = true;
+                    return linearIndexOf(haystack, s + 1, to);
+                }
+            }
+            s += shift[b & 0xFF];
+        }
+        // Credit only the window starts passed, the seam and the chunk do not share any
+        int passed = Math.max(0, to - needle.length + 1 - from);
+        budget += (long) MAX_COMPARISONS_PER_BYTE * passed - spent;
+        return -1;
+    }
+
+    /**
+     * Returns the index of the first match in a range of the haystack, reading every byte
+     * once like KMP. Every call starts with no partial match, which keeps the search linear
+     * since matches of a needle without a long border do not overlap much.
+     *
+     * @param haystack the bytes to search
+     * @param from the first index a match may start at
+     * @param to the index after the last byte a match may cover
+     * @return the index where the first match starts, or -1 if there is none
+     */
+    private int linearIndexOf(ByteBuffer haystack, int from, int to) {
+        byte[] needle = this.needle;
+        int j = 0; // Number of needle bytes matched so far
+        for (int s = from; s < to; s++) {
+            byte b = haystack.get(s);
+            while (j > 0 && b != needle[j]) {
+                j = lps[j - 1];
+            }
+            if (b == needle[j] && ++j == needle.length) {
+                return s - needle.length + 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the comparisons a fresh stream may spend before any progress, enough to
+     * verify one full window.
+     *
+     * @return the initial budget
+     */
+    private long initialBudget() {
+        return (long) MAX_COMPARISONS_PER_BYTE * needle.length;
+    }
+
+    /**
+     * Builds the bad character shift table of the needle.
+     *
+     * @param needle the UTF-8 encoded substring
+     * @return the shift for every byte value
+     */
+    private static int[] buildShiftTable(byte[] needle) {
+        int[] shift = new int[256];
+        Arrays.fill(shift, needle.length);
+        for (int i = 0; i < needle.length - 1; i++) {
+            shift[needle[i] & 0xFF] = needle.length - 1 - i;
+        }
+        return shift;
+    }
+}
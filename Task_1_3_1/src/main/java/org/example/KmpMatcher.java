@@ -0,0 +1,186 @@
+package org.example;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.function.LongConsumer;
+
+/**
+ * A compiled Knuth-Morris-Pratt matcher for a UTF-8 encoded substring.
+ * The LPS table is built once by {@link #compile(String)}; the automaton state and the
+ * number of consumed bytes are kept between calls to {@link #scan(ByteBuffer, LongConsumer)},
+ * so a stream can be fed chunk by chunk and matches crossing chunk boundaries are found
+ * without copying or shifting any buffer. A scan is linear in the number of bytes no matter
+ * how dense the matches are.
+ *
+ * <p>A matcher is not thread-safe; use {@link #fork()} to obtain an independent matcher
+ * sharing the compiled tables.
+ *
+ * @see MatchAlgorithm#KMP
+ */
+public final class KmpMatcher implements SubstringMatcher {
+    private final byte[] needle;
+    private final int[] lps;
+    private final int charLength;
+
+    private int state = 0; // Number of needle bytes matched so far
+    private long position = 0; // Number of bytes consumed so far
+
+    /**
+     * Constructs a matcher from already compiled tables.
+     *
+     * @param needle the UTF-8 encoded substring
+     * @param lps the LPS array of the needle
+     * @param charLength the length of the substring in UTF-16 characters
+     */
+    private KmpMatcher(byte[] needle, int[] lps, int charLength) {
+        this.needle = needle;
+        this.lps = lps;
+        this.charLength = charLength;
+    }
+
+    /**
+     * Compiles a matcher for the given substring.
+     *
+     * @param searchString the substring to search for
+     * @return a new matcher positioned at the start of a stream
+     * @throws IllegalArgumentException if the substring is empty
+     */
+    public static KmpMatcher compile(String searchString) {
+        byte[] needle = searchString.getBytes(StandardCharsets.UTF_8);
+        if (needle.length == 0) {
+            throw new IllegalArgumentException("Search string must not be empty");
+        }
+        return new KmpMatcher(needle, buildLpsArray(needle), searchString.length());
+    }
+
+    /**
+     * Returns a new matcher for the same substring, sharing the compiled tables,
+     * positioned at the start of a stream.
+     *
+     * @return an independent matcher
+     */
+    @Override
+    public KmpMatcher fork() {
+        return new KmpMatcher(needle, lps, charLength);
+    }
+
+    /**
+     * Forgets any partial match and restarts the stream at position 0.
+     */
+    public void reset() {
+        reset(0);
+    }
+
+    /**
+     * Forgets any partial match and restarts the stream at the given position.
+     *
+     * @param position the byte offset of the next byte passed to the matcher
+     */
+    @Override
+    public void reset(long position) {
+        this.state = 0;
+        this.position = position;
+    }
+
+    /**
+     * Returns the byte offset of the next byte the matcher expects.
+     *
+     * @return the number of consumed bytes, counted from the last reset
+     */
+    @Override
+    public long position() {
+        return position;
+    }
+
+    /**
+     * Returns the length of the UTF-8 encoded substring.
+     *
+     * @return the length in bytes
+     */
+    @Override
+    public int length() {
+        return needle.length;
+    }
+
+    /**
+     * Returns the length of the substring in UTF-16 characters.
+     *
+     * @return the length in characters
+     */
+    public int charLength() {
+        return charLength;
+    }
+
+    /**
+     * Feeds the chunk to the automaton until {@code limit} matches have been reported.
+     * If the limit is reached, the chunk's position is left right after the last byte of
+     * the last match, otherwise it is advanced to the chunk's limit.
+     *
+     * @param chunk the next bytes of the stream
+     * @param sink the consumer receiving the match positions in ascending order
+     * @param limit the maximum number of matches to report
+     * @return the number of reported matches
+     */
+    @Override
+    public long scan(ByteBuffer chunk, LongConsumer sink, long limit) {
+        if (limit <= 0) {
+            return 0;
+        }
+        byte[] needle = this.needle;
+        int[] lps = this.lps;
+        int from = chunk.position();
+        int to = chunk.limit();
+        long base = position - from; // Stream position of index 0 of the chunk
+        int j = state;
+        long found = 0;
+
+        for (int i = from; i < to; i++) {
+            byte b = chunk.get(i);
+            while (j > 0 && b != needle[j]) {
+                j = lps[j - 1];
+            }
+            if (b == needle[j]) {
+                j++;
+            }
+            if (j == needle.length) {
+                sink.accept(base + i - j + 1);
+                j = lps[j - 1];
+                if (++found == limit) {
+                    to = i + 1;
+                    break;
+                }
+            }
+        }
+
+        state = j;
+        position += to - from;
+        chunk.position(to);
+        return found;
+    }
+
+    /**
+     * Builds the longest prefix suffix (LPS) array for the KMP algorithm.
+     *
+     * @param needle the bytes for which to build the LPS array
+     * @return the LPS array
+     */
+    static int[] buildLpsArray(byte[] needle) {
+        int[] lps = new int[needle.length];
+        int length = 0; // Length of the previous longest prefix suffix
+        int i = 1;
+
+        while (i < needle.length) {
+            if (needle[i] == needle[length]) {
+                length++;
+                lps[i] = length;
+                i++;
+            } else if (length != 0) {
+                length = lps[length - 1];
+            } else {
+                lps[i] = 0;
+                i++;
+            }
+        }
+        return lps;
+    }
+}
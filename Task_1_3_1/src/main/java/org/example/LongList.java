@@ -0,0 +1,105 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * A growable list of primitive {@code long} values. It can be passed to the search methods
+ * as a {@link LongConsumer} to collect positions without boxing them.
+ */
+public final class LongList implements LongConsumer {
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private long[] values;
+    private int size = 0;
+
+    /**
+     * Constructs an empty list with the default initial capacity (16).
+     */
+    public LongList() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs an empty list with the specified initial capacity.
+     *
+     * @param initialCapacity the initial capacity of the list
+     */
+    public LongList(int initialCapacity) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("Negative capacity: " + initialCapacity);
+        }
+        values = new long[initialCapacity];
+    }
+
+    /**
+     * Appends a value to the end of the list.
+     *
+     * @param value the value to append
+     */
+    public void add(long value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, Math.max(DEFAULT_CAPACITY, size * 2));
+        }
+        values[size++] = value;
+    }
+
+    /**
+     * Appends a value to the end of the list.
+     *
+     * @param value the value to append
+     */
+    @Override
+    public void accept(long value) {
+        add(value);
+    }
+
+    /**
+     * Returns the value at the specified index.
+     *
+     * @param index the index of the value
+     * @return the value
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    public long get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+        }
+        return values[index];
+    }
+
+    /**
+     * Returns the number of values in the list.
+     *
+     * @return the number of values
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Removes all values from the list, keeping its capacity.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Returns an array containing the values of the list in order.
+     *
+     * @return a new array of the values
+     */
+    public long[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+
+    /**
+     * Returns a string representation of the list in the form "[a, b, c]".
+     *
+     * @return a string representation of the list
+     */
+    @Override
+    public String toString() {
+        return Arrays.toString(toArray());
+    }
+}
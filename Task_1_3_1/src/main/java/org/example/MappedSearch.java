@@ -0,0 +1,64 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.LongConsumer;
+
+/**
+ * Searches for a substring directly in the raw bytes of a memory-mapped file.
+ * The needle is encoded to UTF-8 once and compared with the file contents byte by byte,
+ * so the file is never decoded into characters.
+ */
+final class MappedSearch {
+    /**
+     * Size of a single mapped window. A mapping can not exceed 2 GB, so larger files
+     * are mapped window by window.
+     */
+    static final long WINDOW_SIZE = 1L << 30;
+
+    private MappedSearch() {
+    }
+
+    /**
+     * Searches for all occurrences of a substring in a memory-mapped file.
+     *
+     * @param fileName the name of the file to search
+     * @param searchString the substring to search for in the file
+     * @param charOffsets {@code true} to report UTF-16 character offsets,
+     *                    {@code false} to report byte offsets
+     * @param sink the consumer receiving the starting positions in ascending order
+     * @throws IOException if an I/O error occurs when reading the file
+     */
+    static void find(String fileName, String searchString, boolean charOffsets,
+                     LongConsumer sink) throws IOException {
+        SubstringMatcher matcher = SubstringMatcher.compile(searchString);
+        CharOffsetSink charSink = new CharOffsetSink(sink, matcher.length() - 1);
+
+        try (FileChannel channel = FileChannel.open(Path.of(fileName), StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+
+            // The matcher keeps partial matches from one window to the next,
+            // so the windows do not need to overlap
+            for (long windowStart = 0; windowStart < fileSize; windowStart += WINDOW_SIZE) {
+                long windowLength = Math.min(WINDOW_SIZE, fileSize - windowStart);
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY,
+                        windowStart, windowLength);
+                try {
+                    if (charOffsets) {
+                        charSink.beginChunk(window, windowStart);
+                        matcher.scan(window, charSink);
+                        charSink.endChunk();
+                    } else {
+                        matcher.scan(window, sink);
+                    }
+                } finally {
+                    // Unmap now rather than keep every window of a large file mapped
+                    DirectBuffers.free(window);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package org.example;
+
+/**
+ * An occurrence of one of several substrings searched for at once.
+ */
+public final class Match {
+    private final int patternId;
+    private final long position;
+
+    /**
+     * Constructs a match.
+     *
+     * @param patternId the index of the substring in the searched collection
+     * @param position the starting position of the occurrence
+     */
+    public Match(int patternId, long position) {
+        this.patternId = patternId;
+        this.position = position;
+    }
+
+    /**
+     * Returns the index of the found substring in the searched collection.
+     *
+     * @return the index of the substring
+     */
+    public int getPatternId() {
+        return patternId;
+    }
+
+    /**
+     * Returns the starting position of the occurrence.
+     *
+     * @return the position
+     */
+    public long getPosition() {
+        return position;
+    }
+
+    /**
+     * Compares the specified object with this match for equality.
+     *
+     * @param obj the object to be compared
+     * @return {@code true} if the object is a match of the same substring at the same position
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof Match)) {
+            return false;
+        }
+        Match other = (Match) obj;
+        return patternId == other.patternId && position == other.position;
+    }
+
+    /**
+     * Returns the hash code value for this match.
+     *
+     * @return the hash code value
+     */
+    @Override
+    public int hashCode() {
+        return 31 * patternId + Long.hashCode(position);
+    }
+
+    /**
+     * Returns a string representation of the match in the form "patternId@position".
+     *
+     * @return a string representation of the match
+     */
+    @Override
+    public String toString() {
+        return patternId + "@" + position;
+    }
+}
@@ -0,0 +1,74 @@
+package org.example;
+
+/**
+ * Algorithms a {@link SubstringMatcher} can be compiled with.
+ */
+public enum MatchAlgorithm {
+    /**
+     * Chooses the algorithm from the needle's length and alphabet.
+     */
+    AUTO,
+    /**
+     * Knuth-Morris-Pratt: looks at every byte once, linear even in the worst case.
+     */
+    KMP,
+    /**
+     * Boyer-Moore-Horspool: skips up to the needle's length on a mismatch,
+     * sublinear on average for long needles over a large alphabet. Falls back to
+     * {@link #KMP} for the rest of the stream once the input makes it spend more than a few
+     * comparisons per byte.
+     */
+    HORSPOOL,
+    /**
+     * Compares the first and the last byte of the needle before the rest of it.
+     * A tight loop with few branches, best for short needles.
+     */
+    FIRST_LAST;
+
+    /**
+     * Needles shorter than this are matched with {@link #FIRST_LAST}.
+     */
+    private static final int SHORT_NEEDLE = 4;
+
+    /**
+     * Chooses the fastest algorithm for the needle. Short needles use {@link #FIRST_LAST}.
+     * Needles over a tiny alphabet (like {@code aaaab}) or highly periodic ones, whose
+     * longest border covers more than half of them (like {@code abcabcab}), make skip-based
+     * algorithms degrade to quadratic time and use {@link #KMP}; all other
+     * needles use {@link #HORSPOOL}, which guards itself against inputs that still make it
+     * degrade.
+     *
+     * @param needle the UTF-8 encoded substring
+     * @return the chosen algorithm, never {@link #AUTO}
+     */
+    static MatchAlgorithm choose(byte[] needle) {
+        if (needle.length < SHORT_NEEDLE) {
+            return FIRST_LAST;
+        }
+
+        boolean[] seen = new boolean[256];
+        int distinct = 0;
+        for (byte b : needle) {
+            if (!seen[b & 0xFF]) {
+                seen[b & 0xFF] = true;
+                distinct++;
+            }
+        }
+        if (distinct <= 2 || hasLongBorder(needle)) {
+            return KMP;
+        }
+        return HORSPOOL;
+    }
+
+    /**
+     * Checks whether the needle has a proper prefix that is also a suffix and covers more
+     * than half of it, i.e. whether the needle is highly periodic.
+     *
+     * @param needle the UTF-8 encoded substring
+     * @return {@code true} if the longest border is longer than half of the needle
+     */
+    private static boolean hasLongBorder(byte[] needle) {
+        int[] lps = KmpMatcher.buildLpsArray(needle);
+        return lps[needle.length - 1] * 2 > needle.length;
+    }
+}
@@ -0,0 +1,737 @@
+package org.example;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongConsumer;
+
+/**
+ * Persistent n-gram inverted index of a large, immutable UTF-8 file, stored next to the
+ * file with the {@value #INDEX_SUFFIX} suffix. Every byte trigram of the file is hashed
+ * into one of 65536 buckets, and each bucket lists the byte offsets of its trigrams in
+ * ascending order as varint-encoded deltas, mostly one or two bytes each. A query decodes
+ * the postings of the rarest bucket of the needle, intersects them with the second rarest
+ * unless that one is much larger, and verifies the survivors against the file, so its cost
+ * follows the size of the rarest bucket rather than the file size. Character offsets are
+ * recovered from checkpoints stored every 4 KB.
+ *
+ * <p>Trigrams are hashed instead of having a bucket each: a directory of all 2<sup>24</sup>
+ * trigrams would take hundreds of megabytes on disk and in the heap of the build even for a
+ * small file. A collision only adds candidates, which the second trigram and the
+ * verification reject.
+ *
+ * <p>The build reads the file once to count the postings of every bucket and their encoded
+ * size, then once more for every group of adjacent buckets whose postings fit in memory,
+ * encoding the group in memory and appending it to the index sequentially. Files whose
+ * postings fit in a quarter of the heap are read twice.
+ *
+ * <p>The index remembers the size and modification time of the file. If either has changed,
+ * or the index is missing, queries fall back to a full scan with
+ * {@link SubstringSearch#find(String, String, LongConsumer)}; so do needles shorter than
+ * {@value #GRAM_LENGTH} bytes. Queries keep their state to themselves, so an opened index may
+ * be queried from several threads at once.
+ */
+public final class NgramIndex implements Closeable {
+    /**
+     * The length of the indexed n-grams in bytes.
+     */
+    public static final int GRAM_LENGTH = 3;
+    /**
+     * The suffix appended to the file name to obtain the name of the index.
+     */
+    public static final String INDEX_SUFFIX = ".ngram";
+
+    private static final int MAGIC = 0x4E47524D; // "NGRM"
+    private static final int VERSION = 2;
+    private static final int BUCKET_BITS = 16;
+    private static final int BUCKETS = 1 << BUCKET_BITS;
+    private static final int CHECKPOINT_SHIFT = 12; // A checkpoint every 4 KB
+    private static final int HEADER_SIZE = 32;
+    private static final int WINDOW_SHIFT = 30; // Files are mapped in 1 GB windows
+    private static final long MAX_GROUP_SIZE = 1L << 30; // Encoded in a byte array
+    /**
+     * The second trigram filters the candidates only if its bucket is at most this many
+     * times larger than the rarest one, since its postings are decoded in full.
+     */
+    private static final int SECOND_FILTER_RATIO = 16;
+
+    private final Path file;
+    private final FileChannel source;
+    private final FileChannel index; // null if there is no valid index
+    private final long indexedSize;
+    private final long indexedModified;
+    private final ByteBuffer directory; // Bucket offsets, bucket sizes, checkpoints
+    private final MappedByteBuffer[] postingWindows;
+    private final MappedByteBuffer[] sourceWindows;
+
+    /**
+     * Opens the source file and, if present and still describing it, its index.
+     *
+     * @param file the indexed file
+     * @throws IOException if an I/O error occurs when opening the files
+     */
+    private NgramIndex(Path file) throws IOException {
+        this.file = file;
+        this.source = FileChannel.open(file, StandardOpenOption.READ);
+        Path indexFile = indexPath(file);
+        FileChannel indexChannel = null;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        ByteBuffer directoryBuffer = null;
+        MappedByteBuffer[] postings = new MappedByteBuffer[0];
+        MappedByteBuffer[] sources = new MappedByteBuffer[0];
+
+        try {
+            if (Files.isRegularFile(indexFile)) {
+                indexChannel = FileChannel.open(indexFile, StandardOpenOption.READ);
+                while (header.hasRemaining() && indexChannel.read(header) >= 0) {
+                    // Read the whole header
+                }
+                header.flip();
+                // An index of another format or of an older file is not used, and the file
+                // is not mapped since it may be shorter than the index says
+                if (header.remaining() < HEADER_SIZE || header.getInt(0) != MAGIC
+                        || header.getInt(4) != VERSION || header.getInt(24) != GRAM_LENGTH
+                        || header.getInt(28) != BUCKET_BITS
+                        || header.getLong(8) != source.size()
+                        || header.getLong(16) != Files.getLastModifiedTime(file).toMillis()) {
+                    indexChannel.close();
+                    indexChannel = null;
+                }
+            }
+            if (indexChannel != null) {
+                long directorySize = 8L * (2 * BUCKETS + 1 + checkpointCount(header.getLong(8)));
+                directoryBuffer = indexChannel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE,
+                        directorySize);
+                long postingsStart = HEADER_SIZE + directorySize;
+                postings = mapWindows(indexChannel, postingsStart,
+                        indexChannel.size() - postingsStart);
+                sources = mapWindows(source, 0, header.getLong(8));
+            }
+        } catch (IOException | RuntimeException e) {
+            DirectBuffers.free(directoryBuffer);
+            freeWindows(postings);
+            source.close();
+            if (indexChannel != null) {
+                indexChannel.close();
+            }
+            throw e;
+        }
+
+        this.index = indexChannel;
+        this.indexedSize = index == null ? -1 : header.getLong(8);
+        this.indexedModified = index == null ? -1 : header.getLong(16);
+        this.directory = directoryBuffer;
+        this.postingWindows = postings;
+        this.sourceWindows = sources;
+    }
+
+    /**
+     * Builds the index of a file, overwriting any existing index, and opens it.
+     *
+     * @param fileName the name of the file to index
+     * @return the opened index
+     * @throws IOException if an I/O error occurs when reading the file or writing the index
+     */
+    public static NgramIndex build(String fileName) throws IOException {
+        Path file = Path.of(fileName);
+        long modified = Files.getLastModifiedTime(file).toMillis();
+
+        try (FileChannel source = FileChannel.open(file, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(indexPath(file), StandardOpenOption.WRITE,
+                     StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            long size = source.size();
+            long[] checkpoints = new long[checkpointCount(size)];
+            long[] offsets = new long[BUCKETS + 1];
+            long[] counts = new long[BUCKETS];
+            long[] previous = new long[BUCKETS];
+
+            // First pass: count the postings of every bucket and their encoded size
+            readGrams(source, checkpoints, (gram, position) -> {
+                int bucket = bucket(gram);
+                offsets[bucket + 1] += varintLength(position - previous[bucket]);
+                previous[bucket] = position;
+                counts[bucket]++;
+            });
+            for (int b = 0; b < BUCKETS; b++) {
+                offsets[b + 1] += offsets[b];
+            }
+
+            // Then a pass per group of buckets fitting in memory, appended in bucket order.
+            // A single bucket larger than that is written out as it is encoded
+            long postingsStart = HEADER_SIZE
+                    + 8L * (offsets.length + counts.length + checkpoints.length);
+            long budget = Math.max(1 << 16,
+                    Math.min(MAX_GROUP_SIZE, Runtime.getRuntime().maxMemory() / 4));
+            for (int first = 0, last; first < BUCKETS; first = last) {
+                last = first + 1;
+                while (last < BUCKETS && offsets[last + 1] - offsets[first] <= budget) {
+                    last++;
+                }
+                long groupSize = offsets[last] - offsets[first];
+                if (groupSize > 0) {
+                    GroupWriter writer = new GroupWriter(out, postingsStart, offsets, first,
+                            last, (int) Math.min(groupSize, budget));
+                    readGrams(source, null, writer);
+                    writer.finish();
+                }
+            }
+
+            writeLongs(out, HEADER_SIZE, offsets);
+            writeLongs(out, HEADER_SIZE + 8L * offsets.length, counts);
+            writeLongs(out, HEADER_SIZE + 8L * (offsets.length + counts.length), checkpoints);
+            // The header is written last, so an interrupted build leaves no valid index
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(VERSION).putLong(size).putLong(modified)
+                    .putInt(GRAM_LENGTH).putInt(BUCKET_BITS).flip();
+            out.write(header, 0);
+        }
+        return open(fileName);
+    }
+
+    /**
+     * Opens a file together with its index. If the file has no index, the returned object
+     * answers queries by scanning the file.
+     *
+     * @param fileName the name of the indexed file
+     * @return the opened index
+     * @throws IOException if an I/O error occurs when opening the files
+     */
+    public static NgramIndex open(String fileName) throws IOException {
+        return new NgramIndex(Path.of(fileName));
+    }
+
+    /**
+     * Checks whether the index exists and still describes the file, i.e. the file's size and
+     * modification time are the ones recorded when the index was built.
+     *
+     * @return {@code true} if queries are answered from the index
+     * @throws IOException if the file's attributes can not be read
+     */
+    public boolean isCurrent() throws IOException {
+        return index != null && Files.size(file) == indexedSize
+                && Files.getLastModifiedTime(file).toMillis() == indexedModified;
+    }
+
+    /**
+     * Searches for all occurrences of a substring in the indexed file.
+     *
+     * @param searchString the substring to search for
+     * @return a list of starting character positions of each occurrence of the substring
+     * @throws IOException if an I/O error occurs when reading the file or the index
+     * @throws IllegalArgumentException if the substring is empty
+     */
+    public List<Long> find(String searchString) throws IOException {
+        List<Long> occurrences = new ArrayList<>();
+        find(searchString, occurrences::add);
+        return occurrences;
+    }
+
+    /**
+     * Searches for all occurrences of a substring in the indexed file and passes their
+     * starting character positions to the sink in ascending order.
+     *
+     * @param searchString the substring to search for
+     * @param sink the consumer receiving the positions
+     * @throws IOException if an I/O error occurs when reading the file or the index
+     * @throws IllegalArgumentException if the substring is empty
+     */
+    public void find(String searchString, LongConsumer sink) throws IOException {
+        byte[] needle = searchString.getBytes(StandardCharsets.UTF_8);
+        if (needle.length == 0) {
+            throw new IllegalArgumentException("Search string must not be empty");
+        }
+        if (needle.length < GRAM_LENGTH || !isCurrent()) {
+            SubstringSearch.find(file.toString(), searchString, sink);
+            return;
+        }
+
+        // The rarest trigram yields the candidates, the second rarest filters them
+        int gramCount = needle.length - GRAM_LENGTH + 1;
+        int[] buckets = new int[gramCount];
+        int best = 0;
+        for (int i = 0; i < gramCount; i++) {
+            buckets[i] = bucket(gramAt(needle, i));
+            if (bucketSize(buckets[i]) == 0) {
+                return;
+            }
+            if (bucketSize(buckets[i]) < bucketSize(buckets[best])) {
+                best = i;
+            }
+        }
+        int second = -1;
+        for (int i = 0; i < gramCount; i++) {
+            if (buckets[i] != buckets[best]
+                    && (second < 0 || bucketSize(buckets[i]) < bucketSize(buckets[second]))) {
+                second = i;
+            }
+        }
+        if (second >= 0 && bucketSize(buckets[second])
+                > SECOND_FILTER_RATIO * bucketSize(buckets[best])) {
+            second = -1; // Verifying the candidates is cheaper than decoding the bucket
+        }
+
+        Postings candidates = new Postings(buckets[best]);
+        Postings filter = second < 0 ? null : new Postings(buckets[second]);
+        CharCounter chars = new CharCounter();
+        while (candidates.hasNext()) {
+            long start = candidates.next() - best;
+            if (start < 0 || start + needle.length > indexedSize) {
+                continue;
+            }
+            if (filter != null && !filter.skipTo(start + second)) {
+                continue;
+            }
+            if (matchesAt(start, needle)) {
+                sink.accept(chars.charOffset(start));
+            }
+        }
+    }
+
+    /**
+     * Unmaps the index and the file and closes them.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void close() throws IOException {
+        DirectBuffers.free(directory);
+        freeWindows(postingWindows);
+        freeWindows(sourceWindows);
+        try {
+            source.close();
+        } finally {
+            if (index != null) {
+                index.close();
+            }
+        }
+    }
+
+    /**
+     * Returns the path of the index of a file.
+     *
+     * @param file the indexed file
+     * @return the path of its index
+     */
+    static Path indexPath(Path file) {
+        return file.resolveSibling(file.getFileName() + INDEX_SUFFIX);
+    }
+
+    /**
+     * Receives the trigrams of a file.
+     */
+    @FunctionalInterface
+    private interface GramVisitor {
+        /**
+         * Called for every trigram.
+         *
+         * @param gram the three bytes of the trigram
+         * @param position the byte offset of the trigram
+         * @throws IOException if the visitor fails to write
+         */
+        void visit(int gram, long position) throws IOException;
+    }
+
+    /**
+     * Reads a file and passes all of its trigrams to the visitor in ascending order.
+     *
+     * @param source the file
+     * @param checkpoints the array receiving the character offset of every 4 KB boundary,
+     *                    or {@code null}
+     * @param visitor the visitor
+     * @throws IOException if an I/O error occurs when reading the file
+     */
+    private static void readGrams(FileChannel source, long[] checkpoints, GramVisitor visitor)
+            throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(SubstringSearch.CHUNK_SIZE);
+        long position = 0;
+        long chars = 0;
+        int gram = 0;
+        source.position(0);
+
+        while (source.read(buffer) != -1) {
+            buffer.flip();
+            for (int i = 0; i < buffer.limit(); i++, position++) {
+                int b = buffer.get(i);
+                if (checkpoints != null) {
+                    if ((position & ((1 << CHECKPOINT_SHIFT) - 1)) == 0) {
+                        checkpoints[(int) (position >>> CHECKPOINT_SHIFT)] = chars;
+                    }
+                    if ((b & 0xC0) != 0x80) {
+                        chars += (b & 0xF8) == 0xF0 ? 2 : 1;
+                    }
+                }
+                gram = ((gram << 8) | (b & 0xFF)) & 0xFFFFFF;
+                if (position >= GRAM_LENGTH - 1) {
+                    visitor.visit(gram, position - (GRAM_LENGTH - 1));
+                }
+            }
+            buffer.clear();
+        }
+    }
+
+    /**
+     * Encodes the postings of a group of adjacent buckets into memory and appends them to the
+     * index. The buffer holds the whole group, except for a group of a single bucket, which
+     * is written out whenever the buffer fills.
+     */
+    private static final class GroupWriter implements GramVisitor {
+        private final FileChannel out;
+        private final int first;
+        private final int last;
+        private final byte[] buffer;
+        private final int[] cursors; // Next byte of every bucket in the buffer
+        private final long[] previous; // Last posting of every bucket
+        private long flushed; // Offset in the index the buffer is written at
+
+        /**
+         * Constructs a writer of the buckets from {@code first} (inclusive) to {@code last}
+         * (exclusive).
+         *
+         * @param out the index
+         * @param postingsStart the offset of the postings in the index
+         * @param offsets the offsets of the postings of every bucket
+         * @param first the first bucket
+         * @param last the bucket after the last one
+         * @param bufferSize the size of the group, or less for a single bucket
+         */
+        GroupWriter(FileChannel out, long postingsStart, long[] offsets, int first, int last,
+                    int bufferSize) {
+            this.out = out;
+            this.first = first;
+            this.last = last;
+            this.buffer = new byte[bufferSize];
+            this.cursors = new int[last - first];
+            this.previous = new long[last - first];
+            for (int b = first; b < last; b++) {
+                cursors[b - first] = (int) (offsets[b] - offsets[first]);
+            }
+            this.flushed = postingsStart + offsets[first];
+        }
+
+        @Override
+        public void visit(int gram, long position) throws IOException {
+            int bucket = bucket(gram);
+            if (bucket < first || bucket >= last) {
+                return;
+            }
+            int i = bucket - first;
+            long delta = position - previous[i];
+            previous[i] = position;
+            while (delta >= 0x80) {
+                put(i, (byte) (delta | 0x80));
+                delta >>>= 7;
+            }
+            put(i, (byte) delta);
+        }
+
+        /**
+         * Appends a byte to the postings of a bucket.
+         *
+         * @param i the index of the bucket in the group
+         * @param b the byte
+         * @throws IOException if the buffer can not be written out
+         */
+        private void put(int i, byte b) throws IOException {
+            if (cursors[i] == buffer.length) {
+                flush(buffer.length); // Only a single bucket outgrows the buffer
+                cursors[i] = 0;
+            }
+            buffer[cursors[i]++] = b;
+        }
+
+        /**
+         * Writes out the rest of the buffer.
+         *
+         * @throws IOException if an I/O error occurs
+         */
+        void finish() throws IOException {
+            // The last bucket ends where the group does
+            flush(cursors[last - first - 1]);
+        }
+
+        /**
+         * Writes the beginning of the buffer to the index.
+         *
+         * @param length the number of bytes to write
+         * @throws IOException if an I/O error occurs
+         */
+        private void flush(int length) throws IOException {
+            ByteBuffer bytes = ByteBuffer.wrap(buffer, 0, length);
+            while (bytes.hasRemaining()) {
+                flushed += out.write(bytes, flushed);
+            }
+        }
+    }
+
+    /**
+     * Writes an array of longs to a channel.
+     *
+     * @param out the channel
+     * @param position the byte offset to write at
+     * @param values the values
+     * @throws IOException if an I/O error occurs
+     */
+    private static void writeLongs(FileChannel out, long position, long[] values)
+            throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(8 * 8192);
+        for (int i = 0; i < values.length; ) {
+            buffer.clear();
+            while (buffer.hasRemaining() && i < values.length) {
+                buffer.putLong(values[i++]);
+            }
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                position += out.write(buffer, position);
+            }
+        }
+    }
+
+    /**
+     * Returns the trigram starting at the given index of the needle.
+     *
+     * @param needle the encoded substring
+     * @param i the index
+     * @return the three bytes of the trigram
+     */
+    private static int gramAt(byte[] needle, int i) {
+        return (needle[i] & 0xFF) << 16 | (needle[i + 1] & 0xFF) << 8 | (needle[i + 2] & 0xFF);
+    }
+
+    /**
+     * Hashes a trigram to its bucket.
+     *
+     * @param gram the trigram
+     * @return the bucket
+     */
+    private static int bucket(int gram) {
+        return (gram * 0x9E3779B1) >>> (32 - BUCKET_BITS);
+    }
+
+    /**
+     * Returns the number of checkpoints of a file.
+     *
+     * @param size the size of the file
+     * @return the number of 4 KB boundaries, including offset 0
+     */
+    private static int checkpointCount(long size) {
+        return (int) (size >>> CHECKPOINT_SHIFT) + 1;
+    }
+
+    /**
+     * Returns the number of bytes of the varint encoding of a value.
+     *
+     * @param value the non-negative value
+     * @return the number of 7-bit groups
+     */
+    private static int varintLength(long value) {
+        return (63 - Long.numberOfLeadingZeros(value | 1)) / 7 + 1;
+    }
+
+    /**
+     * Maps a region of a file in 1 GB windows.
+     *
+     * @param channel the file
+     * @param start the offset of the region
+     * @param size the size of the region
+     * @return the windows
+     * @throws IOException if a window can not be mapped
+     */
+    private static MappedByteBuffer[] mapWindows(FileChannel channel, long start, long size)
+            throws IOException {
+        MappedByteBuffer[] windows =
+                new MappedByteBuffer[(int) ((size + (1L << WINDOW_SHIFT) - 1) >>> WINDOW_SHIFT)];
+        try {
+            for (int w = 0; w < windows.length; w++) {
+                long offset = (long) w << WINDOW_SHIFT;
+                windows[w] = channel.map(FileChannel.MapMode.READ_ONLY, start + offset,
+                        Math.min(1L << WINDOW_SHIFT, size - offset));
+            }
+        } catch (IOException | RuntimeException e) {
+            freeWindows(windows);
+            throw e;
+        }
+        return windows;
+    }
+
+    /**
+     * Unmaps windows.
+     *
+     * @param windows the windows, some of which may be {@code null}
+     */
+    private static void freeWindows(MappedByteBuffer[] windows) {
+        for (MappedByteBuffer window : windows) {
+            DirectBuffers.free(window);
+        }
+    }
+
+    /**
+     * Returns the offset of the postings of a bucket in the postings section.
+     *
+     * @param bucket the bucket, or {@code BUCKETS} for the end of the last bucket
+     * @return the offset of the first encoded posting
+     */
+    private long bucketOffset(int bucket) {
+        return directory.getLong(8 * bucket);
+    }
+
+    /**
+     * Returns the number of postings of a bucket.
+     *
+     * @param bucket the bucket
+     * @return the number of postings
+     */
+    private long bucketSize(int bucket) {
+        return directory.getLong(8 * (BUCKETS + 1 + bucket));
+    }
+
+    /**
+     * Returns a byte of the postings section.
+     *
+     * @param offset the offset in the postings section
+     * @return the byte
+     */
+    private byte postingByte(long offset) {
+        return postingWindows[(int) (offset >>> WINDOW_SHIFT)]
+                .get((int) (offset & ((1L << WINDOW_SHIFT) - 1)));
+    }
+
+    /**
+     * Decodes the postings of a bucket in ascending order.
+     */
+    private final class Postings {
+        private long offset; // Next encoded byte
+        private long remaining;
+        private long value = 0; // Last decoded posting
+        private long current = -1; // Position the filter stopped at
+
+        /**
+         * Starts decoding a bucket.
+         *
+         * @param bucket the bucket
+         */
+        Postings(int bucket) {
+            this.offset = bucketOffset(bucket);
+            this.remaining = bucketSize(bucket);
+        }
+
+        /**
+         * Checks whether the bucket has more postings.
+         *
+         * @return {@code true} if {@link #next()} may be called
+         */
+        boolean hasNext() {
+            return remaining > 0;
+        }
+
+        /**
+         * Decodes the next posting.
+         *
+         * @return the byte offset of the trigram
+         */
+        long next() {
+            long delta = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = postingByte(offset++);
+                delta |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            remaining--;
+            value += delta;
+            return value;
+        }
+
+        /**
+         * Skips the postings before a position, which must not be smaller than any position
+         * asked for before.
+         *
+         * @param position the byte offset
+         * @return {@code true} if the bucket lists the position
+         */
+        boolean skipTo(long position) {
+            while (current < position && hasNext()) {
+                current = next();
+            }
+            return current == position;
+        }
+    }
+
+    /**
+     * Returns the window of the source file containing a byte offset.
+     *
+     * @param position the byte offset
+     * @return the mapped window
+     */
+    private MappedByteBuffer sourceWindow(long position) {
+        return sourceWindows[(int) (position >>> WINDOW_SHIFT)];
+    }
+
+    /**
+     * Verifies a candidate against the file.
+     *
+     * @param start the byte offset of the candidate
+     * @param needle the encoded substring
+     * @return {@code true} if the needle occurs at the offset
+     * @throws IOException if the file can not be read
+     */
+    private boolean matchesAt(long start, byte[] needle) throws IOException {
+        long windowStart = start >>> WINDOW_SHIFT << WINDOW_SHIFT;
+        if (start + needle.length <= windowStart + (1L << WINDOW_SHIFT)) {
+            MappedByteBuffer window = sourceWindow(start);
+            int offset = (int) (start - windowStart);
+            for (int i = 0; i < needle.length; i++) {
+                if (window.get(offset + i) != needle[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // The candidate crosses a window boundary
+        ByteBuffer bytes = ByteBuffer.allocate(needle.length);
+        while (bytes.hasRemaining() && source.read(bytes, start + bytes.position()) >= 0) {
+            // Read the whole candidate
+        }
+        return !bytes.hasRemaining() && ByteBuffer.wrap(needle).equals(bytes.flip());
+    }
+
+    /**
+     * Converts the byte offsets of one query to character offsets.
+     */
+    private final class CharCounter {
+        private long countedByte = -1; // Last converted byte offset...
+        private long countedChar = 0; // ...and its character offset
+
+        /**
+         * Converts a byte offset to a character offset, counting from the previous converted
+         * offset or from the nearest checkpoint. Offsets must be converted in ascending
+         * order.
+         *
+         * @param position the byte offset
+         * @return the character offset
+         */
+        long charOffset(long position) {
+            long checkpointStart = position >>> CHECKPOINT_SHIFT << CHECKPOINT_SHIFT;
+            if (countedByte < checkpointStart) {
+                countedByte = checkpointStart;
+                countedChar = directory.getLong(
+                        8 * (2 * BUCKETS + 1 + (int) (position >>> CHECKPOINT_SHIFT)));
+            }
+            // A checkpoint block never crosses a window boundary
+            long windowStart = position >>> WINDOW_SHIFT << WINDOW_SHIFT;
+            countedChar += Utf8.charCount(sourceWindow(position),
+                    (int) (countedByte - windowStart), (int) (position - windowStart));
+            countedByte = position;
+            return countedChar;
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package org.example;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.LongConsumer;
+
+/**
+ * Parallel substring search engine. The file is split into ranges which are memory-mapped
+ * and scanned concurrently on a {@link ForkJoinPool}. Every range is read together with the
+ * first {@code searchLength - 1} bytes of the next one, so matches crossing a boundary are
+ * found, but only matches starting inside the range are reported by it. The results are
+ * therefore returned in order, without duplicates and with the same overlapping matches as
+ * {@link SubstringSearch#find(String, String)}.
+ *
+ * <p>The results of a range are passed on as soon as it and all ranges before it are
+ * scanned. Only a few ranges per pool thread are scanned ahead of the one being passed on,
+ * so the memory held by pending results does not grow with the file.
+ */
+public class ParallelSearch {
+    /**
+     * The default size of a range scanned by a single task (16 MB).
+     */
+    public static final long DEFAULT_RANGE_SIZE = 16L * 1024 * 1024;
+
+    /**
+     * Number of ranges per pool thread scanned ahead of the range whose results are being
+     * passed on.
+     */
+    private static final int RANGES_AHEAD_PER_THREAD = 2;
+
+    private final ForkJoinPool pool;
+    private final long rangeSize;
+
+    /**
+     * Constructs a search engine running on the common fork-join pool with the default
+     * range size.
+     */
+    public ParallelSearch() {
+        this(ForkJoinPool.commonPool(), DEFAULT_RANGE_SIZE);
+    }
+
+    /**
+     * Constructs a search engine running on the given pool.
+     *
+     * @param pool the pool executing the range scans
+     * @param rangeSize the number of bytes scanned by a single task
+     */
+    public ParallelSearch(ForkJoinPool pool, long rangeSize) {
+        if (rangeSize <= 0 || rangeSize > MappedSearch.WINDOW_SIZE) {
+            throw new IllegalArgumentException("Range size out of bounds: " + rangeSize);
+        }
+        this.pool = pool;
+        this.rangeSize = rangeSize;
+    }
+
+    /**
+     * Searches for all occurrences of a substring in a UTF-8 text file.
+     *
+     * @param fileName the name of the file to search
+     * @param searchString the substring to search for in the file
+     * @return a list of starting character positions of each occurrence of the substring
+     * @throws IOException if an I/O error occurs when reading the file
+     */
+    public List<Long> find(String fileName, String searchString) throws IOException {
+        List<Long> occurrences = new ArrayList<>();
+        find(fileName, searchString, true, occurrences::add);
+        return occurrences;
+    }
+
+    /**
+     * Searches for all occurrences of a substring in a UTF-8 text file and passes their
+     * starting character positions to the sink in ascending order, range by range as the
+     * scans complete. Positions are kept in primitive arrays, without boxing.
+     *
+     * @param fileName the name of the file to search
+     * @param searchString the substring to search for in the file
+     * @param sink the consumer receiving the positions
+     * @throws IOException if an I/O error occurs when reading the file
+     */
+    public void find(String fileName, String searchString, LongConsumer sink)
+            throws IOException {
+        find(fileName, searchString, true, sink);
+    }
+
+    /**
+     * Searches for all occurrences of a substring in a UTF-8 text file and reports byte
+     * offsets.
+     *
+     * @param fileName the name of the file to search
+     * @param searchString the substring to search for in the file
+     * @return a list of starting byte offsets of each occurrence of the UTF-8 encoded substring
+     * @throws IOException if an I/O error occurs when reading the file
+     */
+    public List<Long> findBytes(String fileName, String searchString) throws IOException {
+        List<Long> occurrences = new ArrayList<>();
+        find(fileName, searchString, false, occurrences::add);
+        return occurrences;
+    }
+
+    /**
+     * Scans the ranges of the file in parallel and passes their results on in file order.
+     *
+     * @param fileName the name of the file to search
+     * @param searchString the substring to search for in the file
+     * @param charOffsets {@code true} to report character offsets, {@code false} for bytes
+     * @param sink the consumer receiving the starting positions
+     * @throws IOException if an I/O error occurs when reading the file
+     */
+    private void find(String fileName, String searchString, boolean charOffsets,
+                      LongConsumer sink) throws IOException {
+        SubstringMatcher matcher = SubstringMatcher.compile(searchString);
+
+        try (FileChannel channel = FileChannel.open(Path.of(fileName), StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            // Ranges are counted in long, a large file with small ranges has many of them
+            long rangeCount = fileSize / rangeSize + (fileSize % rangeSize == 0 ? 0 : 1);
+            int maxPending = pool.getParallelism() * RANGES_AHEAD_PER_THREAD;
+            RangeScan scan = new RangeScan(channel, fileSize, matcher, charOffsets);
+            ArrayDeque<RangeTask> pending = new ArrayDeque<>();
+
+            try {
+                long nextRange = 0;
+                long charPosition = 0; // Character position of the current range
+                while (nextRange < rangeCount || !pending.isEmpty()) {
+                    while (nextRange < rangeCount && pending.size() < maxPending) {
+                        RangeTask task = new RangeTask(scan, nextRange++);
+                        pool.execute(task);
+                        pending.add(task);
+                    }
+
+                    RangeResult result = pending.remove().join();
+                    long base = charOffsets ? charPosition : 0;
+                    for (int i = 0; i < result.positions.size(); i++) {
+                        sink.accept(base + result.positions.get(i));
+                    }
+                    charPosition += result.charCount;
+                }
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            } finally {
+                // The search failed or the sink threw: the remaining scans are not needed
+                for (RangeTask task : pending) {
+                    task.cancel(false);
+                }
+            }
+        }
+    }
+
+    /**
+     * Shared state of one parallel search.
+     */
+    private final class RangeScan {
+        final FileChannel channel;
+        final long fileSize;
+        final SubstringMatcher matcher;
+        final boolean charOffsets;
+
+        /**
+         * Constructs the state of a search over the given file.
+         *
+         * @param channel the channel of the searched file
+         * @param fileSize the size of the file
+         * @param matcher the compiled matcher, forked by every range
+         * @param charOffsets whether character offsets are reported
+         */
+        RangeScan(FileChannel channel, long fileSize, SubstringMatcher matcher,
+                  boolean charOffsets) {
+            this.channel = channel;
+            this.fileSize = fileSize;
+            this.matcher = matcher;
+            this.charOffsets = charOffsets;
+        }
+
+        /**
+         * Scans a single range.
+         *
+         * @param range the index of the range
+         * @return the positions found in the range
+         * @throws IOException if the range can not be mapped
+         */
+        RangeResult scan(long range) throws IOException {
+            long start = range * rangeSize;
+            long end = Math.min(start + rangeSize, fileSize);
+            long mappedEnd = Math.min(end + matcher.length() - 1, fileSize);
+            RangeResult result = new RangeResult();
+
+            MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY,
+                    start, mappedEnd - start);
+            try {
+                SubstringMatcher rangeMatcher = matcher.fork();
+                rangeMatcher.reset(start);
+                if (charOffsets) {
+                    // Character positions are relative to the range and shifted once all
+                    // preceding ranges have been counted
+                    CharOffsetSink charSink =
+                            new CharOffsetSink(result.positions, 0, start, 0);
+                    charSink.beginChunk(window, start);
+                    rangeMatcher.scan(window, position -> {
+                        if (position < end) {
+                            charSink.accept(position);
+                        }
+                    });
+                    result.charCount = charSink.charPositionAt(end);
+                } else {
+                    rangeMatcher.scan(window, position -> {
+                        if (position < end) {
+                            result.positions.add(position);
+                        }
+                    });
+                }
+            } finally {
+                DirectBuffers.free(window);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Fork-join task scanning a single range.
+     */
+    private static final class RangeTask extends RecursiveTask<RangeResult> {
+        private static final long serialVersionUID = 1L;
+
+        private final RangeScan scan;
+        private final long range;
+
+        /**
+         * Constructs a task scanning a range.
+         *
+         * @param scan the shared search state
+         * @param range the index of the range
+         */
+        RangeTask(RangeScan scan, long range) {
+            this.scan = scan;
+            this.range = range;
+        }
+
+        @Override
+        protected RangeResult compute() {
+            try {
+                return scan.scan(range);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Positions found in a single range, stored without boxing.
+     */
+    private static final class RangeResult {
+        final LongList positions = new LongList();
+        long charCount;
+    }
+}
@@ -0,0 +1,259 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.function.LongConsumer;
+
+/**
+ * Measurements of a single streaming search: how much was read and where the time went.
+ * The time of a search is split into waiting for input, matching, converting byte offsets to
+ * character offsets ("decoding") and passing the results to the sink; the parts are measured
+ * around whole chunks and around every match, so they add up to slightly less than the total.
+ *
+ * <p>Metrics are only collected while a listener is set with
+ * {@link SubstringSearch#setMetricsListener(Listener)}; otherwise the searches do not read
+ * the clock at all.
+ */
+public final class SearchMetrics {
+
+    /**
+     * Receives the metrics of every completed search, e.g. to export them to monitoring.
+     * The listener is called on the searching thread and should return quickly.
+     */
+    @FunctionalInterface
+    public interface Listener {
+        /**
+         * Called once a search has read its input or found enough matches.
+         *
+         * @param metrics the metrics of the search
+         */
+        void searchCompleted(SearchMetrics metrics);
+    }
+
+    private final long bytesRead;
+    private final long chunks;
+    private final long hits;
+    private final long readNanos;
+    private final long decodeNanos;
+    private final long matchNanos;
+    private final long sinkNanos;
+    private final long totalNanos;
+
+    /**
+     * Constructs the metrics of a search.
+     *
+     * @param bytesRead the number of bytes read
+     * @param chunks the number of chunks read
+     * @param hits the number of reported matches
+     * @param readNanos the time spent reading input
+     * @param decodeNanos the time spent converting byte offsets to character offsets
+     * @param matchNanos the time spent in the matcher
+     * @param sinkNanos the time spent in the sink
+     * @param totalNanos the duration of the search
+     */
+    SearchMetrics(long bytesRead, long chunks, long hits, long readNanos, long decodeNanos,
+                  long matchNanos, long sinkNanos, long totalNanos) {
+        this.bytesRead = bytesRead;
+        this.chunks = chunks;
+        this.hits = hits;
+        this.readNanos = readNanos;
+        this.decodeNanos = decodeNanos;
+        this.matchNanos = matchNanos;
+        this.sinkNanos = sinkNanos;
+        this.totalNanos = totalNanos;
+    }
+
+    /**
+     * Streams a channel through the matcher like the unmeasured search and measures it.
+     *
+     * @param channel the blocking channel to read, left open
+     * @param matcher the matcher positioned at the start of a stream
+     * @param sink the consumer receiving the positions of the matches
+     * @param charOffsets {@code true} to report character offsets, {@code false} for bytes
+     * @param limit the maximum number of matches to report
+     * @return the metrics of the search
+     * @throws IOException if an I/O error occurs when reading the channel
+     */
+    static SearchMetrics measure(ReadableByteChannel channel, SubstringMatcher matcher,
+                                 LongConsumer sink, boolean charOffsets, long limit)
+            throws IOException {
+        long start = System.nanoTime();
+        Meter meter = new Meter(sink);
+        CharOffsetSink charSink = charOffsets
+                ? new CharOffsetSink(meter, matcher.length() - 1) : null;
+        LongConsumer matches = charOffsets ? meter.timed(charSink) : meter;
+        long bytesRead = 0;
+        long chunks = 0;
+        long readNanos = 0;
+        long scanNanos = 0;
+        long endChunkNanos = 0;
+        long remaining = limit;
+        ByteBuffer buffer = ByteBuffer.allocateDirect(SubstringSearch.CHUNK_SIZE);
+
+        while (remaining > 0) {
+            long t0 = System.nanoTime();
+            int read = channel.read(buffer);
+            long t1 = System.nanoTime();
+            readNanos += t1 - t0;
+            if (read < 0) {
+                break;
+            }
+            bytesRead += read;
+            chunks++;
+
+            buffer.flip();
+            if (charSink != null) {
+                charSink.beginChunk(buffer, matcher.position());
+            }
+            remaining -= matcher.scan(buffer, matches, remaining);
+            long t2 = System.nanoTime();
+            scanNanos += t2 - t1;
+            if (charSink != null && remaining > 0) {
+                charSink.endChunk();
+                endChunkNanos += System.nanoTime() - t2;
+            }
+            buffer.clear();
+        }
+
+        long inMatches = charOffsets ? meter.convertNanos : meter.sinkNanos;
+        return new SearchMetrics(bytesRead, chunks, meter.hits, readNanos,
+                charOffsets ? meter.convertNanos - meter.sinkNanos + endChunkNanos : 0,
+                scanNanos - inMatches, meter.sinkNanos, System.nanoTime() - start);
+    }
+
+    /**
+     * Returns the number of bytes read.
+     *
+     * @return the number of bytes
+     */
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    /**
+     * Returns the number of chunks read.
+     *
+     * @return the number of chunks
+     */
+    public long getChunks() {
+        return chunks;
+    }
+
+    /**
+     * Returns the number of matches passed to the sink.
+     *
+     * @return the number of matches
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * Returns the time spent waiting for input.
+     *
+     * @return the time in nanoseconds
+     */
+    public long getReadNanos() {
+        return readNanos;
+    }
+
+    /**
+     * Returns the time spent converting byte offsets of matches to character offsets.
+     *
+     * @return the time in nanoseconds, 0 if byte offsets were reported
+     */
+    public long getDecodeNanos() {
+        return decodeNanos;
+    }
+
+    /**
+     * Returns the time spent in the matcher.
+     *
+     * @return the time in nanoseconds
+     */
+    public long getMatchNanos() {
+        return matchNanos;
+    }
+
+    /**
+     * Returns the time spent in the sink accumulating the results.
+     *
+     * @return the time in nanoseconds
+     */
+    public long getSinkNanos() {
+        return sinkNanos;
+    }
+
+    /**
+     * Returns the duration of the search.
+     *
+     * @return the time in nanoseconds
+     */
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    /**
+     * Returns the effective throughput of the search.
+     *
+     * @return the number of megabytes (2<sup>20</sup> bytes) read per second of the search
+     */
+    public double getThroughput() {
+        return totalNanos == 0 ? 0 : bytesRead * 1e9 / (1024.0 * 1024.0) / totalNanos;
+    }
+
+    /**
+     * Returns a string representation of the metrics.
+     *
+     * @return a string representation of the metrics
+     */
+    @Override
+    public String toString() {
+        return String.format("%d bytes in %d chunks, %d hits, read %.3f ms, decode %.3f ms, "
+                        + "match %.3f ms, sink %.3f ms, total %.3f ms, %.1f MB/s",
+                bytesRead, chunks, hits, readNanos / 1e6, decodeNanos / 1e6, matchNanos / 1e6,
+                sinkNanos / 1e6, totalNanos / 1e6, getThroughput());
+    }
+
+    /**
+     * Sink counting the matches and measuring the time spent in the downstream sink.
+     */
+    private static final class Meter implements LongConsumer {
+        private final LongConsumer downstream;
+        long hits = 0;
+        long sinkNanos = 0;
+        long convertNanos = 0; // Time in the converter, including the downstream sink
+
+        /**
+         * Constructs a meter.
+         *
+         * @param downstream the measured sink
+         */
+        Meter(LongConsumer downstream) {
+            this.downstream = downstream;
+        }
+
+        @Override
+        public void accept(long position) {
+            long start = System.nanoTime();
+            downstream.accept(position);
+            sinkNanos += System.nanoTime() - start;
+            hits++;
+        }
+
+        /**
+         * Wraps the offset converter feeding this meter to measure it.
+         *
+         * @param converter the converter
+         * @return the measured converter
+         */
+        LongConsumer timed(CharOffsetSink converter) {
+            return position -> {
+                long start = System.nanoTime();
+                converter.accept(position);
+                convertNanos += System.nanoTime() - start;
+            };
+        }
+    }
+}
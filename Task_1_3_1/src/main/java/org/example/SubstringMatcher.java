@@ -0,0 +1,133 @@
+package org.example;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.function.LongConsumer;
+
+/**
+ * A compiled, streaming matcher for a UTF-8 encoded substring. The matcher keeps its state
+ * and the number of consumed bytes between calls to {@link #scan(ByteBuffer, LongConsumer)},
+ * so a stream can be fed chunk by chunk and matches crossing chunk boundaries are found.
+ * Overlapping matches are all reported.
+ *
+ * <p>Matchers are not thread-safe; use {@link #fork()} to obtain an independent matcher
+ * sharing the compiled tables.
+ */
+public interface SubstringMatcher {
+
+    /**
+     * Compiles a matcher for the given substring, choosing the algorithm from the needle's
+     * length and alphabet.
+     *
+     * @param searchString the substring to search for
+     * @return a new matcher positioned at the start of a stream
+     * @throws IllegalArgumentException if the substring is empty
+     */
+    static SubstringMatcher compile(String searchString) {
+        return compile(searchString, MatchAlgorithm.AUTO);
+    }
+
+    /**
+     * Compiles a matcher for the given substring using the given algorithm.
+     *
+     * @param searchString the substring to search for
+     * @param algorithm the algorithm, or {@link MatchAlgorithm#AUTO} to choose one
+     * @return a new matcher positioned at the start of a stream
+     * @throws IllegalArgumentException if the substring is empty
+     */
+    static SubstringMatcher compile(String searchString, MatchAlgorithm algorithm) {
+        byte[] needle = searchString.getBytes(StandardCharsets.UTF_8);
+        if (needle.length == 0) {
+            throw new IllegalArgumentException("Search string must not be empty");
+        }
+        if (algorithm == MatchAlgorithm.AUTO) {
+            algorithm = MatchAlgorithm.choose(needle);
+        }
+        switch (algorithm) {
+            case HORSPOOL:
+                return new HorspoolMatcher(needle);
+            case FIRST_LAST:
+                return new FirstLastMatcher(needle);
+            default:
+                return KmpMatcher.compile(searchString);
+        }
+    }
+
+    /**
+     * Compiles a matcher finding the substring ignoring case, by simple Unicode case folding
+     * (see {@link Character#toUpperCase(int)} and {@link Character#toLowerCase(int)}).
+     * Needles whose matches can only be ASCII are matched byte by byte through a folding
+     * table; other needles are matched on decoded code points. The input is never copied.
+     *
+     * @param searchString the substring to search for
+     * @return a new matcher positioned at the start of a stream
+     * @throws IllegalArgumentException if the substring is empty
+     */
+    static SubstringMatcher compileIgnoreCase(String searchString) {
+        if (searchString.isEmpty()) {
+            throw new IllegalArgumentException("Search string must not be empty");
+        }
+        if (CaseFolding.isAsciiClosed(searchString)) {
+            byte[] needle = new byte[searchString.length()];
+            for (int i = 0; i < needle.length; i++) {
+                needle[i] = CaseFolding.ASCII[searchString.charAt(i)];
+            }
+            return new AsciiFoldingMatcher(needle);
+        }
+        return FoldingMatcher.compile(searchString);
+    }
+
+    /**
+     * Returns a new matcher for the same substring, sharing the compiled tables,
+     * positioned at the start of a stream.
+     *
+     * @return an independent matcher
+     */
+    SubstringMatcher fork();
+
+    /**
+     * Forgets any partial match and restarts the stream at the given position.
+     *
+     * @param position the byte offset of the next byte passed to the matcher
+     */
+    void reset(long position);
+
+    /**
+     * Returns the byte offset of the next byte the matcher expects.
+     *
+     * @return the number of consumed bytes, counted from the last reset
+     */
+    long position();
+
+    /**
+     * Returns the maximum length of a match, which is the length of the UTF-8 encoded
+     * substring unless case is ignored.
+     *
+     * @return the length in bytes
+     */
+    int length();
+
+    /**
+     * Feeds the remaining bytes of the chunk to the matcher and reports the starting byte
+     * offset of every match that ends in the chunk. Matches may start in earlier chunks.
+     * The chunk's position is advanced to its limit.
+     *
+     * @param chunk the next bytes of the stream
+     * @param sink the consumer receiving the match positions in ascending order
+     */
+    default void scan(ByteBuffer chunk, LongConsumer sink) {
+        scan(chunk, sink, Long.MAX_VALUE);
+    }
+
+    /**
+     * Feeds the chunk to the matcher until {@code limit} matches have been reported.
+     * If the limit is reached, the chunk's position is left right after the last byte of
+     * the last match, otherwise it is advanced to the chunk's limit.
+     *
+     * @param chunk the next bytes of the stream
+     * @param sink the consumer receiving the match positions in ascending order
+     * @param limit the maximum number of matches to report
+     * @return the number of reported matches
+     */
+    long scan(ByteBuffer chunk, LongConsumer sink, long limit);
+}
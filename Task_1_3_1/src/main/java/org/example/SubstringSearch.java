@@ -1,9 +1,20 @@
 package org.example;
 
-import java.io.*;
-import java.nio.charset.StandardCharsets;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
+import java.util.function.LongConsumer;
+import java.util.zip.GZIPInputStream;
 
 /**
  * The class provides a utility method to search for all occurrences of a substring in a text file.
@@ -11,105 +22,485 @@ import java.util.List;
 public class SubstringSearch {
 
     /**
-     * Searches for all occurrences of a substring in a text file.
+     * Size of the chunks the file is read in (1 MB).
+     */
+    static final int CHUNK_SIZE = 1024 * 1024;
+
+    /**
+     * Size of the buffer of compressed input used by the gzip search (64 KB).
+     */
+    private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+
+    private static volatile SearchMetrics.Listener metricsListener;
+
+    /**
+     * Sets the listener receiving the {@link SearchMetrics} of every streaming search: the
+     * searches of files, channels, streams and directories, including limited, counting and
+     * case-insensitive ones. Memory-mapped, parallel and indexed searches are not measured.
+     *
+     * @param listener the listener, or {@code null} to stop collecting metrics
+     */
+    public static void setMetricsListener(SearchMetrics.Listener listener) {
+        metricsListener = listener;
+    }
+
+    /**
+     * Returns the listener receiving the metrics of every streaming search.
+     *
+     * @return the listener, or {@code null} if no metrics are collected
+     */
+    public static SearchMetrics.Listener getMetricsListener() {
+        return metricsListener;
+    }
+
+    /**
+     * Searches for all occurrences of a substring in a UTF-8 text file.
+     * The file is streamed through a {@link SubstringMatcher} chunk by chunk without decoding
+     * it; the positions are counted in UTF-16 characters. The matching algorithm is chosen
+     * from the substring, see {@link MatchAlgorithm#AUTO}.
      *
      * @param fileName the name of the file to search
      * @param searchString the substring to search for in the file
      * @return a list of starting positions of each occurrence of the substring
      * @throws IOException if an I/O error occurs when reading the file
+     * @throws IllegalArgumentException if the substring is empty
      */
     public static List<Long> find(String fileName, String searchString) throws IOException {
         List<Long> occurrences = new ArrayList<>();
-        int searchLength = searchString.length();
-
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(fileName),
-                StandardCharsets.UTF_8))) {
-            StringBuilder buffer = new StringBuilder();
-            long filePosition = 0; // Character position in the file
-            int charsRead;
-
-            // Buffer for reading chunks
-            char[] charBuffer = new char[1024 * 1024]; // Read the file in 1 MB chunks
-
-            while ((charsRead = reader.read(charBuffer)) != -1) {
-                // Add the new chunk of characters to the buffer
-                buffer.append(charBuffer, 0, charsRead);
-
-                // Find substring within the current buffer
-                int index;
-                while ((index = indexOf(buffer, searchString)) != -1) {
-                    occurrences.add(filePosition + index);
-                    buffer.delete(0, index + 1); // Shift buffer past the found occurrence
-                    filePosition += index + 1;
-                }
-
-                // Keep only the overlap part of the buffer for the next read
-                if (buffer.length() > searchLength - 1) {
-                    filePosition += buffer.length() - (searchLength - 1);
-                    buffer.delete(0, buffer.length() - (searchLength - 1));
-                }
-            }
+        find(fileName, searchString, occurrences::add);
+        return occurrences;
+    }
+
+    /**
+     * Searches for all occurrences of a substring in a UTF-8 text file using the given
+     * matching algorithm.
+     *
+     * @param fileName the name of the file to search
+     * @param searchString the substring to search for in the file
+     * @param algorithm the algorithm, or {@link MatchAlgorithm#AUTO} to choose one
+     * @return a list of starting positions of each occurrence of the substring
+     * @throws IOException if an I/O error occurs when reading the file
+     * @throws IllegalArgumentException if the substring is empty
+     */
+    public static List<Long> find(String fileName, String searchString,
+                                  MatchAlgorithm algorithm) throws IOException {
+        List<Long> occurrences = new ArrayList<>();
+        SubstringMatcher matcher = SubstringMatcher.compile(searchString, algorithm);
+        scan(fileName, matcher, occurrences::add, true, Long.MAX_VALUE);
+        return occurrences;
+    }
+
+    /**
+     * Searches for all occurrences of a substring in a UTF-8 text file and passes their
+     * starting character positions to the sink as they are found. Nothing is allocated per
+     * match, so a {@link LongList} or a counting consumer can take any number of matches.
+     *
+     * @param fileName the name of the file to search
+     * @param searchString the substring to search for in the file
+     * @param sink the consumer receiving the positions in ascending order
+     * @throws IOException if an I/O error occurs when reading the file
+     * @throws IllegalArgumentException if the substring is empty
+     */
+    public static void find(String fileName, String searchString, LongConsumer sink)
+            throws IOException {
+        SubstringMatcher matcher = SubstringMatcher.compile(searchString);
+        scan(fileName, matcher, sink, true, Long.MAX_VALUE);
+    }
+
+    /**
+     * Searches for the first {@code limit} occurrences of a substring in a UTF-8 text file.
+     * Reading stops and the file is closed as soon as enough occurrences have been found.
+     *
+     * @param fileName the name of the file to search
+     * @param searchString the substring to search for in the file
+     * @param limit the maximum number of occurrences to return
+     * @return a list of starting positions of at most {@code limit} occurrences
+     * @throws IOException if an I/O error occurs when reading the file
+     * @throws IllegalArgumentException if the substring is empty or the limit is negative
+     */
+    public static List<Long> find(String fileName, String searchString, int limit)
+            throws IOException {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Negative limit: " + limit);
         }
+        List<Long> occurrences = new ArrayList<>();
+        SubstringMatcher matcher = SubstringMatcher.compile(searchString);
+        scan(fileName, matcher, occurrences::add, true, limit);
         return occurrences;
     }
 
     /**
-     * Custom implementation of the indexOf method.
+     * Searches for all occurrences of a substring in a UTF-8 text file ignoring case.
      *
-     * @param text the text in which to search
-     * @param pattern the substring to search for
-     * @return the index of the first occurrence of pattern in text, or -1 if pattern is not found
+     * @param fileName the name of the file to search
+     * @param searchString the substring to search for in the file
+     * @return a list of starting positions of each occurrence of the substring
+     * @throws IOException if an I/O error occurs when reading the file
+     * @throws IllegalArgumentException if the substring is empty
+     * @see SubstringMatcher#compileIgnoreCase(String)
      */
-    private static int indexOf(StringBuilder text, String pattern) {
-        int[] lps = buildLPSArray(pattern);
-        int i = 0; // index for text
-        int j = 0; // index for pattern
+    public static List<Long> findIgnoreCase(String fileName, String searchString)
+            throws IOException {
+        List<Long> occurrences = new ArrayList<>();
+        findIgnoreCase(fileName, searchString, occurrences::add);
+        return occurrences;
+    }
 
-        while (i < text.length()) {
-            if (text.charAt(i) == pattern.charAt(j)) {
-                i++;
-                j++;
-            }
+    /**
+     * Searches for all occurrences of a substring in a UTF-8 text file ignoring case and
+     * passes their starting character positions to the sink as they are found.
+     *
+     * @param fileName the name of the file to search
+     * @param searchString the substring to search for in the file
+     * @param sink the consumer receiving the positions in ascending order
+     * @throws IOException if an I/O error occurs when reading the file
+     * @throws IllegalArgumentException if the substring is empty
+     */
+    public static void findIgnoreCase(String fileName, String searchString, LongConsumer sink)
+            throws IOException {
+        SubstringMatcher matcher = SubstringMatcher.compileIgnoreCase(searchString);
+        scan(fileName, matcher, sink, true, Long.MAX_VALUE);
+    }
+
+    /**
+     * Returns the position of the first occurrence of a substring in a UTF-8 text file.
+     * Reading stops at the first occurrence.
+     *
+     * @param fileName the name of the file to search
+     * @param searchString the substring to search for in the file
+     * @return the starting position of the first occurrence, or -1 if there is none
+     * @throws IOException if an I/O error occurs when reading the file
+     * @throws IllegalArgumentException if the substring is empty
+     */
+    public static long findFirst(String fileName, String searchString) throws IOException {
+        List<Long> occurrences = find(fileName, searchString, 1);
+        return occurrences.isEmpty() ? -1 : occurrences.get(0);
+    }
 
-            if (j == pattern.length()) {
-                return i - j; // Match found
-            } else if (i < text.length() && text.charAt(i) != pattern.charAt(j)) {
-                if (j != 0) {
-                    j = lps[j - 1];
-                } else {
-                    i++;
-                }
+    /**
+     * Checks whether a UTF-8 text file contains a substring. Reading stops at the first
+     * occurrence.
+     *
+     * @param fileName the name of the file to search
+     * @param searchString the substring to search for in the file
+     * @return {@code true} if the file contains the substring
+     * @throws IOException if an I/O error occurs when reading the file
+     * @throws IllegalArgumentException if the substring is empty
+     */
+    public static boolean contains(String fileName, String searchString) throws IOException {
+        Counter counter = new Counter();
+        scan(fileName, SubstringMatcher.compile(searchString), counter, false, 1);
+        return counter.count > 0;
+    }
+
+    /**
+     * Counts the occurrences of a substring in a UTF-8 text file. No positions are computed
+     * or stored.
+     *
+     * @param fileName the name of the file to search
+     * @param searchString the substring to search for in the file
+     * @return the number of occurrences, overlapping ones included
+     * @throws IOException if an I/O error occurs when reading the file
+     * @throws IllegalArgumentException if the substring is empty
+     */
+    public static long count(String fileName, String searchString) throws IOException {
+        Counter counter = new Counter();
+        scan(fileName, SubstringMatcher.compile(searchString), counter, false, Long.MAX_VALUE);
+        return counter.count;
+    }
+
+    /**
+     * Streams a file through the matcher chunk by chunk until the end of the file or
+     * until {@code limit} matches have been found.
+     *
+     * @param fileName the name of the file to search
+     * @param matcher the matcher positioned at the start of a stream
+     * @param sink the consumer receiving the positions of the matches
+     * @param charOffsets {@code true} to report character offsets, {@code false} for bytes
+     * @param limit the maximum number of matches to report
+     * @throws IOException if an I/O error occurs when reading the file
+     */
+    static void scan(String fileName, SubstringMatcher matcher, LongConsumer sink,
+                     boolean charOffsets, long limit) throws IOException {
+        try (FileChannel channel = FileChannel.open(Path.of(fileName), StandardOpenOption.READ)) {
+            scan(channel, matcher, sink, charOffsets, limit);
+        }
+    }
+
+    /**
+     * Streams a channel through the matcher chunk by chunk until the end of the stream or
+     * until {@code limit} matches have been found. Only one chunk is held in memory.
+     * If a metrics listener is set, the search is measured and reported to it.
+     *
+     * @param channel the blocking channel to read, left open
+     * @param matcher the matcher positioned at the start of a stream
+     * @param sink the consumer receiving the positions of the matches
+     * @param charOffsets {@code true} to report character offsets, {@code false} for bytes
+     * @param limit the maximum number of matches to report
+     * @throws IOException if an I/O error occurs when reading the channel
+     */
+    private static void scan(ReadableByteChannel channel, SubstringMatcher matcher,
+                             LongConsumer sink, boolean charOffsets, long limit)
+            throws IOException {
+        SearchMetrics.Listener listener = metricsListener;
+        if (listener != null) {
+            listener.searchCompleted(
+                    SearchMetrics.measure(channel, matcher, sink, charOffsets, limit));
+            return;
+        }
+
+        CharOffsetSink charSink = charOffsets
+                ? new CharOffsetSink(sink, matcher.length() - 1) : null;
+        LongConsumer matches = charOffsets ? charSink : sink;
+        long remaining = limit;
+        // Buffer for reading chunks
+        ByteBuffer buffer = ByteBuffer.allocateDirect(CHUNK_SIZE);
+
+        while (remaining > 0 && channel.read(buffer) != -1) {
+            buffer.flip();
+            if (charSink != null) {
+                charSink.beginChunk(buffer, matcher.position());
+            }
+            // The matcher keeps partial matches for the next chunk
+            remaining -= matcher.scan(buffer, matches, remaining);
+            if (charSink != null && remaining > 0) {
+                charSink.endChunk();
             }
+            buffer.clear();
         }
-        return -1; // No match found
     }
 
     /**
-     * Builds the longest prefix suffix (LPS) array for the KMP algorithm.
+     * Searches for all occurrences of a substring in a UTF-8 encoded channel, such as a
+     * socket or a pipe. The channel is read to its end in chunks of {@value #CHUNK_SIZE}
+     * bytes, so memory use does not depend on the length of the stream. The channel is
+     * not closed.
+     *
+     * @param channel the blocking channel to search
+     * @param searchString the substring to search for
+     * @return a list of starting character positions of each occurrence of the substring
+     * @throws IOException if an I/O error occurs when reading the channel
+     * @throws IllegalArgumentException if the substring is empty
+     */
+    public static List<Long> find(ReadableByteChannel channel, String searchString)
+            throws IOException {
+        List<Long> occurrences = new ArrayList<>();
+        find(channel, searchString, occurrences::add);
+        return occurrences;
+    }
+
+    /**
+     * Searches for all occurrences of a substring in a UTF-8 encoded channel and passes
+     * their starting character positions to the sink as they are found. The channel is
+     * not closed.
+     *
+     * @param channel the blocking channel to search
+     * @param searchString the substring to search for
+     * @param sink the consumer receiving the positions in ascending order
+     * @throws IOException if an I/O error occurs when reading the channel
+     * @throws IllegalArgumentException if the substring is empty
+     */
+    public static void find(ReadableByteChannel channel, String searchString,
+                            LongConsumer sink) throws IOException {
+        SubstringMatcher matcher = SubstringMatcher.compile(searchString);
+        scan(channel, matcher, sink, true, Long.MAX_VALUE);
+    }
+
+    /**
+     * Searches for all occurrences of a substring in a UTF-8 encoded input stream.
+     * The stream is read to its end but not closed.
      *
-     * @param pattern the substring for which to build the LPS array
-     * @return the LPS array
+     * @param in the stream to search
+     * @param searchString the substring to search for
+     * @return a list of starting character positions of each occurrence of the substring
+     * @throws IOException if an I/O error occurs when reading the stream
+     * @throws IllegalArgumentException if the substring is empty
      */
-    private static int[] buildLPSArray(String pattern) {
-        int[] lps = new int[pattern.length()];
-        int length = 0; // Length of the previous longest prefix suffix
-        int i = 1;
+    public static List<Long> find(InputStream in, String searchString) throws IOException {
+        return find(Channels.newChannel(in), searchString);
+    }
+
+    /**
+     * Searches for all occurrences of a substring in a UTF-8 encoded input stream and passes
+     * their starting character positions to the sink as they are found. The stream is read
+     * to its end but not closed.
+     *
+     * @param in the stream to search
+     * @param searchString the substring to search for
+     * @param sink the consumer receiving the positions in ascending order
+     * @throws IOException if an I/O error occurs when reading the stream
+     * @throws IllegalArgumentException if the substring is empty
+     */
+    public static void find(InputStream in, String searchString, LongConsumer sink)
+            throws IOException {
+        find(Channels.newChannel(in), searchString, sink);
+    }
 
-        while (i < pattern.length()) {
-            if (pattern.charAt(i) == pattern.charAt(length)) {
-                length++;
-                lps[i] = length;
-                i++;
-            } else {
-                if (length != 0) {
-                    length = lps[length - 1];
-                } else {
-                    lps[i] = 0;
-                    i++;
-                }
+    /**
+     * Searches for all occurrences of a substring in a gzip-compressed UTF-8 stream.
+     * The stream is decompressed on the fly; concatenated gzip members are read as one
+     * stream. The positions are counted in the decompressed text. The stream is not closed.
+     *
+     * @param in the compressed stream to search
+     * @param searchString the substring to search for
+     * @param sink the consumer receiving the positions in ascending order
+     * @throws IOException if an I/O error occurs or the stream is not in gzip format
+     * @throws IllegalArgumentException if the substring is empty
+     */
+    public static void findGzip(InputStream in, String searchString, LongConsumer sink)
+            throws IOException {
+        SubstringMatcher matcher = SubstringMatcher.compile(searchString);
+        GZIPInputStream gzip = new GZIPInputStream(in, GZIP_BUFFER_SIZE);
+        scan(Channels.newChannel(gzip), matcher, sink, true, Long.MAX_VALUE);
+    }
+
+    /**
+     * Searches for all occurrences of a substring in a gzip-compressed UTF-8 text file
+     * without decompressing it to disk.
+     *
+     * @param fileName the name of the compressed file to search
+     * @param searchString the substring to search for
+     * @return a list of starting character positions of each occurrence of the substring
+     *         in the decompressed text
+     * @throws IOException if an I/O error occurs or the file is not in gzip format
+     * @throws IllegalArgumentException if the substring is empty
+     */
+    public static List<Long> findGzip(String fileName, String searchString) throws IOException {
+        List<Long> occurrences = new ArrayList<>();
+        try (InputStream in = Files.newInputStream(Path.of(fileName))) {
+            findGzip(in, searchString, occurrences::add);
+        }
+        return occurrences;
+    }
+
+    /**
+     * Searches for all occurrences of several substrings in a UTF-8 text file in a single
+     * pass, using an {@link AhoCorasickMatcher}.
+     *
+     * @param fileName the name of the file to search
+     * @param searchStrings the substrings to search for; their iteration order defines
+     *                      the pattern ids of the matches
+     * @return the matches ordered by their starting character position and pattern id
+     * @throws IOException if an I/O error occurs when reading the file
+     * @throws IllegalArgumentException if there are no substrings or one of them is empty
+     */
+    public static List<Match> find(String fileName, Collection<String> searchStrings)
+            throws IOException {
+        List<Match> matches = new ArrayList<>();
+        AhoCorasickMatcher matcher = AhoCorasickMatcher.compile(searchStrings);
+        CharOffsetSink positions = new CharOffsetSink(position -> { },
+                matcher.maxLength() - 1);
+
+        try (FileChannel channel = FileChannel.open(Path.of(fileName), StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(CHUNK_SIZE);
+
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                positions.beginChunk(buffer, matcher.position());
+                matcher.scan(buffer, (patternId, position) ->
+                        matches.add(new Match(patternId, positions.charPositionAt(position))));
+                positions.endChunk();
+                buffer.clear();
             }
         }
-        return lps;
+        // The automaton reports matches in the order they end
+        matches.sort(Comparator.comparingLong(Match::getPosition)
+                .thenComparingInt(Match::getPatternId));
+        return matches;
+    }
+
+    /**
+     * Searches for all occurrences of a substring in a UTF-8 text file using a
+     * memory-mapped, byte-level scan. The file is not decoded; the positions are
+     * the same character positions {@link #find(String, String)} returns for
+     * well-formed UTF-8 input.
+     *
+     * @param fileName the name of the file to search
+     * @param searchString the substring to search for in the file
+     * @return a list of starting character positions of each occurrence of the substring
+     * @throws IOException if an I/O error occurs when reading the file
+     */
+    public static List<Long> findMapped(String fileName, String searchString) throws IOException {
+        List<Long> occurrences = new ArrayList<>();
+        MappedSearch.find(fileName, searchString, true, occurrences::add);
+        return occurrences;
+    }
+
+    /**
+     * Searches for all occurrences of a substring in a UTF-8 text file using a
+     * memory-mapped, byte-level scan and passes their starting character positions
+     * to the sink as they are found.
+     *
+     * @param fileName the name of the file to search
+     * @param searchString the substring to search for in the file
+     * @param sink the consumer receiving the positions in ascending order
+     * @throws IOException if an I/O error occurs when reading the file
+     */
+    public static void findMapped(String fileName, String searchString, LongConsumer sink)
+            throws IOException {
+        MappedSearch.find(fileName, searchString, true, sink);
+    }
+
+    /**
+     * Searches for all occurrences of a substring in a UTF-8 text file using a
+     * memory-mapped, byte-level scan and reports byte offsets.
+     *
+     * @param fileName the name of the file to search
+     * @param searchString the substring to search for in the file
+     * @return a list of starting byte offsets of each occurrence of the UTF-8 encoded substring
+     * @throws IOException if an I/O error occurs when reading the file
+     */
+    public static List<Long> findMappedBytes(String fileName, String searchString)
+            throws IOException {
+        List<Long> occurrences = new ArrayList<>();
+        MappedSearch.find(fileName, searchString, false, occurrences::add);
+        return occurrences;
+    }
+
+    /**
+     * Searches for all occurrences of a substring in a UTF-8 text file, scanning ranges
+     * of the file in parallel on the common fork-join pool.
+     *
+     * @param fileName the name of the file to search
+     * @param searchString the substring to search for in the file
+     * @return a list of starting character positions of each occurrence of the substring
+     * @throws IOException if an I/O error occurs when reading the file
+     * @see ParallelSearch
+     */
+    public static List<Long> findParallel(String fileName, String searchString)
+            throws IOException {
+        return new ParallelSearch().find(fileName, searchString);
+    }
+
+    /**
+     * Searches for all occurrences of a substring in a UTF-8 text file using the index
+     * built by {@link NgramIndex#build(String)}. If the file has no index or has changed
+     * since it was indexed, the file is scanned instead.
+     *
+     * @param fileName the name of the file to search
+     * @param searchString the substring to search for in the file
+     * @return a list of starting character positions of each occurrence of the substring
+     * @throws IOException if an I/O error occurs when reading the file or the index
+     * @throws IllegalArgumentException if the substring is empty
+     * @see NgramIndex
+     */
+    public static List<Long> findIndexed(String fileName, String searchString)
+            throws IOException {
+        try (NgramIndex index = NgramIndex.open(fileName)) {
+            return index.find(searchString);
+        }
+    }
+
+    /**
+     * Sink counting the matches it receives.
+     */
+    private static final class Counter implements LongConsumer {
+        long count = 0;
+
+        @Override
+        public void accept(long position) {
+            count++;
+        }
     }
 
     /**
@@ -0,0 +1,52 @@
+package org.example;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Helper methods for working with UTF-8 encoded bytes without decoding them.
+ */
+final class Utf8 {
+
+    private Utf8() {
+    }
+
+    /**
+     * Counts the UTF-16 characters encoded by a range of well-formed UTF-8 bytes.
+     * Every byte that is not a continuation byte starts a new code point; four-byte
+     * sequences encode a surrogate pair and therefore count as two characters.
+     *
+     * @param buffer the buffer holding the bytes
+     * @param from the index of the first byte to count (inclusive)
+     * @param to the index of the last byte to count (exclusive)
+     * @return the number of UTF-16 characters in the range
+     */
+    static long charCount(ByteBuffer buffer, int from, int to) {
+        long count = 0;
+        for (int i = from; i < to; i++) {
+            int b = buffer.get(i);
+            if ((b & 0xC0) != 0x80) {
+                count += (b & 0xF8) == 0xF0 ? 2 : 1;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Counts the UTF-16 characters encoded by a range of well-formed UTF-8 bytes.
+     *
+     * @param bytes the array holding the bytes
+     * @param from the index of the first byte to count (inclusive)
+     * @param to the index of the last byte to count (exclusive)
+     * @return the number of UTF-16 characters in the range
+     */
+    static long charCount(byte[] bytes, int from, int to) {
+        long count = 0;
+        for (int i = from; i < to; i++) {
+            int b = bytes[i];
+            if ((b & 0xC0) != 0x80) {
+                count += (b & 0xF8) == 0xF0 ? 2 : 1;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,122 @@
+package org.example;
+
+import java.nio.ByteBuffer;
+import java.util.function.LongConsumer;
+
+/**
+ * Base class of matchers that look at a window of {@code length()} bytes at a time instead
+ * of keeping an automaton state. To find matches crossing chunk boundaries the last
+ * {@code length() - 1} bytes of the stream are kept; the first bytes of the next chunk are
+ * appended to them and the short seam is searched before the chunk itself. Neither the
+ * chunk nor the seam is shifted.
+ */
+abstract class WindowMatcher implements SubstringMatcher {
+    protected final byte[] needle;
+
+    private final byte[] carry; // Last bytes of the stream, at most needle.length - 1
+    private int carryLength = 0;
+    private final byte[] seamBytes;
+    private final ByteBuffer seam;
+    private long position = 0;
+
+    /**
+     * Constructs a matcher positioned at the start of a stream.
+     *
+     * @param needle the UTF-8 encoded substring
+     */
+    protected WindowMatcher(byte[] needle) {
+        this.needle = needle;
+        this.carry = new byte[needle.length - 1];
+        this.seamBytes = new byte[2 * (needle.length - 1)];
+        this.seam = ByteBuffer.wrap(seamBytes);
+    }
+
+    /**
+     * Returns the index of the first match in a range of the haystack.
+     *
+     * @param haystack the bytes to search
+     * @param from the first index a match may start at
+     * @param to the index after the last byte a match may cover
+     * @return the index where the first match starts, or -1 if there is none
+     */
+    protected abstract int indexOf(ByteBuffer haystack, int from, int to);
+
+    @Override
+    public void reset(long position) {
+        this.carryLength = 0;
+        this.position = position;
+    }
+
+    @Override
+    public long position() {
+        return position;
+    }
+
+    @Override
+    public int length() {
+        return needle.length;
+    }
+
+    @Override
+    public long scan(ByteBuffer chunk, LongConsumer sink, long limit) {
+        if (limit <= 0) {
+            return 0;
+        }
+        int m = needle.length;
+        int from = chunk.position();
+        int to = chunk.limit();
+        long found = 0;
+
+        // Matches starting in the carried bytes
+        if (carryLength > 0) {
+            int head = Math.min(m - 1, to - from);
+            System.arraycopy(carry, 0, seamBytes, 0, carryLength);
+            for (int i = 0; i < head; i++) {
+                seamBytes[carryLength + i] = chunk.get(from + i);
+            }
+            int seamLength = carryLength + head;
+            long seamStart = position - carryLength;
+
+            for (int s = indexOf(seam, 0, seamLength); s >= 0 && s < carryLength;
+                 s = indexOf(seam, s + 1, seamLength)) {
+                sink.accept(seamStart + s);
+                if (++found == limit) {
+                    consume(chunk, from, from + s + m - carryLength);
+                    return found;
+                }
+            }
+        }
+
+        // Matches starting in the chunk
+        for (int s = indexOf(chunk, from, to); s >= 0; s = indexOf(chunk, s + 1, to)) {
+            sink.accept(position + s - from);
+            if (++found == limit) {
+                consume(chunk, from, s + m);
+                return found;
+            }
+        }
+        consume(chunk, from, to);
+        return found;
+    }
+
+    /**
+     * Advances the stream past the consumed bytes of the chunk and keeps the last
+     * {@code length() - 1} bytes of the stream.
+     *
+     * @param chunk the chunk
+     * @param from the index of the first consumed byte
+     * @param to the index after the last consumed byte
+     */
+    private void consume(ByteBuffer chunk, int from, int to) {
+        int consumed = to - from;
+        int kept = Math.max(0, Math.min(carryLength, carry.length - consumed));
+        int copied = Math.min(consumed, carry.length);
+        System.arraycopy(carry, carryLength - kept, carry, 0, kept);
+        for (int i = 0; i < copied; i++) {
+            carry[kept + i] = chunk.get(to - copied + i);
+        }
+        carryLength = kept + copied;
+        position += consumed;
+        chunk.position(to);
+    }
+}
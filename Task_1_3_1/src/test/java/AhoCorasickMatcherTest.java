@@ -0,0 +1,91 @@
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.example.AhoCorasickMatcher;
+import org.example.Match;
+import org.example.SubstringSearch;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AhoCorasickMatcherTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testClassicPatterns() {
+        AhoCorasickMatcher matcher =
+                AhoCorasickMatcher.compile(List.of("he", "she", "his", "hers"));
+        List<Match> matches = new ArrayList<>();
+        matcher.scan(utf8("ushers"), (id, position) -> matches.add(new Match(id, position)));
+        // Reported in the order they end, longest first
+        assertEquals(List.of(new Match(1, 1), new Match(0, 2), new Match(3, 2)), matches);
+    }
+
+    @Test
+    void testStateIsKeptAcrossChunks() {
+        byte[] text = "abrakadabra".getBytes(StandardCharsets.UTF_8);
+        AhoCorasickMatcher matcher = AhoCorasickMatcher.compile(List.of("bra", "kad", "a"));
+        List<Match> matches = new ArrayList<>();
+        for (byte b : text) {
+            matcher.scan(ByteBuffer.wrap(new byte[] {b}), (id, p) -> matches.add(new Match(id, p)));
+        }
+        assertEquals(List.of(new Match(2, 0), new Match(0, 1), new Match(2, 3), new Match(2, 5),
+                new Match(1, 4), new Match(2, 7), new Match(0, 8), new Match(2, 10)), matches);
+    }
+
+    @Test
+    void testFindSeveralSubstringsInFile() throws IOException {
+        File file = tempDir.resolve("testFile.txt").toFile();
+        try (FileWriter writer = new FileWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("абракадабра abrakadabra");
+        }
+
+        List<Match> matches = SubstringSearch.find(file.getAbsolutePath(),
+                List.of("бра", "abra", "кад", "abra"));
+        assertEquals(List.of(new Match(0, 1), new Match(2, 4), new Match(0, 8),
+                new Match(1, 12), new Match(3, 12), new Match(1, 19), new Match(3, 19)), matches);
+    }
+
+    @Test
+    void testFindSeveralSubstringsMatchesSingleSearches() throws IOException {
+        File file = tempDir.resolve("testFile.txt").toFile();
+        try (FileWriter writer = new FileWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("ёжик ёж ежа ёжик aaaa".repeat(1000));
+        }
+        String path = file.getAbsolutePath();
+        List<String> needles = List.of("ёж", "жик ё", "ж", "aa", "ежа ёжик");
+
+        List<Match> matches = SubstringSearch.find(path, needles);
+        for (int id = 0; id < needles.size(); id++) {
+            List<Long> positions = new ArrayList<>();
+            for (Match match : matches) {
+                if (match.getPatternId() == id) {
+                    positions.add(match.getPosition());
+                }
+            }
+            assertEquals(SubstringSearch.find(path, needles.get(id)), positions);
+        }
+    }
+
+    @Test
+    void testInvalidSearchStrings() {
+        assertThrows(IllegalArgumentException.class, () -> AhoCorasickMatcher.compile(List.of()));
+        assertThrows(IllegalArgumentException.class,
+                () -> AhoCorasickMatcher.compile(List.of("a", "")));
+    }
+
+    private static ByteBuffer utf8(String text) {
+        return ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,216 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.NotDirectoryException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.example.DirectorySearch;
+import org.example.FileMatch;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DirectorySearchTest {
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Files.createDirectories(tempDir.resolve("logs/old"));
+        write("a.txt", "abrakadabra");
+        write("b.log", "кобра");
+        write("logs/c.log", "бра бра");
+        write("logs/old/d.log", "no match");
+        write("logs/old/e.txt", "bra");
+    }
+
+    @Test
+    void testFindInWholeTree() throws IOException {
+        try (Stream<FileMatch> matches = new DirectorySearch().find(tempDir, "bra")) {
+            assertEquals(Set.of(match("a.txt", 1), match("a.txt", 8), match("logs/old/e.txt", 0)),
+                    matches.collect(Collectors.toSet()));
+        }
+        try (Stream<FileMatch> matches = new DirectorySearch().find(tempDir, "бра")) {
+            assertEquals(Set.of(match("b.log", 2), match("logs/c.log", 0),
+                    match("logs/c.log", 4)), matches.collect(Collectors.toSet()));
+        }
+    }
+
+    @Test
+    void testFindWithGlob() throws IOException {
+        DirectorySearch search = new DirectorySearch(2, 4);
+        try (Stream<FileMatch> matches = search.find(tempDir, "*.txt", "bra")) {
+            assertEquals(Set.of(match("a.txt", 1), match("a.txt", 8)),
+                    matches.collect(Collectors.toSet()));
+        }
+        try (Stream<FileMatch> matches = search.find(tempDir, "**.log", "бра")) {
+            assertEquals(3, matches.count());
+        }
+    }
+
+    @Test
+    void testBackpressureKeepsFileOrder() throws IOException {
+        for (int i = 0; i < 20; i++) {
+            write("many/" + i + ".txt", "ab".repeat(1000));
+        }
+        DirectorySearch search = new DirectorySearch(3, 1);
+        try (Stream<FileMatch> matches = search.find(tempDir.resolve("many"), "ab")) {
+            List<FileMatch> list = matches.collect(Collectors.toList());
+            assertEquals(20_000, list.size());
+            for (int i = 0; i < 20; i++) {
+                Path file = tempDir.resolve("many/" + i + ".txt");
+                List<Long> positions = list.stream().filter(m -> m.getPath().equals(file))
+                        .map(FileMatch::getPosition).collect(Collectors.toList());
+                assertEquals(1000, positions.size());
+                for (int j = 0; j < positions.size(); j++) {
+                    assertEquals(2L * j, positions.get(j));
+                }
+            }
+        }
+    }
+
+    @Test
+    void testClosingStopsTheSearch() throws IOException {
+        for (int i = 0; i < 50; i++) {
+            write("many/" + i + ".txt", "a".repeat(10_000));
+        }
+        DirectorySearch search = new DirectorySearch(4, 1);
+        for (int round = 0; round < 10; round++) {
+            try (Stream<FileMatch> matches = search.find(tempDir, "a")) {
+                assertEquals(5, matches.limit(5).count());
+            }
+        }
+    }
+
+    @Test
+    void testUnreadableFileIsSkippedAndReported() throws IOException, InterruptedException {
+        Map<Path, IOException> errors = new ConcurrentHashMap<>();
+        try (DirectorySearch search = new DirectorySearch(1, 1)) {
+            List<Path> listed = new CopyOnWriteArrayList<>();
+            try (Stream<FileMatch> matches = findWhileDeleting(search, listed, errors::put)) {
+                List<FileMatch> list = matches.collect(Collectors.toList());
+                assertEquals(10, list.size());
+                assertTrue(list.stream().allMatch(m -> m.getPath().equals(listed.get(0))));
+            }
+            assertEquals(Set.of(listed.get(1)), errors.keySet());
+            assertTrue(errors.get(listed.get(1)) instanceof NoSuchFileException);
+        }
+    }
+
+    @Test
+    void testErrorHandlerCanEndTheSearch() throws IOException, InterruptedException {
+        try (DirectorySearch search = new DirectorySearch(1, 1)) {
+            List<Path> listed = new CopyOnWriteArrayList<>();
+            try (Stream<FileMatch> matches = findWhileDeleting(search, listed, (file, e) -> {
+                throw new UncheckedIOException(e);
+            })) {
+                UncheckedIOException e = assertThrows(UncheckedIOException.class,
+                        matches::count);
+                assertTrue(e.getCause() instanceof NoSuchFileException);
+            }
+        }
+    }
+
+    @Test
+    void testExecutorIsShared() throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            try (DirectorySearch search = new DirectorySearch(executor, 2, 4)) {
+                for (int round = 0; round < 3; round++) {
+                    try (Stream<FileMatch> matches = search.find(tempDir, "bra")) {
+                        assertEquals(3, matches.count());
+                    }
+                }
+            }
+            // Чужой пул не останавливается при закрытии
+            assertFalse(executor.isShutdown());
+        } finally {
+            executor.shutdownNow();
+        }
+        DirectorySearch search = new DirectorySearch();
+        search.close();
+        assertThrows(IllegalStateException.class, () -> search.find(tempDir, "bra"));
+    }
+
+    @Test
+    void testInvalidArguments() {
+        assertThrows(NotDirectoryException.class,
+                () -> new DirectorySearch().find(tempDir.resolve("a.txt"), "bra"));
+        assertThrows(IllegalArgumentException.class,
+                () -> new DirectorySearch().find(tempDir, ""));
+        assertThrows(IllegalArgumentException.class, () -> new DirectorySearch(0, 1));
+    }
+
+    /**
+     * Запускает поиск по каталогу из двух файлов и удаляет второй из них, когда обходчик
+     * его уже выдал, а первый файл ещё ищется: очередь на одно вхождение не даёт первому
+     * файлу закончиться, пока результаты не читают.
+     *
+     * @param search поисковик с одним потоком поиска и очередью на одно вхождение
+     * @param listed список, в который записываются файлы в порядке обхода
+     * @param onError обработчик пропущенных файлов
+     * @return поток вхождений
+     * @throws IOException если запись не удалась
+     * @throws InterruptedException если ожидание прервано
+     */
+    private Stream<FileMatch> findWhileDeleting(DirectorySearch search, List<Path> listed,
+            BiConsumer<Path, IOException> onError) throws IOException, InterruptedException {
+        write("race/x.txt", "bra".repeat(10));
+        write("race/y.txt", "bra".repeat(10));
+        Path directory = tempDir.resolve("race");
+        CountDownLatch bothListed = new CountDownLatch(2);
+        Stream<FileMatch> matches = search.find(directory, path -> {
+            listed.add(directory.resolve(path));
+            bothListed.countDown();
+            return true;
+        }, "bra", onError);
+        assertTrue(bothListed.await(10, TimeUnit.SECONDS));
+        Files.delete(listed.get(1));
+        return matches;
+    }
+
+    /**
+     * Записывает строку в файл каталога в кодировке UTF-8.
+     *
+     * @param name путь к файлу относительно каталога
+     * @param content содержимое
+     * @throws IOException если запись не удалась
+     */
+    private void write(String name, String content) throws IOException {
+        Path file = tempDir.resolve(name);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Создаёт ожидаемое вхождение.
+     *
+     * @param name путь к файлу относительно каталога
+     * @param position позиция вхождения
+     * @return вхождение
+     */
+    private FileMatch match(String name, long position) {
+        return new FileMatch(tempDir.resolve(name), position);
+    }
+}
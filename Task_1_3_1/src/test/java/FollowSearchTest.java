@@ -0,0 +1,101 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import org.example.FollowSearch;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FollowSearchTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path log;
+
+    @BeforeEach
+    void setUp() {
+        log = tempDir.resolve("app.log");
+    }
+
+    @Test
+    void testPollReportsOnlyNewOccurrences() throws IOException {
+        append("абракадабра");
+        try (FollowSearch search = new FollowSearch(log.toString(), "бра")) {
+            assertEquals(List.of(1L, 8L), search.poll());
+            assertEquals(List.of(), search.poll());
+            append(" кобра");
+            assertEquals(List.of(14L), search.poll());
+            assertEquals(33, search.position());
+        }
+    }
+
+    @Test
+    void testMatchSplitAcrossPolls() throws IOException {
+        append("xxаб");
+        try (FollowSearch search = new FollowSearch(log.toString(), "абра")) {
+            assertEquals(List.of(), search.poll());
+            // The appended bytes split the letter "р" in two
+            byte[] rest = "ра".getBytes(StandardCharsets.UTF_8);
+            Files.write(log, new byte[] {rest[0]}, StandardOpenOption.APPEND);
+            assertEquals(List.of(), search.poll());
+            Files.write(log, new byte[] {rest[1], rest[2], rest[3]}, StandardOpenOption.APPEND);
+            assertEquals(List.of(2L), search.poll());
+        }
+    }
+
+    @Test
+    void testWaitsForMissingFile() throws IOException {
+        try (FollowSearch search = new FollowSearch(log.toString(), "error")) {
+            assertEquals(List.of(), search.poll());
+            append("no error");
+            assertEquals(List.of(3L), search.poll());
+            assertEquals(0, search.restarts());
+        }
+    }
+
+    @Test
+    void testTruncationRestartsSearch() throws IOException {
+        append("error error");
+        try (FollowSearch search = new FollowSearch(log.toString(), "error")) {
+            assertEquals(List.of(0L, 6L), search.poll());
+            Files.writeString(log, "an error", StandardCharsets.UTF_8,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            assertEquals(List.of(3L), search.poll());
+            assertEquals(1, search.restarts());
+        }
+    }
+
+    @Test
+    void testRotationFinishesOldFileFirst() throws IOException {
+        append("error ");
+        try (FollowSearch search = new FollowSearch(log.toString(), "error")) {
+            assertEquals(List.of(0L), search.poll());
+            append("late error");
+            Files.move(log, tempDir.resolve("app.log.1"));
+            append("new error");
+            assertEquals(List.of(11L, 4L), search.poll());
+            assertEquals(1, search.restarts());
+            append(" error");
+            assertEquals(List.of(10L), search.poll());
+        }
+    }
+
+    /**
+     * Дописывает строку в конец журнала в кодировке UTF-8.
+     *
+     * @param content дописываемая строка
+     * @throws IOException если запись не удалась
+     */
+    private void append(String content) throws IOException {
+        Files.writeString(log, content, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                StandardOpenOption.APPEND);
+    }
+}
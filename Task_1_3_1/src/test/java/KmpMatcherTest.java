@@ -0,0 +1,95 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.example.KmpMatcher;
+import org.junit.jupiter.api.Test;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class KmpMatcherTest {
+
+    @Test
+    void testScanSingleChunk() {
+        KmpMatcher matcher = KmpMatcher.compile("bra");
+        List<Long> occurrences = new ArrayList<>();
+        matcher.scan(utf8("abrakadabra"), occurrences::add);
+        assertEquals(List.of(1L, 8L), occurrences);
+        assertEquals(11L, matcher.position());
+    }
+
+    @Test
+    void testStateIsKeptAcrossChunks() {
+        byte[] text = "abababababab".getBytes(StandardCharsets.UTF_8);
+        KmpMatcher matcher = KmpMatcher.compile("abab");
+        List<Long> occurrences = new ArrayList<>();
+        for (byte b : text) {
+            matcher.scan(ByteBuffer.wrap(new byte[] {b}), occurrences::add);
+        }
+        assertEquals(List.of(0L, 2L, 4L, 6L, 8L), occurrences);
+    }
+
+    @Test
+    void testByteOffsetsOfMultibyteNeedle() {
+        KmpMatcher matcher = KmpMatcher.compile("бра");
+        List<Long> occurrences = new ArrayList<>();
+        matcher.scan(utf8("абракадабра"), occurrences::add);
+        assertEquals(List.of(2L, 16L), occurrences);
+        assertEquals(6, matcher.length());
+        assertEquals(3, matcher.charLength());
+    }
+
+    @Test
+    void testForkAndReset() {
+        KmpMatcher matcher = KmpMatcher.compile("aa");
+        matcher.scan(utf8("a"), position -> { });
+        KmpMatcher fork = matcher.fork();
+        List<Long> occurrences = new ArrayList<>();
+        fork.reset(100);
+        fork.scan(utf8("aaa"), occurrences::add);
+        assertEquals(List.of(100L, 101L), occurrences);
+
+        occurrences.clear();
+        matcher.reset();
+        matcher.scan(utf8("a"), occurrences::add);
+        assertEquals(List.of(), occurrences, "Reset must forget the partial match");
+    }
+
+    @Test
+    void testDenseMatchesAreLinear() {
+        ByteBuffer text = ByteBuffer.allocate(8 * 1024 * 1024);
+        while (text.hasRemaining()) {
+            text.put((byte) 'a');
+        }
+        text.flip();
+        long[] count = new long[1];
+        KmpMatcher.compile("a").scan(text, position -> count[0]++);
+        assertEquals(8L * 1024 * 1024, count[0]);
+    }
+
+    @Test
+    void testScanStopsAtLimit() {
+        ByteBuffer text = utf8("aXaXaXaX");
+        KmpMatcher matcher = KmpMatcher.compile("aX");
+        List<Long> occurrences = new ArrayList<>();
+        assertEquals(2L, matcher.scan(text, occurrences::add, 2));
+        assertEquals(List.of(0L, 2L), occurrences);
+        assertEquals(4, text.position(), "The chunk must stop after the last match");
+        assertEquals(4L, matcher.position());
+
+        assertEquals(2L, matcher.scan(text, occurrences::add, 5));
+        assertEquals(List.of(0L, 2L, 4L, 6L), occurrences);
+    }
+
+    @Test
+    void testEmptySearchString() {
+        assertThrows(IllegalArgumentException.class, () -> KmpMatcher.compile(""));
+    }
+
+    private static ByteBuffer utf8(String text) {
+        return ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,42 @@
+import org.example.LongList;
+import org.junit.jupiter.api.Test;
+
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LongListTest {
+
+    @Test
+    void testAddAndGrow() {
+        LongList list = new LongList(0);
+        for (long i = 0; i < 100; i++) {
+            list.add(i * 3);
+        }
+        assertEquals(100, list.size());
+        assertEquals(297L, list.get(99));
+        assertEquals(30L, list.get(10));
+    }
+
+    @Test
+    void testToArrayAndClear() {
+        LongList list = new LongList();
+        list.accept(1);
+        list.accept(2);
+        assertArrayEquals(new long[] {1, 2}, list.toArray());
+        assertEquals("[1, 2]", list.toString());
+
+        list.clear();
+        assertEquals(0, list.size());
+        assertArrayEquals(new long[0], list.toArray());
+    }
+
+    @Test
+    void testGetOutOfBounds() {
+        LongList list = new LongList();
+        list.add(1);
+        assertThrows(IndexOutOfBoundsException.class, () -> list.get(1));
+        assertThrows(IndexOutOfBoundsException.class, () -> list.get(-1));
+    }
+}
@@ -0,0 +1,197 @@
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.example.NgramIndex;
+import org.example.SubstringSearch;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NgramIndexTest {
+
+    @TempDir
+    Path tempDir;
+
+    private File testFile;
+
+    @BeforeEach
+    void setUp() {
+        testFile = tempDir.resolve("testFile.txt").toFile();
+    }
+
+    @Test
+    void testBuildWritesIndexNextToFile() throws IOException {
+        writeToFile(testFile, "abrakadabra");
+        try (NgramIndex index = NgramIndex.build(testFile.getAbsolutePath())) {
+            assertTrue(index.isCurrent());
+            assertEquals(List.of(1L, 8L), index.find("bra"));
+            assertEquals(List.of(0L, 7L), index.find("abra"));
+            assertEquals(List.of(), index.find("brak!"));
+        }
+        assertTrue(Files.exists(tempDir.resolve("testFile.txt" + NgramIndex.INDEX_SUFFIX)));
+    }
+
+    @Test
+    void testOverlappingAndShortOccurrences() throws IOException {
+        writeToFile(testFile, "ababababa");
+        String path = testFile.getAbsolutePath();
+        NgramIndex.build(path).close();
+        assertEquals(List.of(0L, 2L, 4L, 6L), SubstringSearch.findIndexed(path, "aba"));
+        assertEquals(List.of(1L, 3L, 5L, 7L), SubstringSearch.findIndexed(path, "ba"));
+    }
+
+    @Test
+    void testCyrillicAndSurrogatePairs() throws IOException {
+        writeToFile(testFile, "абракадабра 😀абра");
+        String path = testFile.getAbsolutePath();
+        NgramIndex.build(path).close();
+        assertEquals(List.of(1L, 8L, 15L), SubstringSearch.findIndexed(path, "бра"));
+        assertEquals(List.of(12L), SubstringSearch.findIndexed(path, "😀а"));
+    }
+
+    @Test
+    void testMatchesRandomTextAcrossCheckpoints() throws IOException {
+        Random random = new Random(8);
+        String alphabet = "абвab";
+        StringBuilder text = new StringBuilder();
+        while (text.length() < 100_000) {
+            text.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            if (random.nextInt(50) == 0) {
+                text.append("😀");
+            }
+        }
+        writeToFile(testFile, text.toString());
+        String path = testFile.getAbsolutePath();
+
+        try (NgramIndex index = NgramIndex.build(path)) {
+            for (String needle : List.of("аба", "ab😀", "ббб", "aabа", "😀a", "бa", "вaв")) {
+                assertEquals(SubstringSearch.find(path, needle), index.find(needle), needle);
+            }
+        }
+    }
+
+    @Test
+    void testPostingsAreCompressed() throws IOException {
+        Random random = new Random(3);
+        StringBuilder text = new StringBuilder();
+        while (text.length() < 4_000_000) {
+            text.append("abcdefgh".charAt(random.nextInt(8)));
+        }
+        writeToFile(testFile, text.toString());
+        String path = testFile.getAbsolutePath();
+        NgramIndex.build(path).close();
+
+        // По 8 байт на позицию индекс был бы в 8 раз больше файла
+        long indexSize = Files.size(tempDir.resolve("testFile.txt" + NgramIndex.INDEX_SUFFIX));
+        assertTrue(indexSize < 3L * text.length(), "index of " + indexSize + " bytes");
+        try (NgramIndex index = NgramIndex.open(path)) {
+            assertEquals(SubstringSearch.find(path, "hgfedcba"), index.find("hgfedcba"));
+        }
+    }
+
+    @Test
+    void testConcurrentQueries() throws Exception {
+        Random random = new Random(5);
+        StringBuilder text = new StringBuilder();
+        while (text.length() < 200_000) {
+            text.append("абab😀".charAt(random.nextInt(4)));
+        }
+        writeToFile(testFile, text.toString());
+        String path = testFile.getAbsolutePath();
+        List<String> needles = List.of("аба", "abаb", "ббa", "aaб", "бaбa");
+        List<List<Long>> expected = new ArrayList<>();
+        for (String needle : needles) {
+            expected.add(SubstringSearch.find(path, needle));
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try (NgramIndex index = NgramIndex.build(path)) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                futures.add(pool.submit(() -> {
+                    for (int round = 0; round < 20; round++) {
+                        for (int i = 0; i < needles.size(); i++) {
+                            assertEquals(expected.get(i), index.find(needles.get(i)));
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void testMissingIndexFallsBackToScan() throws IOException {
+        writeToFile(testFile, "abrakadabra");
+        try (NgramIndex index = NgramIndex.open(testFile.getAbsolutePath())) {
+            assertFalse(index.isCurrent());
+            assertEquals(List.of(1L, 8L), index.find("bra"));
+        }
+    }
+
+    @Test
+    void testChangedFileFallsBackToScan() throws IOException {
+        writeToFile(testFile, "abrakadabra");
+        String path = testFile.getAbsolutePath();
+        NgramIndex.build(path).close();
+
+        writeToFile(testFile, "xxabrakadabra");
+        try (NgramIndex index = NgramIndex.open(path)) {
+            assertFalse(index.isCurrent());
+            assertEquals(List.of(3L, 10L), index.find("bra"));
+        }
+
+        // Same size, different modification time
+        writeToFile(testFile, "abracadabra");
+        NgramIndex.build(path).close();
+        writeToFile(testFile, "abrakadabra");
+        Files.setLastModifiedTime(testFile.toPath(), FileTime.fromMillis(0));
+        try (NgramIndex index = NgramIndex.open(path)) {
+            assertFalse(index.isCurrent());
+            assertEquals(List.of(3L), index.find("aka"));
+        }
+    }
+
+    @Test
+    void testEmptySearchString() throws IOException {
+        writeToFile(testFile, "abc");
+        try (NgramIndex index = NgramIndex.build(testFile.getAbsolutePath())) {
+            assertThrows(IllegalArgumentException.class, () -> index.find(""));
+        }
+    }
+
+    /**
+     * Записывает строку в файл в кодировке UTF-8.
+     *
+     * @param file файл
+     * @param content содержимое
+     * @throws IOException если запись не удалась
+     */
+    private void writeToFile(File file, String content) throws IOException {
+        try (FileWriter writer = new FileWriter(file, StandardCharsets.UTF_8)) {
+            writer.write(content);
+        }
+    }
+}
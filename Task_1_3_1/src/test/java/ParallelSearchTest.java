@@ -0,0 +1,119 @@
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.example.ParallelSearch;
+import org.example.SubstringSearch;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ParallelSearchTest {
+
+    @TempDir
+    Path tempDir;
+
+    private File testFile;
+    private ForkJoinPool pool;
+
+    @BeforeEach
+    void setUp() {
+        testFile = tempDir.resolve("testFile.txt").toFile();
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    void testFindParallelSingleOccurrence() throws IOException {
+        writeToFile(testFile, "abrakadabra");
+        assertEquals(List.of(1L, 8L),
+                SubstringSearch.findParallel(testFile.getAbsolutePath(), "bra"));
+    }
+
+    @Test
+    void testMatchesCrossingRangeBoundaries() throws IOException {
+        writeToFile(testFile, "abrakadabra");
+        String path = testFile.getAbsolutePath();
+        for (int rangeSize = 1; rangeSize <= 12; rangeSize++) {
+            ParallelSearch search = new ParallelSearch(pool, rangeSize);
+            assertEquals(List.of(1L, 8L), search.find(path, "bra"), "range size " + rangeSize);
+            assertEquals(List.of(0L, 7L), search.find(path, "abra"), "range size " + rangeSize);
+        }
+    }
+
+    @Test
+    void testOverlappingMatchesWithoutDuplicates() throws IOException {
+        writeToFile(testFile, "aaaaaaaaaaaaaaaaaaaa");
+        String path = testFile.getAbsolutePath();
+        List<Long> expected = SubstringSearch.find(path, "aaa");
+        for (int rangeSize = 1; rangeSize <= 8; rangeSize++) {
+            assertEquals(expected, new ParallelSearch(pool, rangeSize).find(path, "aaa"));
+        }
+    }
+
+    @Test
+    void testCyrillicCharacterAndByteOffsets() throws IOException {
+        writeToFile(testFile, "абракадабра".repeat(50));
+        String path = testFile.getAbsolutePath();
+        for (int rangeSize = 1; rangeSize <= 7; rangeSize++) {
+            ParallelSearch search = new ParallelSearch(pool, rangeSize);
+            assertEquals(SubstringSearch.find(path, "бра"), search.find(path, "бра"));
+            assertEquals(SubstringSearch.findMappedBytes(path, "бра"),
+                    search.findBytes(path, "бра"));
+        }
+    }
+
+    @Test
+    void testFindParallelInEmptyFile() throws IOException {
+        writeToFile(testFile, "");
+        assertEquals(List.of(), SubstringSearch.findParallel(testFile.getAbsolutePath(), "any"));
+    }
+
+    @Test
+    void testResultsStreamedInOrderAcrossManyRanges() throws IOException {
+        writeToFile(testFile, "ab".repeat(500));
+        String path = testFile.getAbsolutePath();
+        ParallelSearch search = new ParallelSearch(pool, 3);
+        List<Long> positions = new ArrayList<>();
+        search.find(path, "ab", positions::add);
+        assertEquals(SubstringSearch.find(path, "ab"), positions);
+
+        // Исключение приёмника прерывает поиск, а не ждёт остальных диапазонов
+        List<Long> seen = new ArrayList<>();
+        assertThrows(IllegalStateException.class, () -> search.find(path, "ab", position -> {
+            seen.add(position);
+            if (seen.size() == 10) {
+                throw new IllegalStateException("enough");
+            }
+        }));
+        assertEquals(positions.subList(0, 10), seen);
+    }
+
+    @Test
+    void testInvalidRangeSize() {
+        assertThrows(IllegalArgumentException.class, () -> new ParallelSearch(pool, 0));
+    }
+
+    /**
+     * Вспомогательный метод для записи текста в файл в кодировке UTF-8.
+     */
+    private void writeToFile(File file, String content) throws IOException {
+        try (FileWriter writer = new FileWriter(file, StandardCharsets.UTF_8)) {
+            writer.write(content);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.example.SearchMetrics;
+import org.example.SubstringSearch;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SearchMetricsTest {
+
+    @TempDir
+    Path tempDir;
+
+    private File testFile;
+    private final List<SearchMetrics> reported = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        testFile = tempDir.resolve("testFile.txt").toFile();
+        SubstringSearch.setMetricsListener(reported::add);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SubstringSearch.setMetricsListener(null);
+    }
+
+    @Test
+    void testFindReportsMetrics() throws IOException {
+        String text = "абракадабра".repeat(100_000);
+        writeToFile(testFile, text);
+        List<Long> positions = SubstringSearch.find(testFile.getAbsolutePath(), "бра");
+
+        assertEquals(200_000, positions.size());
+        assertEquals(1, reported.size());
+        SearchMetrics metrics = reported.get(0);
+        assertEquals(2_200_000, metrics.getBytesRead());
+        assertEquals(3, metrics.getChunks());
+        assertEquals(200_000, metrics.getHits());
+        assertTrue(metrics.getReadNanos() >= 0 && metrics.getDecodeNanos() >= 0);
+        assertTrue(metrics.getMatchNanos() >= 0 && metrics.getSinkNanos() >= 0);
+        assertTrue(metrics.getTotalNanos() >= metrics.getReadNanos());
+        assertTrue(metrics.getThroughput() > 0);
+    }
+
+    @Test
+    void testLimitedAndCountingSearchesAreMeasured() throws IOException {
+        writeToFile(testFile, "abrakadabra");
+        String path = testFile.getAbsolutePath();
+        assertEquals(List.of(1L), SubstringSearch.find(path, "bra", 1));
+        assertEquals(2, SubstringSearch.count(path, "bra"));
+
+        assertEquals(2, reported.size());
+        assertEquals(1, reported.get(0).getHits());
+        assertEquals(2, reported.get(1).getHits());
+        assertEquals(0, reported.get(1).getDecodeNanos());
+        assertEquals(11, reported.get(1).getBytesRead());
+    }
+
+    @Test
+    void testNoMetricsWithoutListener() throws IOException {
+        SubstringSearch.setMetricsListener(null);
+        assertNull(SubstringSearch.getMetricsListener());
+        writeToFile(testFile, "abrakadabra");
+        assertEquals(List.of(1L, 8L), SubstringSearch.find(testFile.getAbsolutePath(), "bra"));
+        assertTrue(reported.isEmpty());
+    }
+
+    /**
+     * Записывает строку в файл в кодировке UTF-8.
+     *
+     * @param file файл
+     * @param content содержимое
+     * @throws IOException если запись не удалась
+     */
+    private void writeToFile(File file, String content) throws IOException {
+        try (FileWriter writer = new FileWriter(file, StandardCharsets.UTF_8)) {
+            writer.write(content);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.example.MatchAlgorithm;
+import org.example.SubstringMatcher;
+import org.junit.jupiter.api.Test;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+class SubstringMatcherTest {
+
+    @Test
+    void testAllAlgorithmsAgreeWithNaiveSearch() {
+        Random random = new Random(42);
+        for (int round = 0; round < 300; round++) {
+            String alphabet = round % 2 == 0 ? "ab" : "abcdж";
+            String text = randomString(random, alphabet, 1 + random.nextInt(200));
+            String needle = randomString(random, alphabet, 1 + random.nextInt(8));
+            List<Long> expected = naiveFind(text.getBytes(StandardCharsets.UTF_8),
+                    needle.getBytes(StandardCharsets.UTF_8));
+
+            for (MatchAlgorithm algorithm : MatchAlgorithm.values()) {
+                int chunkSize = 1 + random.nextInt(10);
+                assertEquals(expected, scanInChunks(SubstringMatcher.compile(needle, algorithm),
+                        text, chunkSize), algorithm + " " + needle + " in " + text);
+            }
+        }
+    }
+
+    @Test
+    void testAllAlgorithmsStopAtLimit() {
+        byte[] text = "abababababab".getBytes(StandardCharsets.UTF_8);
+        for (MatchAlgorithm algorithm : MatchAlgorithm.values()) {
+            SubstringMatcher matcher = SubstringMatcher.compile("abab", algorithm);
+            List<Long> occurrences = new ArrayList<>();
+            ByteBuffer first = ByteBuffer.wrap(text, 0, 3);
+            ByteBuffer second = ByteBuffer.wrap(text, 3, text.length - 3);
+            matcher.scan(first, occurrences::add);
+            assertEquals(2L, matcher.scan(second, occurrences::add, 2), algorithm.name());
+            assertEquals(List.of(0L, 2L), occurrences, algorithm.name());
+            assertEquals(6, second.position(), algorithm.name());
+
+            matcher.scan(second, occurrences::add);
+            assertEquals(List.of(0L, 2L, 4L, 6L, 8L), occurrences, algorithm.name());
+        }
+    }
+
+    @Test
+    void testForkedMatcherStartsFresh() {
+        for (MatchAlgorithm algorithm : MatchAlgorithm.values()) {
+            SubstringMatcher matcher = SubstringMatcher.compile("needle", algorithm);
+            matcher.scan(utf8("nee"), position -> { });
+            SubstringMatcher fork = matcher.fork();
+            List<Long> occurrences = new ArrayList<>();
+            fork.scan(utf8("dleneedle"), occurrences::add);
+            assertEquals(List.of(3L), occurrences, algorithm.name());
+        }
+    }
+
+    @Test
+    void testSkewedInputStaysLinear() {
+        // Horspool сравнивает почти всю иглу на каждый байт такого текста
+        String needle = "bca" + "a".repeat(1000);
+        byte[] text = new byte[16 << 20];
+        Arrays.fill(text, (byte) 'a');
+        byte[] tail = needle.getBytes(StandardCharsets.UTF_8);
+        System.arraycopy(tail, 0, text, text.length - tail.length, tail.length);
+
+        for (MatchAlgorithm algorithm : List.of(MatchAlgorithm.AUTO, MatchAlgorithm.HORSPOOL)) {
+            List<Long> occurrences = new ArrayList<>();
+            assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+                SubstringMatcher matcher = SubstringMatcher.compile(needle, algorithm);
+                for (int from = 0; from < text.length; from += 1 << 20) {
+                    matcher.scan(ByteBuffer.wrap(text, from, 1 << 20), occurrences::add);
+                }
+            }, algorithm.name());
+            assertEquals(List.of((long) text.length - tail.length), occurrences,
+                    algorithm.name());
+        }
+    }
+
+    private static List<Long> scanInChunks(SubstringMatcher matcher, String text, int chunkSize) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        List<Long> occurrences = new ArrayList<>();
+        for (int from = 0; from < bytes.length; from += chunkSize) {
+            int length = Math.min(chunkSize, bytes.length - from);
+            matcher.scan(ByteBuffer.wrap(bytes, from, length), occurrences::add);
+        }
+        return occurrences;
+    }
+
+    private static List<Long> naiveFind(byte[] text, byte[] needle) {
+        List<Long> occurrences = new ArrayList<>();
+        for (int s = 0; s + needle.length <= text.length; s++) {
+            int i = 0;
+            while (i < needle.length && text[s + i] == needle[i]) {
+                i++;
+            }
+            if (i == needle.length) {
+                occurrences.add((long) s);
+            }
+        }
+        return occurrences;
+    }
+
+    private static String randomString(Random random, String alphabet, int length) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return sb.toString();
+    }
+
+    private static ByteBuffer utf8(String text) {
+        return ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
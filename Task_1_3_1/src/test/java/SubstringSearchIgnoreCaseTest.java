@@ -0,0 +1,160 @@
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.example.SubstringMatcher;
+import org.example.SubstringSearch;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SubstringSearchIgnoreCaseTest {
+
+    private static final String[] TOKENS = {"a", "A", "k", "K", "K", "s", "S", "ſ",
+        "б", "Б", "ǅ", "Ǆ", "ǆ", "i", "I", "İ", "ı", "😀", "𐐀", "𐐨"};
+
+    @TempDir
+    Path tempDir;
+
+    private File testFile;
+
+    @BeforeEach
+    void setUp() {
+        testFile = tempDir.resolve("testFile.txt").toFile();
+    }
+
+    @Test
+    void testAsciiIgnoreCase() throws IOException {
+        writeToFile(testFile, "Abrakadabra ABRA abra");
+        assertEquals(List.of(0L, 7L, 12L, 17L),
+                SubstringSearch.findIgnoreCase(testFile.getAbsolutePath(), "aBrA"));
+    }
+
+    @Test
+    void testCyrillicIgnoreCase() throws IOException {
+        writeToFile(testFile, "АБРАкадабра");
+        assertEquals(List.of(1L, 8L),
+                SubstringSearch.findIgnoreCase(testFile.getAbsolutePath(), "бра"));
+    }
+
+    @Test
+    void testCaseVariantsWithLongerEncoding() throws IOException {
+        // Kelvin sign and long s match "k" and "s"
+        writeToFile(testFile, "oKy, ſky, OKAY");
+        String path = testFile.getAbsolutePath();
+        assertEquals(List.of(1L, 6L, 11L), SubstringSearch.findIgnoreCase(path, "k"));
+        assertEquals(List.of(0L, 10L), SubstringSearch.findIgnoreCase(path, "ok"));
+        assertEquals(List.of(5L), SubstringSearch.findIgnoreCase(path, "SKY"));
+    }
+
+    @Test
+    void testDottedAndDotlessIAreNotFolded() throws IOException {
+        writeToFile(testFile, "iIİı");
+        assertEquals(List.of(0L, 1L),
+                SubstringSearch.findIgnoreCase(testFile.getAbsolutePath(), "i"));
+    }
+
+    @Test
+    void testFoldingAgreesWithNaiveSearch() {
+        Random random = new Random(12);
+        for (int round = 0; round < 500; round++) {
+            List<String> text = randomTokens(random, 1 + random.nextInt(100));
+            List<String> needle = randomTokens(random, 1 + random.nextInt(4));
+            List<Long> expected = naiveFind(text, needle);
+
+            SubstringMatcher matcher = SubstringMatcher.compileIgnoreCase(String.join("", needle));
+            byte[] bytes = String.join("", text).getBytes(StandardCharsets.UTF_8);
+            int chunkSize = 1 + random.nextInt(10);
+            List<Long> occurrences = new ArrayList<>();
+            for (int from = 0; from < bytes.length; from += chunkSize) {
+                int length = Math.min(chunkSize, bytes.length - from);
+                matcher.scan(ByteBuffer.wrap(bytes, from, length), occurrences::add);
+            }
+            assertEquals(expected, occurrences, needle + " in " + text);
+        }
+    }
+
+    @Test
+    void testMalformedBytesMatchNothing() {
+        byte[] bytes = {'a', (byte) 0xD0, 'b', (byte) 0x80, 'A', 'B'};
+        List<Long> occurrences = new ArrayList<>();
+        SubstringMatcher.compileIgnoreCase("бb").scan(ByteBuffer.wrap(bytes),
+                occurrences::add);
+        SubstringMatcher.compileIgnoreCase("ab").scan(ByteBuffer.wrap(bytes), occurrences::add);
+        assertEquals(List.of(4L), occurrences);
+    }
+
+    @Test
+    void testEmptySearchString() {
+        assertThrows(IllegalArgumentException.class,
+                () -> SubstringSearch.findIgnoreCase(testFile.getAbsolutePath(), ""));
+    }
+
+    /**
+     * Ищет вхождения последовательности символов, сравнивая их без учёта регистра.
+     *
+     * @param text текст, разбитый на символы
+     * @param needle искомая последовательность
+     * @return смещения вхождений в байтах UTF-8
+     */
+    private static List<Long> naiveFind(List<String> text, List<String> needle) {
+        List<Long> occurrences = new ArrayList<>();
+        long offset = 0;
+        for (int s = 0; s + needle.size() <= text.size(); s++) {
+            int i = 0;
+            while (i < needle.size() && fold(text.get(s + i)) == fold(needle.get(i))) {
+                i++;
+            }
+            if (i == needle.size()) {
+                occurrences.add(offset);
+            }
+            offset += text.get(s).getBytes(StandardCharsets.UTF_8).length;
+        }
+        return occurrences;
+    }
+
+    /**
+     * Приводит символ к единому регистру.
+     *
+     * @param s строка из одного символа
+     * @return свёрнутый код символа
+     */
+    private static int fold(String s) {
+        int codePoint = s.codePointAt(0);
+        if (codePoint == 0x130 || codePoint == 0x131) {
+            return codePoint;
+        }
+        return Character.toLowerCase(Character.toUpperCase(codePoint));
+    }
+
+    private static List<String> randomTokens(Random random, int length) {
+        List<String> tokens = new ArrayList<>();
+        for (int i = 0; i < length; i++) {
+            tokens.add(TOKENS[random.nextInt(TOKENS.length)]);
+        }
+        return tokens;
+    }
+
+    /**
+     * Записывает строку в файл в кодировке UTF-8.
+     *
+     * @param file файл
+     * @param content содержимое
+     * @throws IOException если запись не удалась
+     */
+    private void writeToFile(File file, String content) throws IOException {
+        try (FileWriter writer = new FileWriter(file, StandardCharsets.UTF_8)) {
+            writer.write(content);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.example.SubstringSearch;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SubstringSearchMappedTest {
+
+    @TempDir
+    Path tempDir;
+
+    private File testFile;
+
+    @BeforeEach
+    void setUp() {
+        testFile = tempDir.resolve("testFile.txt").toFile();
+    }
+
+    @Test
+    void testFindMappedSingleOccurrence() throws IOException {
+        writeToFile(testFile, "abrakadabra");
+        assertEquals(List.of(1L, 8L),
+                SubstringSearch.findMapped(testFile.getAbsolutePath(), "bra"));
+    }
+
+    @Test
+    void testFindMappedOverlappingOccurrences() throws IOException {
+        writeToFile(testFile, "ababababa");
+        assertEquals(List.of(0L, 2L, 4L, 6L),
+                SubstringSearch.findMapped(testFile.getAbsolutePath(), "aba"));
+    }
+
+    @Test
+    void testFindMappedCyrillicCharacterAndByteOffsets() throws IOException {
+        writeToFile(testFile, "абракадабра");
+        assertEquals(List.of(1L, 8L),
+                SubstringSearch.findMapped(testFile.getAbsolutePath(), "бра"));
+        assertEquals(List.of(2L, 16L),
+                SubstringSearch.findMappedBytes(testFile.getAbsolutePath(), "бра"));
+    }
+
+    @Test
+    void testFindMappedSurrogatePairs() throws IOException {
+        writeToFile(testFile, "😀a😀a");
+        String path = testFile.getAbsolutePath();
+        assertEquals(List.of(2L, 5L), SubstringSearch.findMapped(path, "a"));
+        assertEquals(List.of(4L, 9L), SubstringSearch.findMappedBytes(path, "a"));
+    }
+
+    @Test
+    void testFindMappedMatchesDecodingSearch() throws IOException {
+        writeToFile(testFile, "ёжик ёж ежа ёжик".repeat(100));
+        String path = testFile.getAbsolutePath();
+        assertEquals(SubstringSearch.find(path, "ёж"), SubstringSearch.findMapped(path, "ёж"));
+    }
+
+    @Test
+    void testFindMappedInEmptyFile() throws IOException {
+        writeToFile(testFile, "");
+        assertEquals(List.of(), SubstringSearch.findMapped(testFile.getAbsolutePath(), "any"));
+    }
+
+    @Test
+    void testFindMappedEmptySearchString() throws IOException {
+        writeToFile(testFile, "text");
+        assertThrows(IllegalArgumentException.class,
+                () -> SubstringSearch.findMapped(testFile.getAbsolutePath(), ""));
+    }
+
+    /**
+     * Вспомогательный метод для записи текста в файл в кодировке UTF-8.
+     */
+    private void writeToFile(File file, String content) throws IOException {
+        try (FileWriter writer = new FileWriter(file, StandardCharsets.UTF_8)) {
+            writer.write(content);
+        }
+    }
+}
@@ -39,4 +39,13 @@ class SubstringSearchMemoryTest {
         assertEquals(List.of(1024L * 1024 * 1024L), occurrences,
                 "Expected one occurrence of 'needle' at the end of the file");
     }
+
+    @Test
+    void testFindMappedSubstringAcrossWindowBoundary() throws IOException {
+        // "needle" starts exactly at the end of the first 1 GB mapping window
+        List<Long> occurrences = SubstringSearch.findMapped(largeTestFile.getAbsolutePath(),
+                "aneedle");
+        assertEquals(List.of(1024L * 1024 * 1024L - 1), occurrences,
+                "Expected one occurrence crossing the mapping window boundary");
+    }
 }
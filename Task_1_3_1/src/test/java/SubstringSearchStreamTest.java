@@ -0,0 +1,110 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import org.example.LongList;
+import org.example.SubstringSearch;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SubstringSearchStreamTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testFindInInputStream() throws IOException {
+        InputStream in = stream("абракадабра");
+        assertEquals(List.of(1L, 8L), SubstringSearch.find(in, "бра"));
+    }
+
+    @Test
+    void testFindInChannel() throws IOException {
+        InputStream in = stream("ababababa");
+        assertEquals(List.of(0L, 2L, 4L, 6L),
+                SubstringSearch.find(Channels.newChannel(in), "aba"));
+    }
+
+    @Test
+    void testFindInTricklingStream() throws IOException {
+        // A stream returning one byte per read, like a slow socket
+        byte[] bytes = "😀ab😀abcab".getBytes(StandardCharsets.UTF_8);
+        InputStream in = new ByteArrayInputStream(bytes) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                return super.read(b, off, Math.min(len, 1));
+            }
+        };
+        LongList positions = new LongList();
+        SubstringSearch.find(in, "ab", positions);
+        assertEquals("[2, 6, 9]", positions.toString());
+    }
+
+    @Test
+    void testFindGzipFileAcrossChunks() throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 300_000; i++) {
+            text.append("бра");
+            if (i % 1000 == 999) {
+                text.append("кадабра");
+            }
+        }
+        File file = tempDir.resolve("log.txt.gz").toFile();
+        try (OutputStream out = new GZIPOutputStream(new FileOutputStream(file))) {
+            out.write(text.toString().getBytes(StandardCharsets.UTF_8));
+        }
+
+        List<Long> positions = SubstringSearch.findGzip(file.getAbsolutePath(), "бракадабра");
+        assertEquals(300, positions.size());
+        assertEquals(2997L, positions.get(0));
+        assertEquals(text.indexOf("бракадабра", 3000), positions.get(1));
+    }
+
+    @Test
+    void testFindGzipConcatenatedMembers() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        for (String part : List.of("абра", "када", "бра")) {
+            try (OutputStream out = new GZIPOutputStream(bytes) {
+                @Override
+                public void close() throws IOException {
+                    finish();
+                }
+            }) {
+                out.write(part.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        LongList positions = new LongList();
+        SubstringSearch.findGzip(new ByteArrayInputStream(bytes.toByteArray()), "абра",
+                positions);
+        assertEquals("[0, 7]", positions.toString());
+    }
+
+    @Test
+    void testFindGzipRejectsPlainInput() {
+        assertThrows(IOException.class, () ->
+                SubstringSearch.findGzip(stream("plain text"), "text", position -> { }));
+    }
+
+    /**
+     * Создаёт поток с содержимым строки в кодировке UTF-8.
+     *
+     * @param content содержимое
+     * @return поток
+     */
+    private InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -1,16 +1,22 @@
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.util.List;
 
+import org.example.LongList;
+import org.example.MatchAlgorithm;
 import org.example.SubstringSearch;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class SubstringSearchTest {
 
@@ -94,6 +100,62 @@ class SubstringSearchTest {
         assertEquals(List.of(), occurrences, "Expected no matches when the substring is longer than the text");
     }
 
+    @Test
+    void testFindSubstringAcrossChunkBoundary() throws IOException {
+        // Two-byte characters shifted by one byte, so chunk boundaries split them
+        String content = "a" + "ж".repeat(600_000);
+        try (FileWriter writer = new FileWriter(testFile, StandardCharsets.UTF_8)) {
+            writer.write(content);
+        }
+
+        List<Long> occurrences = SubstringSearch.find(testFile.getAbsolutePath(), "жж");
+        assertEquals(599_999, occurrences.size());
+        assertEquals(1L, occurrences.get(0));
+        assertEquals(599_999L, occurrences.get(599_998));
+    }
+
+    @Test
+    void testFindSubstringIntoPrimitiveSink() throws IOException {
+        writeToFile(testFile, "ababababa");
+        LongList positions = new LongList();
+        SubstringSearch.find(testFile.getAbsolutePath(), "aba", positions);
+        assertArrayEquals(new long[] {0L, 2L, 4L, 6L}, positions.toArray());
+    }
+
+    @Test
+    void testCountSubstring() throws IOException {
+        writeToFile(testFile, "aaaaaa");
+        assertEquals(6L, SubstringSearch.count(testFile.getAbsolutePath(), "a"));
+        assertEquals(0L, SubstringSearch.count(testFile.getAbsolutePath(), "b"));
+    }
+
+    @Test
+    void testFindFirstOccurrences() throws IOException {
+        writeToFile(testFile, "ababababa");
+        String path = testFile.getAbsolutePath();
+        assertEquals(List.of(0L, 2L), SubstringSearch.find(path, "aba", 2));
+        assertEquals(List.of(0L, 2L, 4L, 6L), SubstringSearch.find(path, "aba", 10));
+        assertEquals(List.of(), SubstringSearch.find(path, "aba", 0));
+        assertEquals(1L, SubstringSearch.findFirst(path, "baba"));
+        assertEquals(-1L, SubstringSearch.findFirst(path, "c"));
+    }
+
+    @Test
+    void testContainsSubstring() throws IOException {
+        writeToFile(testFile, "hello world");
+        assertTrue(SubstringSearch.contains(testFile.getAbsolutePath(), "o w"));
+        assertFalse(SubstringSearch.contains(testFile.getAbsolutePath(), "test"));
+    }
+
+    @Test
+    void testFindWithForcedAlgorithm() throws IOException {
+        writeToFile(testFile, "abrakadabra abrakadabra");
+        for (MatchAlgorithm algorithm : MatchAlgorithm.values()) {
+            assertEquals(List.of(4L, 16L),
+                    SubstringSearch.find(testFile.getAbsolutePath(), "kadabra", algorithm));
+        }
+    }
+
     /**
      * Вспомогательный метод для записи текста в файл.
      */